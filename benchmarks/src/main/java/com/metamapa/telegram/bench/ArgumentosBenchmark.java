@@ -0,0 +1,135 @@
+package com.metamapa.telegram.bench;
+
+import com.metamapa.telegram.util.Argumentos;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo de argumentos de los comandos: lo que hacía cada handler por su cuenta (split con
+ * regex, nz() con varios trim, indexOf, toLowerCase del texto entero) contra una pasada de
+ * {@link Argumentos}, creando la vista por mensaje, reusándola y con la vista del hilo que
+ * comparten router y handler ({@link Argumentos#del}). Correr con -prof gc para
+ * ver las asignaciones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArgumentosBenchmark {
+
+    private static final String AGREGAR_HECHO =
+            "/agregar_hecho incendios-2024 | Incendio en la reserva | Ambiental | Costanera Sur | 2024-03-05 | vecinos";
+    private static final String BUSCAR = "/buscar inundación en la zona sur del conurbano, tag: \"Buenos Aires\"";
+    private static final String VER_HECHO = "/hecho 12345";
+    private static final String SOLICITAR_BORRADO =
+            "/solicitar_borrado 12345 " + "El hecho está duplicado y tiene datos personales. ".repeat(12);
+
+    private final Argumentos reusada = new Argumentos();
+
+    @Benchmark
+    public void legacy(Blackhole bh) {
+        // /agregar_hecho
+        String[] cmdAndArgs = AGREGAR_HECHO.trim().split("\\s+", 2);
+        String[] raw = cmdAndArgs[1].split("\\|");
+        for (int i = 0; i < 6; i++) bh.consume(raw.length > i ? nz(raw[i]) : null);
+        // /buscar
+        bh.consume(extraerKeyword(BUSCAR));
+        bh.consume(extraerTag(BUSCAR));
+        // /hecho
+        String[] parts = VER_HECHO.trim().split("\\s+");
+        bh.consume(parts[1].trim());
+        // /solicitar_borrado
+        String text = SOLICITAR_BORRADO.trim();
+        String hechoId = text.split("\\s+")[1];
+        bh.consume(text.substring(text.indexOf(hechoId) + hechoId.length()).trim());
+    }
+
+    @Benchmark
+    public void argumentos(Blackhole bh) {
+        agregarHecho(bh, Argumentos.de(AGREGAR_HECHO));
+        buscar(bh, Argumentos.de(BUSCAR));
+        verHecho(bh, Argumentos.de(VER_HECHO));
+        solicitarBorrado(bh, Argumentos.de(SOLICITAR_BORRADO));
+    }
+
+    @Benchmark
+    public void argumentosReusada(Blackhole bh) {
+        agregarHecho(bh, reusada.parsear(AGREGAR_HECHO));
+        buscar(bh, reusada.parsear(BUSCAR));
+        verHecho(bh, reusada.parsear(VER_HECHO));
+        solicitarBorrado(bh, reusada.parsear(SOLICITAR_BORRADO));
+    }
+
+    // Un update: el router pide el comando y el handler sus argumentos a la vista del hilo,
+    // con el mismo String (el texto se copia para que cada invocación tenga que parsear)
+    @Benchmark
+    public void porUpdate(Blackhole bh) {
+        String texto = new String(AGREGAR_HECHO);
+        bh.consume(Argumentos.del(texto).comando());
+        agregarHecho(bh, Argumentos.del(texto));
+    }
+
+    // Solo el parseo, sin armar los String: lo que cuesta la pasada en sí
+    @Benchmark
+    public int soloPasada() {
+        return reusada.parsear(AGREGAR_HECHO).campos() + reusada.parsear(BUSCAR).posicionales()
+                + reusada.parsear(VER_HECHO).posicionales() + reusada.parsear(SOLICITAR_BORRADO).posicionales();
+    }
+
+    // Los mismos valores que piden los handlers
+    private static void agregarHecho(Blackhole bh, Argumentos a) {
+        for (int i = 0; i < 6; i++) bh.consume(a.campo(i));
+    }
+
+    private static void buscar(Blackhole bh, Argumentos a) {
+        String comillas = a.entreComillas();
+        bh.consume(comillas != null ? comillas : a.libre());
+        bh.consume(a.valor("tag"));
+    }
+
+    private static void verHecho(Blackhole bh, Argumentos a) {
+        bh.consume(a.posicional(0));
+    }
+
+    private static void solicitarBorrado(Blackhole bh, Argumentos a) {
+        bh.consume(a.posicional(0));
+        bh.consume(a.restoDespues(0));
+    }
+
+    // Copias de lo que tenían AgregarHechoHandler y BuscarKeywordHandler
+    private static String nz(String s) {
+        return (s == null) ? null : s.trim().isEmpty() ? null : s.trim();
+    }
+
+    private static String extraerKeyword(String text) {
+        int i1 = text.indexOf("\"");
+        int i2 = text.indexOf("\"", i1 + 1);
+        if (i1 != -1 && i2 != -1) return text.substring(i1 + 1, i2);
+        String[] parts = text.split(" ", 2);
+        if (parts.length < 2) return null;
+        String keywordData = parts[1].trim();
+        int tagIndex = keywordData.toLowerCase().indexOf("tag:");
+        if (tagIndex != -1) {
+            keywordData = keywordData.substring(0, tagIndex).trim();
+            if (keywordData.endsWith(",")) {
+                keywordData = keywordData.substring(0, keywordData.length() - 1).trim();
+            }
+        }
+        if (!keywordData.isEmpty()) return keywordData;
+        return null;
+    }
+
+    private static String extraerTag(String text) {
+        String lower = text.toLowerCase();
+        int tagIndex = lower.indexOf("tag:");
+        if (tagIndex == -1) return null;
+        int i1 = text.indexOf("\"", tagIndex);
+        int i2 = text.indexOf("\"", i1 + 1);
+        if (i1 == -1 || i2 == -1) return null;
+        return text.substring(i1 + 1, i2);
+    }
+}
@@ -0,0 +1,86 @@
+package com.metamapa.telegram.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compara dos reportes de JMH en JSON (-rf json) benchmark por benchmark:
+ *
+ *   java -cp benchmarks/target/benchmarks.jar com.metamapa.telegram.bench.CompararResultados \
+ *        antes.json despues.json [umbral%]
+ *
+ * Marca como regresión lo que empeoró más que el umbral (10% por defecto): más tiempo en los
+ * modos de tiempo, menos operaciones en throughput. Sale con código 1 si hubo alguna.
+ */
+public final class CompararResultados {
+
+    private record Resultado(String modo, double score, double error, String unidad) { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: CompararResultados <antes.json> <despues.json> [umbral%]");
+            System.exit(2);
+        }
+        double umbral = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Resultado> antes = leer(new File(args[0]));
+        Map<String, Resultado> despues = leer(new File(args[1]));
+
+        int regresiones = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Antes", "Después", "Cambio");
+        for (Map.Entry<String, Resultado> e : despues.entrySet()) {
+            Resultado d = e.getValue();
+            Resultado a = antes.get(e.getKey());
+            if (a == null) {
+                System.out.printf("%-70s %14s %14.3f %9s%n", e.getKey(), "-", d.score(), "nuevo");
+                continue;
+            }
+            double cambio = (d.score() - a.score()) / a.score() * 100;
+            // En throughput más es mejor; en los demás modos (tiempos) menos es mejor
+            double empeoro = "thrpt".equals(d.modo()) ? -cambio : cambio;
+            // Si la diferencia entra en el error de las dos mediciones no se cuenta
+            boolean ruido = Math.abs(d.score() - a.score()) <= a.error() + d.error();
+            String marca = empeoro > umbral && !ruido ? "  ⚠ regresión" : "";
+            if (!marca.isEmpty()) regresiones++;
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s%s%n",
+                    e.getKey(), a.score(), d.score(), cambio, d.unidad(), marca);
+        }
+        for (String k : antes.keySet()) {
+            if (!despues.containsKey(k)) System.out.printf("%-70s %14.3f %14s %9s%n", k, antes.get(k).score(), "-", "quitado");
+        }
+
+        System.out.println(regresiones == 0 ? "Sin regresiones." : regresiones + " regresiones de más de " + umbral + "%.");
+        System.exit(regresiones == 0 ? 0 : 1);
+    }
+
+    // Clave: nombre corto del benchmark más sus @Param, ej "ParseoBenchmark.extraerTag{pagina=0, texto=...}"
+    private static Map<String, Resultado> leer(File archivo) throws IOException {
+        Map<String, Resultado> out = new LinkedHashMap<>();
+        for (JsonNode b : new ObjectMapper().readTree(archivo)) {
+            String nombre = b.path("benchmark").asText();
+            int punto = nombre.lastIndexOf('.', nombre.lastIndexOf('.') - 1);
+            StringBuilder clave = new StringBuilder(nombre.substring(punto + 1));
+            JsonNode params = b.path("params");
+            if (params.size() > 0) {
+                clave.append('{');
+                Iterator<Map.Entry<String, JsonNode>> it = params.fields();
+                while (it.hasNext()) {
+                    Map.Entry<String, JsonNode> p = it.next();
+                    clave.append(p.getKey()).append('=').append(p.getValue().asText());
+                    if (it.hasNext()) clave.append(", ");
+                }
+                clave.append('}');
+            }
+            JsonNode m = b.path("primaryMetric");
+            double error = m.path("scoreError").asDouble(0);
+            out.put(clave.toString(), new Resultado(b.path("mode").asText(), m.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error, m.path("scoreUnit").asText()));
+        }
+        return out;
+    }
+}
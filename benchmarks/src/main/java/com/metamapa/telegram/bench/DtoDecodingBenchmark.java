@@ -0,0 +1,99 @@
+package com.metamapa.telegram.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.metamapa.telegram.DTO.PdiDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificación de la lista de PDIs de /hecho: Map + casts (como hacía VerHechoHandler)
+ * contra records con un ObjectReader cacheado, con y sin Blackbird.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoDecodingBenchmark {
+
+    private static final TypeReference<List<Map<String, Object>>> MAP_TYPE = new TypeReference<>() {};
+
+    @Param({"1", "20", "200"})
+    public int pdis;
+
+    private byte[] json;
+    private ObjectMapper mapper;
+    private ObjectReader reader;
+    private ObjectReader readerBlackbird;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < pdis; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i)
+                    .append(",\"descripcion\":\"Foto del lugar número ").append(i).append("\"")
+                    .append(",\"lugar\":\"Av. Siempre Viva ").append(100 + i).append("\"")
+                    .append(",\"momento\":[2024,3,5,14,").append(i % 60).append("]")
+                    .append(",\"url_imagen\":\"https://img.example.com/").append(i).append(".png\"")
+                    .append(",\"texto_imagen\":\"texto reconocido en la imagen\"")
+                    .append(",\"etiquetas\":[\"incendio\",\"caba\"]")
+                    .append(",\"hecho_id\":\"42\"}");
+        }
+        json = sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+        mapper = JsonMapper.builder().findAndAddModules().build();
+        reader = mapper.readerFor(new TypeReference<List<PdiDTO>>() {});
+        readerBlackbird = JsonMapper.builder().findAndAddModules().addModule(new BlackbirdModule()).build()
+                .readerFor(new TypeReference<List<PdiDTO>>() {});
+    }
+
+    @Benchmark
+    public void mapConCasts(Blackhole bh) throws Exception {
+        List<Map<String, Object>> lista = mapper.readValue(json, MAP_TYPE);
+        for (Map<String, Object> p : lista) {
+            bh.consume(String.valueOf(p.get("id")));
+            bh.consume(String.valueOf(p.get("descripcion")));
+            bh.consume(String.valueOf(p.get("url_imagen")));
+            // Lo que hacía formatMomento para rearmar la fecha
+            if (p.get("momento") instanceof List<?> m && m.size() >= 5) {
+                bh.consume(LocalDateTime.of((int) m.get(0), (int) m.get(1), (int) m.get(2),
+                        (int) m.get(3), (int) m.get(4)));
+            }
+            if (p.get("etiquetas") instanceof List<?> et) {
+                bh.consume(String.join(", ", et.stream().map(Object::toString).toList()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void recordsReaderCacheado(Blackhole bh) throws Exception {
+        consumir(reader.readValue(json), bh);
+    }
+
+    @Benchmark
+    public void recordsReaderBlackbird(Blackhole bh) throws Exception {
+        consumir(readerBlackbird.readValue(json), bh);
+    }
+
+    private static void consumir(List<PdiDTO> lista, Blackhole bh) {
+        for (PdiDTO p : lista) {
+            bh.consume(p.id());
+            bh.consume(p.descripcion());
+            bh.consume(p.urlImagen());
+            bh.consume(p.momento());
+            if (p.etiquetas() != null) bh.consume(String.join(", ", p.etiquetas()));
+        }
+    }
+}
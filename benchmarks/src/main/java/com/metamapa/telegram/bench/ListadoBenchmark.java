@@ -0,0 +1,70 @@
+package com.metamapa.telegram.bench;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.HechoDetalleDTO;
+import com.metamapa.telegram.DTO.Momento;
+import com.metamapa.telegram.DTO.PdiDTO;
+import com.metamapa.telegram.render.Formato;
+import com.metamapa.telegram.render.HechoRenderer;
+import com.metamapa.telegram.render.MessageComposer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado de los mensajes de /hechos (lista partida en mensajes de 4096 caracteres, como el
+ * modo "completo" de ListarHechosHandler) y de /hecho (encabezado HTML más los PDIs partidos,
+ * como VerHechoHandler).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListadoBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int cantidad;
+
+    private List<HechoDTO> hechos;
+    private HechoDetalleDTO detalle;
+    private List<PdiDTO> pdis;
+
+    @Setup
+    public void setup() {
+        hechos = new ArrayList<>();
+        pdis = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            hechos.add(new HechoDTO("Incendio forestal número " + i, "Foco de incendio cerca de la ruta " + i,
+                    List.of("incendio", "caba"), "Ambiental", "Palermo, CABA", LocalDate.of(2024, 3, 1 + i % 28),
+                    "dataset"));
+            pdis.add(new PdiDTO(String.valueOf(i), "Foto <" + i + "> del lugar & alrededores",
+                    "Av. Siempre Viva " + (100 + i), Momento.de(LocalDateTime.of(2024, 3, 5, 14, i % 60)),
+                    "https://img.example.com/" + i + ".png", "texto reconocido en la imagen",
+                    List.of("incendio", "caba")));
+        }
+        detalle = new HechoDetalleDTO("42", "Incendio <forestal> & quema", "Foco de incendio", "incendios",
+                "Ambiental", "Palermo, CABA", LocalDate.of(2024, 3, 5), "dataset", List.of("incendio"));
+    }
+
+    @Benchmark
+    public List<String> listarCompleto() {
+        try (MessageComposer c = MessageComposer.de(Formato.TEXTO)) {
+            c.texto("Hechos para 'incendios':\n\n").fin();
+            for (HechoDTO h : hechos) HechoRenderer.itemListado(c, h);
+            return List.copyOf(c.partes());
+        }
+    }
+
+    @Benchmark
+    public List<String> verHechoConPdis() {
+        List<String> partes = new ArrayList<>(HechoRenderer.encabezado(detalle, "42"));
+        partes.addAll(HechoRenderer.pdis(pdis));
+        return partes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.metamapa.telegram.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificación de la respuesta del buscador (PageResponse&lt;HechoDTO&gt;) con el mismo
+ * ObjectReader cacheado que usa BackendClient. 10 es una página normal; 100 y 1000 son
+ * páginas grandes o listados enteros.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageDecodingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int hechos;
+
+    private byte[] json;
+    private ObjectReader reader;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("{\"content\":[");
+        for (int i = 0; i < hechos; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"titulo\":\"Incendio forestal número ").append(i).append("\"")
+                    .append(",\"descripcion\":\"Foco de incendio cerca de la ruta ").append(i)
+                    .append(", con humo visible desde varios kilómetros\"")
+                    .append(",\"etiquetas\":[\"incendio\",\"caba\",\"urgente\"]")
+                    .append(",\"categoria\":\"Ambiental\"")
+                    .append(",\"ubicacion\":\"Palermo, CABA\"")
+                    .append(",\"fecha\":\"2024-03-").append(String.format("%02d", 1 + i % 28)).append("\"")
+                    .append(",\"origen\":\"dataset\"")
+                    .append(",\"id\":\"").append(i).append("\"}");
+        }
+        sb.append("],\"number\":0,\"totalPages\":5,\"totalElements\":").append(hechos * 5)
+                .append(",\"first\":true,\"last\":false,\"size\":").append(hechos).append('}');
+        json = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        reader = JsonMapper.builder().findAndAddModules().build()
+                .readerFor(new TypeReference<PageResponse<HechoDTO>>() {});
+    }
+
+    @Benchmark
+    public PageResponse<HechoDTO> decodificar() throws Exception {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,46 @@
+package com.metamapa.telegram.bench;
+
+import com.metamapa.telegram.handler.BuscarKeywordHandler;
+import com.metamapa.telegram.util.BotKeyboardUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo de /buscar (keyword y tag) y armado del teclado de paginación, que se hacen en
+ * cada búsqueda y en cada toque de ◀ / ▶.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseoBenchmark {
+
+    @Param({
+            "/buscar incendio",
+            "/buscar \"incendio forestal\"",
+            "/buscar incendio, tag: \"CABA\"",
+            "/buscar inundación en la zona sur del conurbano bonaerense, tag: \"Buenos Aires\""
+    })
+    public String texto;
+
+    @Param({"0", "5"})
+    public int pagina;
+
+    // Lo que hace un /buscar: keyword y tag del mismo texto, que se recorre una sola vez. Cada
+    // invocación usa otro String; con el mismo, la vista del hilo ya lo tendría parseado
+    @Benchmark
+    public void extraerKeywordYTag(Blackhole bh) {
+        String t = new String(texto);
+        bh.consume(BuscarKeywordHandler.extraerKeyword(t));
+        bh.consume(BuscarKeywordHandler.extraerTag(t));
+    }
+
+    @Benchmark
+    public void pagination(Blackhole bh) {
+        bh.consume(BotKeyboardUtil.pagination("incendio", "CABA", pagina, 10));
+    }
+}
@@ -0,0 +1,99 @@
+package com.metamapa.telegram.bench;
+
+import com.metamapa.telegram.DTO.Momento;
+import com.metamapa.telegram.DTO.PdiDTO;
+import com.metamapa.telegram.render.Formato;
+import com.metamapa.telegram.render.HechoRenderer;
+import com.metamapa.telegram.render.MessageComposer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render de la lista de PDIs de /hecho: el armado anterior de VerHechoHandler (esc con
+ * String.replace encadenados y corte a 3500 caracteres) contra {@link HechoRenderer} /
+ * {@link MessageComposer}. Correr con -prof gc para ver la diferencia en asignaciones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+
+    private static final DateTimeFormatter MOMENTO_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    @Param({"5", "50", "500"})
+    public int pdis;
+
+    private List<PdiDTO> lista;
+    private String textoConEscapes;
+
+    @Setup
+    public void setup() {
+        lista = new ArrayList<>();
+        for (int i = 0; i < pdis; i++) {
+            lista.add(new PdiDTO(String.valueOf(i), "Foto <" + i + "> del lugar & alrededores",
+                    "Av. Siempre Viva " + (100 + i), Momento.de(LocalDateTime.of(2024, 3, 5, 14, i % 60)),
+                    "https://img.example.com/" + i + ".png", "texto reconocido en la imagen",
+                    List.of("incendio", "caba")));
+        }
+        textoConEscapes = "Incendio en <Palermo> & alrededores, \"zona norte\" ".repeat(20);
+    }
+
+    @Benchmark
+    public List<String> pdisLegacy() {
+        List<String> partes = new ArrayList<>();
+        StringBuilder sbPdis = new StringBuilder();
+        sbPdis.append("\n<b>PDIs (").append(lista.size()).append("):</b>\n");
+        int n = 1;
+        for (PdiDTO p : lista) {
+            StringBuilder unPdi = new StringBuilder();
+            unPdi.append(n++).append(". ").append(esc(p.descripcion())).append("\n");
+            unPdi.append("   ID: ").append(esc(p.id())).append("\n");
+            if (p.lugar() != null) unPdi.append("   Lugar: ").append(esc(p.lugar())).append("\n");
+            if (p.momento() != null) unPdi.append("   Momento: ").append(esc(MOMENTO_FMT.format(p.momento().fecha()))).append("\n");
+            unPdi.append("   📝 ").append(esc(p.textoImagen())).append("\n");
+            unPdi.append("   🏷️ Etiquetas: ").append(esc(String.join(", ", p.etiquetas()))).append("\n");
+            unPdi.append(p.urlImagen()).append("\n\n");
+            if (sbPdis.length() + unPdi.length() > 3500) {
+                partes.add(sbPdis.toString());
+                sbPdis = new StringBuilder("(continuación PDIs...)\n\n");
+            }
+            sbPdis.append(unPdi);
+        }
+        partes.add(sbPdis.toString());
+        return partes;
+    }
+
+    @Benchmark
+    public List<String> pdisComposer() {
+        return HechoRenderer.pdis(lista);
+    }
+
+    @Benchmark
+    public void escapeLegacy(Blackhole bh) {
+        bh.consume(esc(textoConEscapes));
+    }
+
+    @Benchmark
+    public void escapeUnaPasada(Blackhole bh) {
+        try (MessageComposer c = MessageComposer.de(Formato.HTML)) {
+            bh.consume(c.texto(textoConEscapes).unMensaje());
+        }
+    }
+
+    // Copia del esc() que tenía VerHechoHandler
+    private static String esc(String s) {
+        if (s == null) return "";
+        return s.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;");
+    }
+}
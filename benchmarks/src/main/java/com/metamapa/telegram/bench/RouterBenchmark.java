@@ -0,0 +1,120 @@
+package com.metamapa.telegram.bench;
+
+import com.metamapa.telegram.bot.CommandRouter;
+import com.metamapa.telegram.handler.BotCommandHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Compara el ruteo indexado de {@link CommandRouter} contra el recorrido lineal
+ * con canHandle que hacía MetaMapaBot (los predicados de abajo son copia de los originales),
+ * y contra un recorrido lineal con el canHandle por defecto de los handlers actuales.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+    @Param({
+            "/agregar_hecho col | titulo | cat",
+            "/buscar incendio, tag: \"CABA\"",
+            "BUSCAR|incendio|_|3",
+            "HECHOS|miColeccion|2",
+            "/cerca Palermo",
+            "/solicitar_borrado 123 una descripcion larga",
+            "/hecho 42",
+            "hola, esto no es un comando"
+    })
+    public String input;
+
+    private List<BotCommandHandler> legacy;
+    private List<BotCommandHandler> actuales;
+    private CommandRouter router;
+
+    @Setup
+    public void setup() {
+        // Mismo orden que la lista que inyecta Spring (alfabético por bean)
+        legacy = List.of(
+                new Legacy(c -> c != null && c.trim().toLowerCase().startsWith("/agregar_hecho")),
+                new Legacy(c -> c != null && c.trim().toLowerCase().startsWith("/agregar_pdi")),
+                new Legacy(c -> c != null && (c.startsWith("/buscar") || c.startsWith("BUSCAR|"))),
+                new Legacy(c -> tokenLegacy(c).equals("/cambiar_estado")),
+                new Legacy(c -> c != null && c.startsWith("/hechos")),
+                new Legacy(c -> {
+                    String t = tokenLegacy(c);
+                    return t.equals("/solicitar_borrado") || t.equals("/solicitud_borrado");
+                }),
+                new Legacy(c -> c != null && c.trim().toLowerCase().startsWith("/hecho "))
+        );
+
+        // Lo que declaran hoy los handlers del bot, en el orden en que los inyecta Spring
+        actuales = List.of(
+                new Declared(Set.of("/agregar_hecho"), Set.of()),
+                new Declared(Set.of("/agregar_pdi"), Set.of()),
+                new Declared(Set.of("/buscar"), Set.of("BUSCAR|")),
+                new Declared(Set.of("/cambiar_estado"), Set.of()),
+                new Declared(Set.of("/cerca"), Set.of("CERCA|")),
+                new Declared(Set.of("/importar_hechos"), Set.of()),
+                new Declared(Set.of("/hechos"), Set.of("HECHOS|")),
+                new Declared(Set.of("/solicitar_borrado", "/solicitud_borrado"), Set.of()),
+                new Declared(Set.of("/hecho"), Set.of())
+        );
+        router = new CommandRouter(actuales);
+    }
+
+    @Benchmark
+    public void linearCanHandle(Blackhole bh) {
+        BotCommandHandler found = null;
+        for (BotCommandHandler h : legacy) {
+            if (h.canHandle(input)) {
+                found = h;
+                break;
+            }
+        }
+        bh.consume(found);
+    }
+
+    @Benchmark
+    public void linearCanHandleDefault(Blackhole bh) {
+        BotCommandHandler found = null;
+        for (BotCommandHandler h : actuales) {
+            if (h.canHandle(input)) {
+                found = h;
+                break;
+            }
+        }
+        bh.consume(found);
+    }
+
+    @Benchmark
+    public void indexedRouter(Blackhole bh) {
+        bh.consume(router.route(input));
+    }
+
+    private static String tokenLegacy(String command) {
+        if (command == null) return "";
+        String token = command.trim().split("\\s+")[0].toLowerCase();
+        int at = token.indexOf('@');
+        if (at > 0) token = token.substring(0, at);
+        return token;
+    }
+
+    private record Legacy(Predicate<String> predicate) implements BotCommandHandler {
+        @Override public boolean canHandle(String command) { return predicate.test(command); }
+        @Override public BotApiMethod<?> handle(Update update) { return null; }
+    }
+
+    private record Declared(Set<String> commands, Set<String> callbackPrefixes) implements BotCommandHandler {
+        @Override public BotApiMethod<?> handle(Update update) { return null; }
+    }
+}
@@ -0,0 +1,21 @@
+package com.metamapa.telegram.DTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// Hecho tal como lo devuelve fuentes en GET /hecho/{id} y al crearlo
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record HechoDetalleDTO(
+    @JsonAlias("hechoId") String id,
+    String titulo,
+    String descripcion,
+    String nombreColeccion,
+    String categoria,
+    String ubicacion,
+    LocalDate fecha,
+    String origen,
+    List<String> etiquetas
+) {}
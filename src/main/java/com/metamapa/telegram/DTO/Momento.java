@@ -0,0 +1,40 @@
+package com.metamapa.telegram.DTO;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Momento de un PDI. El backend lo manda como fecha y hora local (string ISO o array
+ * [aaaa, m, d, h, min]), pero si llega otra cosa (solo la fecha, con zona, ...) se guarda el
+ * texto tal cual: un valor raro no puede romper la lista entera de PDIs.
+ */
+public record Momento(LocalDateTime fecha, String texto) {
+
+    public static Momento de(LocalDateTime fecha) {
+        return new Momento(fecha, null);
+    }
+
+    public static final class Lector extends StdDeserializer<Momento> {
+
+        public Lector() {
+            super(Momento.class);
+        }
+
+        @Override
+        public Momento deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonNode valor = p.readValueAsTree();
+            try {
+                return de(ctxt.readTreeAsValue(valor, LocalDateTime.class));
+            } catch (JsonProcessingException | DateTimeException e) {
+                return new Momento(null, valor.isTextual() ? valor.asText() : valor.toString());
+            }
+        }
+    }
+}
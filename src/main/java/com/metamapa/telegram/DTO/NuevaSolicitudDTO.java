@@ -0,0 +1,10 @@
+package com.metamapa.telegram.DTO;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Cuerpo de POST /solicitudes
+public record NuevaSolicitudDTO(
+    String descripcion,
+    String estado,
+    @JsonProperty("hecho_id") String hechoId
+) {}
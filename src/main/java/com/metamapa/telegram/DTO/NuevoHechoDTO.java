@@ -0,0 +1,44 @@
+package com.metamapa.telegram.DTO;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+// Cuerpo de POST /hecho (los opcionales en null no se mandan).
+// También es lo que se lee de cada línea de un JSONL en /importar_hechos.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record NuevoHechoDTO(
+    @JsonProperty("nombre_coleccion") @JsonAlias({"coleccion", "nombreColeccion"}) String nombreColeccion,
+    String titulo,
+    String categoria,
+    String ubicacion,
+    String fecha,
+    String origen
+) {
+
+    // null si se puede mandar; si no, qué está mal (lo usan /agregar_hecho y /importar_hechos)
+    public String validar() {
+        if (nombreColeccion == null || nombreColeccion.isBlank()) return "falta la colección";
+        if (titulo == null || titulo.isBlank()) return "falta el título";
+        if (fecha != null && !fechaIso(fecha.trim())) {
+            return "la fecha '" + fecha + "' no es ISO (aaaa-mm-dd o aaaa-mm-ddThh:mm)";
+        }
+        return null;
+    }
+
+    private static boolean fechaIso(String s) {
+        try {
+            if (s.indexOf('T') < 0) LocalDate.parse(s);
+            else LocalDateTime.parse(s);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
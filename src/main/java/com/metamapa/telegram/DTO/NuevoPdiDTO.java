@@ -0,0 +1,18 @@
+package com.metamapa.telegram.DTO;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Cuerpo de POST /pdis, en snake_case (los opcionales vacíos no se mandan)
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record NuevoPdiDTO(
+    @JsonProperty("hecho_id") String hechoId,
+    String descripcion,
+    String lugar,
+    String momento,
+    @JsonProperty("url_imagen") String urlImagen,
+    @JsonProperty("texto_imagen") String textoImagen,
+    List<String> etiquetas
+) {}
@@ -0,0 +1,20 @@
+package com.metamapa.telegram.DTO;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+// Punto de interés de un hecho (GET /hecho/{id}/pdis y respuesta de POST /pdis)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PdiDTO(
+    @JsonAlias("pdi_id") String id,
+    String descripcion,
+    String lugar,
+    @JsonDeserialize(using = Momento.Lector.class) Momento momento,
+    @JsonProperty("url_imagen") String urlImagen,
+    @JsonProperty("texto_imagen") String textoImagen,
+    List<String> etiquetas
+) {}
@@ -0,0 +1,13 @@
+package com.metamapa.telegram.DTO;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// Solicitud de borrado tal como la devuelve el servicio de solicitudes
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SolicitudDTO(
+    String id,
+    @JsonAlias("hecho_id") String hechoId,
+    String descripcion,
+    String estado
+) {}
@@ -0,0 +1,48 @@
+package com.metamapa.telegram.bot;
+
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Dentro de un lote de updates, se queda con el último toque de navegación de cada mensaje:
+ * cinco toques a "▶ Siguiente" sobre el mismo mensaje terminan en una sola búsqueda y una
+ * sola edición, la de la página a la que el usuario quería llegar.
+ */
+final class CallbackCoalescer {
+
+    private CallbackCoalescer() { }
+
+    /** Los updates en el orden original, sin los toques reemplazados por uno posterior. */
+    static List<Update> coalescer(List<Update> updates, Predicate<String> coalescible) {
+        // mensaje -> posición del último toque coalescible sobre él
+        Map<String, Integer> ultimo = null;
+        for (int i = 0; i < updates.size(); i++) {
+            String clave = clave(updates.get(i), coalescible);
+            if (clave == null) continue;
+            if (ultimo == null) ultimo = new HashMap<>();
+            ultimo.put(clave, i);
+        }
+        if (ultimo == null) return updates;
+
+        List<Update> resultado = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            String clave = clave(updates.get(i), coalescible);
+            if (clave == null || ultimo.get(clave) == i) resultado.add(updates.get(i));
+        }
+        return resultado;
+    }
+
+    private static String clave(Update u, Predicate<String> coalescible) {
+        if (!u.hasCallbackQuery()) return null;
+        Message m = u.getCallbackQuery().getMessage();
+        String data = u.getCallbackQuery().getData();
+        if (m == null || data == null || !coalescible.test(data)) return null;
+        return m.getChatId() + ":" + m.getMessageId();
+    }
+}
@@ -0,0 +1,73 @@
+package com.metamapa.telegram.bot;
+
+import com.metamapa.telegram.handler.BotCommandHandler;
+import com.metamapa.telegram.util.Argumentos;
+import com.metamapa.telegram.util.CommandToken;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resuelve qué handler atiende un texto o callback con una sola búsqueda en un hash,
+ * en lugar de preguntarle a cada handler con canHandle.
+ * Los handlers que no declaran comandos ni prefijos se siguen consultando en orden,
+ * después de la búsqueda indexada.
+ * El comando sale de {@link Argumentos#del}: el handler después reusa esa misma pasada.
+ */
+public class CommandRouter {
+
+    private final Map<String, BotCommandHandler> porComando = new HashMap<>();
+    private final Map<String, BotCommandHandler> porPrefijo = new HashMap<>();
+    private final List<BotCommandHandler> sinDeclarar = new ArrayList<>();
+    private final Set<String> coalescibles = new HashSet<>();
+
+    public CommandRouter(List<BotCommandHandler> handlers) {
+        for (BotCommandHandler h : handlers) {
+            boolean declarado = false;
+            for (String cmd : h.commands()) {
+                registrar(porComando, cmd.toLowerCase(), h);
+                declarado = true;
+            }
+            for (String prefix : h.callbackPrefixes()) {
+                registrar(porPrefijo, prefix, h);
+                declarado = true;
+            }
+            coalescibles.addAll(h.coalescingCallbackPrefixes());
+            if (!declarado) sinDeclarar.add(h);
+        }
+    }
+
+    private static void registrar(Map<String, BotCommandHandler> idx, String key, BotCommandHandler h) {
+        BotCommandHandler previo = idx.putIfAbsent(key, h);
+        if (previo != null && previo != h) {
+            throw new IllegalStateException("'" + key + "' lo declaran "
+                    + previo.getClass().getSimpleName() + " y " + h.getClass().getSimpleName());
+        }
+    }
+
+    /** Handler para el texto de un mensaje o el data de un callback, o null si ninguno lo atiende. */
+    public BotCommandHandler route(String command) {
+        if (command == null) return null;
+
+        String token = Argumentos.del(command).comando();
+        BotCommandHandler h = token != null
+                ? porComando.get(token)
+                : porPrefijo.get(CommandToken.callbackPrefix(command));
+        if (h != null) return h;
+
+        for (BotCommandHandler legacy : sinDeclarar) {
+            if (legacy.canHandle(command)) return legacy;
+        }
+        return null;
+    }
+
+    /** true si el callback es de navegación y un toque posterior en el mismo mensaje lo reemplaza. */
+    public boolean coalescible(String callbackData) {
+        String prefix = CommandToken.callbackPrefix(callbackData);
+        return prefix != null && coalescibles.contains(prefix);
+    }
+}
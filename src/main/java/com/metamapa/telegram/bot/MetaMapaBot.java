@@ -1,41 +1,163 @@
 package com.metamapa.telegram.bot;
 
 import com.metamapa.telegram.handler.BotCommandHandler; 
+import com.metamapa.telegram.handler.InlineBusquedaHandler;
+import com.metamapa.telegram.util.Argumentos;
+import com.metamapa.telegram.util.CommandToken;
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List; 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class MetaMapaBot extends TelegramLongPollingBot {
 
     private final List<BotCommandHandler> handlers; 
-    private final Dotenv dotenv;
+    private final CommandRouter router;
+    private final UpdateDispatcher dispatcher;
+    private final TelegramSender sender;
+    private final UpdateDeduplicator dedup;
+    private final InlineBusquedaHandler inline;
+    private final String username;
+    private final AtomicLong coalescidos = new AtomicLong();
+    private final MeterRegistry registry;
+    // Un timer por comando y resultado; se resuelven una vez y se reusan
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    // "polling" (por defecto) o "webhook"
+    @Value("${metamapa.bot.mode:polling}")
+    private String modo;
+
+    @Value("${metamapa.webhook.url:}")
+    private String webhookUrl;
+
+    @Value("${metamapa.webhook.path:/telegram/webhook}")
+    private String webhookPath;
+
+    @Value("${metamapa.webhook.secret:}")
+    private String webhookSecret;
 
     @Autowired
-    public MetaMapaBot(List<BotCommandHandler> handlers) { 
-        super();
+    public MetaMapaBot(List<BotCommandHandler> handlers, UpdateDispatcher dispatcher, TelegramSender sender,
+                       UpdateDeduplicator dedup, InlineBusquedaHandler inline, MeterRegistry registry,
+                       @Value("${metamapa.telegram.sender-threads:8}") int senderThreads,
+                       @Value("${metamapa.telegram.base-url:https://api.telegram.org/bot}") String baseUrl,
+                       @Value("${metamapa.telegram.token:}") String token,
+                       @Value("${metamapa.telegram.username:}") String username) { 
+        super(opciones(senderThreads, baseUrl), propiedadOEnv(token, "TOKEN_BOT"));
         this.handlers = handlers;
-        this.dotenv = Dotenv.load();
+        this.router = new CommandRouter(handlers);
+        this.dispatcher = dispatcher;
+        this.sender = sender;
+        this.dedup = dedup;
+        this.inline = inline;
+        this.registry = registry;
+        this.username = propiedadOEnv(username, "NOMBRE_BOT");
+        sender.bind(this);
         System.out.println("Cargados " + handlers.size() + " manejadores de comandos.");
     }
 
+    // Si no viene por propiedad (o variable de entorno) se lee del .env
+    private static String propiedadOEnv(String valor, String variable) {
+        if (valor != null && !valor.isBlank()) return valor;
+        return Dotenv.configure().ignoreIfMissing().load().get(variable);
+    }
+
+    private static DefaultBotOptions opciones(int senderThreads, String baseUrl) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        // Otra URL solo para apuntar a un Bot API propio o al falso de la prueba de carga
+        options.setBaseUrl(baseUrl);
+        // executeAsync corre en este pool; con el valor por defecto (1 hilo) todos los envíos se serializan
+        options.setMaxThreads(senderThreads);
+        return options;
+    }
+
+    // Un lote de getUpdates: se sacan los repetidos y, antes de encolar, los toques de
+    // navegación que quedan tapados por otro posterior sobre el mismo mensaje
+    @Override
+    public void onUpdatesReceived(List<Update> updates) {
+        List<Update> nuevos = new ArrayList<>(updates.size());
+        for (Update u : updates) {
+            if (primeraVez(u)) nuevos.add(u);
+        }
+        List<Update> utiles = CallbackCoalescer.coalescer(nuevos, router::coalescible);
+        coalescidos.addAndGet(nuevos.size() - utiles.size());
+        for (Update u : utiles) {
+            encolar(u);
+        }
+    }
+
     @Override
     public void onUpdateReceived(Update update) {
+        if (primeraVez(update)) encolar(update);
+    }
+
+    // Telegram puede reenviar updates después de una reconexión o de un webhook que tardó
+    private boolean primeraVez(Update update) {
+        return update.getUpdateId() == null || dedup.primeraVez(update.getUpdateId());
+    }
+
+    // El hilo de long polling solo encola: el trabajo real corre en el dispatcher,
+    // en orden dentro de cada chat y en paralelo entre chats.
+    private void encolar(Update update) {
+        if (update.hasInlineQuery()) {
+            // El handler inline hace su propio debounce antes de pasar por el dispatcher
+            inline.recibir(update.getInlineQuery());
+            return;
+        }
+
+        Long chatId = chatIdDe(update);
+        long key = chatId != null ? chatId : 0L;
+
+        if (!dispatcher.submit(key, () -> procesar(update)) && chatId != null && update.hasMessage()) {
+            sender.enviar(chatId, new SendMessage(chatId.toString(),
+                    "⏳ Hay demasiadas consultas pendientes, probá de nuevo en unos segundos."));
+        }
+    }
+
+    private static Long chatIdDe(Update update) {
+        if (update.hasMessage()) return update.getMessage().getChatId();
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        return null;
+    }
+
+    private void procesar(Update update) {
         String command = null;
         Long chatId = null;
 
         if (update.hasMessage() && update.getMessage().hasText()) {
             command = update.getMessage().getText();
             chatId = update.getMessage().getChatId();
+        } else if (update.hasMessage() && update.getMessage().hasDocument()) {
+            // Un archivo con el comando como epígrafe (ej: /importar_hechos)
+            command = update.getMessage().getCaption();
+            chatId = update.getMessage().getChatId();
+        } else if (update.hasMessage() && update.getMessage().hasLocation() && update.getMessage().isUserMessage()) {
+            // Una ubicación compartida en privado es un /cerca con coordenadas (en un grupo la
+            // comparten entre ellos: para el bot hace falta un /cerca explícito)
+            command = "/cerca";
+            chatId = update.getMessage().getChatId();
         } else if (update.hasCallbackQuery()) {
             command = update.getCallbackQuery().getData();
             chatId = update.getCallbackQuery().getMessage().getChatId();
@@ -48,10 +170,15 @@ public class MetaMapaBot extends TelegramLongPollingBot {
         BotApiMethod<?> response = null;
         List<BotApiMethod<?>> responses = null;
 
-        for (BotCommandHandler handler : handlers) {
-            if (handler.canHandle(command)) {
-                responses = handler.handleBatch(update); 
-                break;
+        BotCommandHandler handler = router.route(command);
+        if (handler != null) {
+            long start = System.nanoTime();
+            boolean ok = false;
+            try {
+                responses = handler.handleBatch(update);
+                ok = true;
+            } finally {
+                timer(etiqueta(command), ok).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             }
         }
 
@@ -61,31 +188,53 @@ public class MetaMapaBot extends TelegramLongPollingBot {
             }
         }
 
-        try {
-            if (responses != null && !responses.isEmpty()) {
-                for (BotApiMethod<?> msg : responses) {
-                    execute(msg);
-                }
+        // Se encolan en orden; el TelegramSender respeta ese orden dentro del chat
+        if (responses != null && chatId != null) {
+            for (BotApiMethod<?> msg : responses) {
+                sender.enviar(chatId, msg);
             }
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
         }
     }
 
 
-    @Override
-    public String getBotUsername() {
-        return dotenv.get("NOMBRE_BOT");
+    // Latencia de cada handler, con histograma para sacar percentiles en Prometheus
+    private Timer timer(String comando, boolean ok) {
+        String resultado = ok ? "ok" : "error";
+        return timers.computeIfAbsent(comando + " " + resultado, k -> Timer.builder("metamapa.comandos")
+                .description("Tiempo de atención de cada comando o callback")
+                .tag("comando", comando)
+                .tag("resultado", resultado)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry));
+    }
+
+    // Valor acotado para la etiqueta: el comando ("/buscar") o el prefijo del callback ("BUSCAR")
+    private static String etiqueta(String command) {
+        String token = Argumentos.del(command).comando();
+        if (token != null) return token;
+        String prefix = CommandToken.callbackPrefix(command);
+        return prefix != null ? prefix.substring(0, prefix.length() - 1) : "otro";
+    }
+
+    /** Toques de navegación descartados porque otro posterior sobre el mismo mensaje los reemplazó. */
+    public long getCallbacksCoalescidos() {
+        return coalescidos.get();
     }
 
     @Override
-    public String getBotToken() {
-        return dotenv.get("TOKEN_BOT");
+    public String getBotUsername() {
+        return username;
     }
 
     @PostConstruct
     public void registerBot() {
         try {
+            if (isWebhookMode()) {
+                registrarWebhook();
+                return;
+            }
             TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
             telegramBotsApi.registerBot(this);
             System.out.println("✅ Bot de Telegram (MetaMapaBot) registrado exitosamente.");
@@ -94,4 +243,24 @@ public class MetaMapaBot extends TelegramLongPollingBot {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    public boolean isWebhookMode() {
+        return "webhook".equalsIgnoreCase(modo);
+    }
+
+    // En modo webhook no hay sesión de polling: Telegram nos manda los updates a
+    // WebhookController y acá solo le avisamos la URL y el secreto.
+    private void registrarWebhook() throws TelegramApiException {
+        if (webhookUrl == null || webhookUrl.isBlank() || webhookSecret == null || webhookSecret.isBlank()) {
+            throw new IllegalStateException(
+                    "Modo webhook: faltan metamapa.webhook.url o metamapa.webhook.secret");
+        }
+        String base = webhookUrl.endsWith("/") ? webhookUrl.substring(0, webhookUrl.length() - 1) : webhookUrl;
+        SetWebhook setWebhook = SetWebhook.builder()
+                .url(base + webhookPath)
+                .secretToken(webhookSecret)
+                .build();
+        execute(setWebhook);
+        System.out.println("✅ Webhook de Telegram registrado en " + base + webhookPath);
+    }
+}
@@ -0,0 +1,356 @@
+package com.metamapa.telegram.bot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.GetFile;
+import org.telegram.telegrambots.meta.api.objects.File;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola de salida hacia Telegram.
+ * Manda con executeAsync respetando los límites de Telegram (un token bucket global, que
+ * se reparte en round robin entre los chats, y uno por chat), mantiene el orden dentro de
+ * cada chat (un envío en vuelo por chat) y reintenta los 429 esperando el retry_after que devuelve el servidor.
+ * Lo que no va a ningún chat (answerInlineQuery) sale por {@link #enviarSinChat}: solo
+ * cuenta para el bucket global y no espera detrás de los mensajes de nadie.
+ *
+ * Todo el estado de las colas se toca solo desde el hilo "telegram-sender".
+ */
+@Component
+public class TelegramSender {
+
+    private final ScheduledExecutorService loop = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "telegram-sender");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final double chatPerSecond;
+    private final double groupPerMinute;
+    private final int chatBurst;
+    private final int maxRetries;
+
+    private final TokenBucket global;
+    // En orden de atención: el que manda pasa al final (round robin), así cuando el bucket
+    // global no alcanza para todos no se lo llevan siempre los mismos chats
+    private final Map<Long, ChatOutbox> chats = new LinkedHashMap<>();
+    private final List<ChatOutbox> atendidos = new ArrayList<>();
+    // Métodos sin chat: sin orden entre ellos ni bucket propio, solo el retry_after de un 429
+    private final ArrayDeque<Pending<?>> sinChat = new ArrayDeque<>();
+    private long sinChatBlockedUntil;
+    private ScheduledFuture<?> wake;
+    private long wakeAt;
+
+    private volatile AbsSender bot;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong latencyTotalNanos = new AtomicLong();
+    private final AtomicLong latencyMaxNanos = new AtomicLong();
+    private final MeterRegistry registry;
+    // Timers por método de la Bot API y resultado (ok, error, 429)
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TelegramSender(
+            @Value("${metamapa.telegram.global-per-second:30}") double globalPerSecond,
+            @Value("${metamapa.telegram.chat-per-second:1}") double chatPerSecond,
+            @Value("${metamapa.telegram.group-per-minute:20}") double groupPerMinute,
+            @Value("${metamapa.telegram.chat-burst:3}") int chatBurst,
+            @Value("${metamapa.telegram.max-retries:5}") int maxRetries,
+            MeterRegistry registry) {
+        this.chatPerSecond = chatPerSecond;
+        this.groupPerMinute = groupPerMinute;
+        this.chatBurst = chatBurst;
+        this.maxRetries = maxRetries;
+        this.global = new TokenBucket(globalPerSecond, globalPerSecond, System.nanoTime());
+        this.registry = registry;
+    }
+
+    /** Lo llama el bot al construirse; hasta entonces no se puede enviar nada. */
+    public void bind(AbsSender bot) {
+        this.bot = bot;
+    }
+
+    /**
+     * Encola un método para el chat indicado. El future se completa con la respuesta
+     * de Telegram (por ejemplo el Message enviado) o con el error final.
+     */
+    public <T extends Serializable> CompletableFuture<T> enviar(long chatId, BotApiMethod<T> method) {
+        Pending<T> p = new Pending<>(method);
+        queueDepth.incrementAndGet();
+        loop.execute(() -> {
+            chats.computeIfAbsent(chatId, this::nuevoChat).queue.addLast(p);
+            pump();
+        });
+        return p.future;
+    }
+
+    /**
+     * Encola un método que no es un mensaje a un chat (por ejemplo AnswerInlineQuery). Solo
+     * respeta el límite global: no usa el bucket ni el orden del chat del usuario, así una
+     * respuesta inline no espera detrás de lo que se le está mandando por privado.
+     */
+    public <T extends Serializable> CompletableFuture<T> enviarSinChat(BotApiMethod<T> method) {
+        Pending<T> p = new Pending<>(method);
+        queueDepth.incrementAndGet();
+        loop.execute(() -> {
+            sinChat.addLast(p);
+            pump();
+        });
+        return p.future;
+    }
+
+    /**
+     * Abre un archivo que mandó un usuario (GetFile + descarga). No pasa por la cola: no es un
+     * mensaje al chat y Telegram no lo cuenta en los límites de envío.
+     */
+    public InputStream descargarArchivo(String fileId) throws TelegramApiException {
+        if (!(bot instanceof DefaultAbsSender sender)) {
+            throw new TelegramApiException("El bot todavía no está registrado");
+        }
+        File file = sender.execute(new GetFile(fileId));
+        return sender.downloadFileAsStream(file);
+    }
+
+    private ChatOutbox nuevoChat(long chatId) {
+        long now = System.nanoTime();
+        // ids negativos = grupos y canales: Telegram los limita a ~20 mensajes por minuto
+        TokenBucket bucket = chatId < 0
+                ? new TokenBucket(chatBurst, groupPerMinute / 60d, now)
+                : new TokenBucket(chatBurst, chatPerSecond, now);
+        return new ChatOutbox(chatId, bucket, now);
+    }
+
+    private void pump() {
+        long now = System.nanoTime();
+        long delay = Long.MAX_VALUE;
+
+        // Primero lo que no es de ningún chat: suele ser una respuesta inline que el usuario está esperando
+        while (!sinChat.isEmpty()) {
+            if (sinChatBlockedUntil - now > 0) {
+                delay = Math.min(delay, sinChatBlockedUntil - now);
+                break;
+            }
+            long esperaGlobal = global.nanosUntilAvailable(now);
+            if (esperaGlobal > 0) {
+                delay = Math.min(delay, esperaGlobal);
+                break;
+            }
+            global.take(now);
+            send(null, sinChat.pollFirst());
+        }
+
+        Iterator<ChatOutbox> it = chats.values().iterator();
+        while (it.hasNext()) {
+            ChatOutbox chat = it.next();
+            if (chat.inFlight) continue;
+            if (chat.queue.isEmpty()) {
+                if (chat.blockedUntil - now <= 0 && chat.bucket.isFull(now)) it.remove();
+                continue;
+            }
+            if (chat.blockedUntil - now > 0) {
+                delay = Math.min(delay, chat.blockedUntil - now);
+                continue;
+            }
+            long espera = chat.bucket.nanosUntilAvailable(now);
+            if (espera > 0) {
+                delay = Math.min(delay, espera);
+                continue;
+            }
+            long esperaGlobal = global.nanosUntilAvailable(now);
+            if (esperaGlobal > 0) {
+                delay = Math.min(delay, esperaGlobal);
+                break;
+            }
+            chat.bucket.take(now);
+            global.take(now);
+            send(chat, chat.queue.peekFirst());
+            atendidos.add(chat);
+        }
+        for (ChatOutbox chat : atendidos) {
+            chats.remove(chat.chatId);
+            chats.put(chat.chatId, chat);
+        }
+        atendidos.clear();
+
+        if (delay != Long.MAX_VALUE) programar(now, delay);
+    }
+
+    // Deja un solo pump programado: el más cercano
+    private void programar(long now, long delay) {
+        long at = now + delay;
+        if (wake != null && !wake.isDone() && wakeAt - at <= 0) return;
+        if (wake != null) wake.cancel(false);
+        wakeAt = at;
+        wake = loop.schedule(this::pump, delay, TimeUnit.NANOSECONDS);
+    }
+
+    // chat == null: un método sin chat, que ya salió de la cola sinChat
+    private <T extends Serializable> void send(ChatOutbox chat, Pending<T> p) {
+        if (chat != null) chat.inFlight = true;
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+
+        CompletableFuture<T> f;
+        try {
+            AbsSender sender = bot;
+            if (sender == null) throw new IllegalStateException("El bot todavía no está registrado");
+            f = sender.executeAsync(p.method);
+        } catch (Exception e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        f.whenComplete((res, err) -> loop.execute(() -> terminado(chat, p, res, err, start)));
+    }
+
+    private <T extends Serializable> void terminado(ChatOutbox chat, Pending<T> p, T res, Throwable err, long start) {
+        if (chat != null) chat.inFlight = false;
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        registrarLatencia(now - start);
+        Throwable causaErr = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+        timer(p.method.getMethod(), err == null ? "ok" : retryAfter(causaErr) != null ? "429" : "error")
+                .record(now - start, TimeUnit.NANOSECONDS);
+
+        if (err == null) {
+            if (chat != null) chat.queue.pollFirst();
+            queueDepth.decrementAndGet();
+            sent.incrementAndGet();
+            p.future.complete(res);
+        } else {
+            Throwable causa = causaErr;
+            Integer retryAfter = retryAfter(causa);
+            if (retryAfter != null && p.intentos++ < maxRetries) {
+                // El mensaje queda primero en la cola: se respeta el orden del chat
+                rateLimited.incrementAndGet();
+                long hasta = now + TimeUnit.SECONDS.toNanos(retryAfter);
+                if (chat != null) {
+                    chat.blockedUntil = hasta;
+                } else {
+                    sinChat.addFirst(p);
+                    sinChatBlockedUntil = hasta;
+                }
+            } else {
+                if (chat != null) chat.queue.pollFirst();
+                queueDepth.decrementAndGet();
+                failed.incrementAndGet();
+                System.err.println("❌ No se pudo enviar " + p.method.getMethod() + ": " + causa.getMessage());
+                p.future.completeExceptionally(causa);
+            }
+        }
+        pump();
+    }
+
+    private static Integer retryAfter(Throwable t) {
+        if (t instanceof TelegramApiRequestException req
+                && req.getErrorCode() != null && req.getErrorCode() == 429) {
+            Integer ra = req.getParameters() != null ? req.getParameters().getRetryAfter() : null;
+            return ra != null ? ra : 1;
+        }
+        return null;
+    }
+
+    private Timer timer(String metodo, String resultado) {
+        return timers.computeIfAbsent(metodo + " " + resultado, k -> Timer.builder("metamapa.telegram.execute")
+                .description("Latencia de executeAsync contra la Bot API")
+                .tag("metodo", metodo)
+                .tag("resultado", resultado)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(5))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry));
+    }
+
+    private void registrarLatencia(long nanos) {
+        latencyTotalNanos.addAndGet(nanos);
+        latencyMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Mensajes encolados o en vuelo. */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.get();
+    }
+
+    /** Latencia media de executeAsync en milisegundos (incluye intentos fallidos). */
+    public double getAverageLatencyMillis() {
+        long n = sent.get() + failed.get() + rateLimited.get();
+        return n == 0 ? 0 : latencyTotalNanos.get() / 1_000_000d / n;
+    }
+
+    public double getMaxLatencyMillis() {
+        return latencyMaxNanos.get() / 1_000_000d;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loop.shutdown();
+    }
+
+    private static final class ChatOutbox {
+        private final long chatId;
+        private final ArrayDeque<Pending<?>> queue = new ArrayDeque<>();
+        private final TokenBucket bucket;
+        private boolean inFlight;
+        private long blockedUntil;
+
+        private ChatOutbox(long chatId, TokenBucket bucket, long now) {
+            this.chatId = chatId;
+            this.bucket = bucket;
+            this.blockedUntil = now;
+        }
+    }
+
+    private static final class Pending<T extends Serializable> {
+        private final BotApiMethod<T> method;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private int intentos;
+
+        private Pending(BotApiMethod<T> method) {
+            this.method = method;
+        }
+    }
+}
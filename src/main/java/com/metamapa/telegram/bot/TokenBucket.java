@@ -0,0 +1,43 @@
+package com.metamapa.telegram.bot;
+
+/**
+ * Token bucket simple (no thread-safe: lo usa solo el hilo del {@link TelegramSender}).
+ */
+class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long last;
+
+    TokenBucket(double capacity, double tokensPerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.last = now;
+    }
+
+    private void refill(long now) {
+        if (now > last) {
+            tokens = Math.min(capacity, tokens + (now - last) * tokensPerNano);
+            last = now;
+        }
+    }
+
+    /** Nanos que faltan para tener un token disponible (0 si ya hay). */
+    long nanosUntilAvailable(long now) {
+        refill(now);
+        if (tokens >= 1) return 0;
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    void take(long now) {
+        refill(now);
+        tokens -= 1;
+    }
+
+    boolean isFull(long now) {
+        refill(now);
+        return tokens >= capacity;
+    }
+}
@@ -0,0 +1,89 @@
+package com.metamapa.telegram.bot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Descarta updates repetidos: Telegram puede volver a mandar los mismos update_id después
+ * de una reconexión (o reintentar un webhook).
+ *
+ * Como los update_id crecen de a uno, alcanza con una ventana deslizante de bits sobre los
+ * últimos N ids: un bit por id, en un long[] usado como anillo. Un id que cae muy por debajo
+ * de la ventana no es un repetido sino una secuencia nueva: Telegram elige un update_id al azar
+ * después de una semana sin updates, y un webhook o bot recién configurado puede arrancar más
+ * abajo. En ese caso se vacía la ventana y se empieza de nuevo desde ese id.
+ */
+@Component
+public class UpdateDeduplicator {
+
+    private final long[] bits;
+    private final int tamanio;
+    private long maximo = Long.MIN_VALUE;
+
+    private final AtomicLong duplicados = new AtomicLong();
+
+    public UpdateDeduplicator(@Value("${metamapa.dedup.window:4096}") int ventana) {
+        int palabras = Math.max(1, (ventana + 63) / 64);
+        this.bits = new long[palabras];
+        this.tamanio = palabras * 64;
+    }
+
+    /** true si es la primera vez que se ve este update_id (y lo anota). */
+    public synchronized boolean primeraVez(long updateId) {
+        if (maximo == Long.MIN_VALUE) {
+            maximo = updateId;
+            marcar(updateId);
+            return true;
+        }
+        if (updateId > maximo) {
+            // Lo que sale de la ventana se limpia para reusar esos bits
+            if (updateId - maximo >= tamanio) {
+                Arrays.fill(bits, 0L);
+            } else {
+                for (long id = maximo + 1; id < updateId; id++) limpiar(id);
+            }
+            maximo = updateId;
+            marcar(updateId);
+            return true;
+        }
+        if (maximo - updateId >= tamanio) {
+            // Secuencia nueva: si se tomara como repetido, el bot quedaría mudo hasta reiniciar
+            Arrays.fill(bits, 0L);
+            maximo = updateId;
+            marcar(updateId);
+            return true;
+        }
+        if (marcado(updateId)) {
+            duplicados.incrementAndGet();
+            return false;
+        }
+        marcar(updateId);
+        return true;
+    }
+
+    private int indice(long id) {
+        return (int) Math.floorMod(id, (long) tamanio);
+    }
+
+    private boolean marcado(long id) {
+        int i = indice(id);
+        return (bits[i >>> 6] & (1L << (i & 63))) != 0;
+    }
+
+    private void marcar(long id) {
+        int i = indice(id);
+        bits[i >>> 6] |= 1L << (i & 63);
+    }
+
+    private void limpiar(long id) {
+        int i = indice(id);
+        bits[i >>> 6] &= ~(1L << (i & 63));
+    }
+
+    public long getDuplicados() {
+        return duplicados.get();
+    }
+}
@@ -0,0 +1,174 @@
+package com.metamapa.telegram.bot;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte el trabajo de los updates en un pool acotado de hilos.
+ * Los updates de un mismo chat se ejecutan en orden (uno por vez) y
+ * los de chats distintos en paralelo, así un backend lento solo frena
+ * al chat que lo está esperando.
+ */
+@Component
+public class UpdateDispatcher {
+
+    private final ExecutorService executor;
+    private final int maxQueuePerChat;
+    private final int maxPending;
+
+    private final Map<Long, ChatQueue> colas = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    public UpdateDispatcher(
+            @Value("${metamapa.dispatcher.max-in-flight:16}") int maxInFlight,
+            @Value("${metamapa.dispatcher.max-queue-per-chat:20}") int maxQueuePerChat,
+            @Value("${metamapa.dispatcher.max-pending:1000}") int maxPending) {
+        if (maxInFlight < 1 || maxQueuePerChat < 1 || maxPending < 1) {
+            throw new IllegalArgumentException("Los límites del dispatcher tienen que ser positivos");
+        }
+        this.maxQueuePerChat = maxQueuePerChat;
+        this.maxPending = maxPending;
+
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxInFlight, maxInFlight,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "update-worker-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Encola una tarea para el chat indicado.
+     *
+     * @return false si se superó el límite del chat o el global y la tarea se descartó
+     */
+    public boolean submit(long chatKey, Runnable task) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        boolean arrancar;
+        ChatQueue cola;
+        while (true) {
+            cola = colas.computeIfAbsent(chatKey, k -> new ChatQueue());
+            synchronized (cola) {
+                // Una cola que ya se vació y se sacó del mapa no se puede reusar
+                if (cola.retired) continue;
+                if (cola.tasks.size() >= maxQueuePerChat) {
+                    pending.decrementAndGet();
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                cola.tasks.addLast(task);
+                arrancar = !cola.running;
+                cola.running = true;
+            }
+            break;
+        }
+
+        if (arrancar) {
+            schedule(chatKey, cola);
+        }
+        return true;
+    }
+
+    private void schedule(long chatKey, ChatQueue cola) {
+        try {
+            executor.execute(() -> drain(chatKey, cola));
+        } catch (RejectedExecutionException e) {
+            // Solo pasa al apagar: lo que quedaba en la cola se descarta
+            synchronized (cola) {
+                pending.addAndGet(-cola.tasks.size());
+                cola.tasks.clear();
+                cola.running = false;
+                cola.retired = true;
+                colas.remove(chatKey, cola);
+            }
+        }
+    }
+
+    // Corre UNA tarea del chat y, si quedan más, vuelve a la cola del pool
+    // para no acaparar un hilo mientras otros chats esperan.
+    private void drain(long chatKey, ChatQueue cola) {
+        Runnable task;
+        synchronized (cola) {
+            task = cola.tasks.pollFirst();
+        }
+
+        if (task != null) {
+            inFlight.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.err.println("❌ Error procesando update del chat " + chatKey + ": " + t);
+                t.printStackTrace();
+            } finally {
+                inFlight.decrementAndGet();
+                pending.decrementAndGet();
+            }
+        }
+
+        synchronized (cola) {
+            if (cola.tasks.isEmpty()) {
+                cola.running = false;
+                cola.retired = true;
+                colas.remove(chatKey, cola);
+                return;
+            }
+        }
+        schedule(chatKey, cola);
+    }
+
+    /** Updates encolados o en ejecución. */
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getRejected() {
+        return rejected.get();
+    }
+
+    public int getActiveChats() {
+        return colas.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ChatQueue {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+        private boolean retired;
+    }
+}
@@ -0,0 +1,46 @@
+package com.metamapa.telegram.bot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Recibe los updates de Telegram en modo webhook (metamapa.bot.mode=webhook).
+ * Verifica el secreto, los pasa al mismo pipeline que el long polling y responde
+ * enseguida: el trabajo de los handlers corre después en el UpdateDispatcher.
+ */
+@RestController
+@ConditionalOnProperty(name = "metamapa.bot.mode", havingValue = "webhook")
+public class WebhookController {
+
+    static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final MetaMapaBot bot;
+    private final byte[] secret;
+
+    public WebhookController(MetaMapaBot bot, @Value("${metamapa.webhook.secret:}") String secret) {
+        this.bot = bot;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("${metamapa.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> recibir(
+            @RequestHeader(value = SECRET_HEADER, required = false) String token,
+            @RequestBody Update update) {
+        if (secret.length == 0 || token == null
+                || !MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        bot.onUpdateReceived(update);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.metamapa.telegram.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache en memoria acotada por tamaño (LRU) y con vencimiento por entrada (TTL).
+ * Thread-safe; pensada para pocas cientos/miles de entradas.
+ */
+public class TtlLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TtlLruCache(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries tiene que ser positivo");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlLruCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Valor vigente para la clave, o null si no está o ya venció. */
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (map) {
+            Entry<V> e = map.get(key);
+            if (e != null && e.expiresAt - now > 0) {
+                hits.incrementAndGet();
+                return e.value;
+            }
+            if (e != null) {
+                map.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /** Como {@link #get} pero sin contar hits/misses (para chequeos internos). */
+    public boolean containsFresh(K key) {
+        long now = System.nanoTime();
+        synchronized (map) {
+            Entry<V> e = map.get(key);
+            return e != null && e.expiresAt - now > 0;
+        }
+    }
+
+    /** Segundos de vida que le quedan a la entrada (0 si no está o venció). */
+    public long remainingSeconds(K key) {
+        long now = System.nanoTime();
+        synchronized (map) {
+            Entry<V> e = map.get(key);
+            long left = e == null ? 0 : e.expiresAt - now;
+            return left > 0 ? TimeUnit.NANOSECONDS.toSeconds(left) : 0;
+        }
+    }
+
+    public void put(K key, V value) {
+        if (value == null) return;
+        Entry<V> e = new Entry<>(value, System.nanoTime() + ttlNanos);
+        synchronized (map) {
+            map.put(key, e);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    /** Saca las entradas vencidas; no hace falta llamarlo, pero libera memoria antes. */
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        synchronized (map) {
+            Iterator<Entry<V>> it = map.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiresAt - now <= 0) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private record Entry<V>(V value, long expiresAt) { }
+}
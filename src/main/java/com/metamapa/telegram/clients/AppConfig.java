@@ -1,20 +1,32 @@
 package com.metamapa.telegram.clients;
 
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
-import java.time.Duration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class AppConfig {
 
+    // Pool donde corren los HttpClient de BackendClient (respuestas y llamadas en paralelo)
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService backendExecutor(@Value("${metamapa.backend.threads:16}") int threads) {
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "backend-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Spring Boot registra los Module en el ObjectMapper compartido
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        System.out.println("--- CREANDO BEAN DE RESTEMPLATE CON TIMEOUTS ---"); // Log de inicio
-        return builder
-                .setConnectTimeout(Duration.ofSeconds(10)) 
-                .setReadTimeout(Duration.ofSeconds(10))    
-                .build();
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
     }
-}
\ No newline at end of file
+}
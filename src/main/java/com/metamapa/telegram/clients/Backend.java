@@ -0,0 +1,31 @@
+package com.metamapa.telegram.clients;
+
+/**
+ * Servicios externos con los que habla el bot. Cada uno tiene su propio HttpClient
+ * (pool de conexiones), timeouts y estadísticas en {@link BackendClient}.
+ */
+public enum Backend {
+
+    FUENTES("fuentes", "FUENTES_API_URL"),
+    BUSCADOR("buscador", "BUSCADOR_API_URL"),
+    SOLICITUDES("solicitudes", "SOLICITUDES_BASE_URL"),
+    COLECCIONES("colecciones", "COLECCIONES_API_URL");
+
+    private final String key;
+    private final String envVar;
+
+    Backend(String key, String envVar) {
+        this.key = key;
+        this.envVar = envVar;
+    }
+
+    /** Nombre usado en las properties: metamapa.backends.&lt;key&gt;.* */
+    public String key() {
+        return key;
+    }
+
+    /** Variable de entorno (o de .env) con la URL base, si no está en las properties. */
+    public String envVar() {
+        return envVar;
+    }
+}
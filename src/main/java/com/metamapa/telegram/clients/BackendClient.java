@@ -0,0 +1,516 @@
+package com.metamapa.telegram.clients;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cliente HTTP único para todos los backends.
+ * Cada backend tiene su propio HttpClient (HTTP/2 con fallback a 1.1, conexiones keep-alive
+ * reutilizadas), sus timeouts y sus estadísticas. Pide las respuestas en gzip y las descomprime.
+ *
+ * Los errores se traducen a las excepciones de RestTemplate que ya manejan los handlers:
+ * HttpClientErrorException / HttpServerErrorException para 4xx/5xx y
+ * ResourceAccessException para errores de red y timeouts.
+ *
+ * Cada pedido pasa por la {@link BackendResilience} de su backend: si el circuito está abierto
+ * falla enseguida con BackendNoDisponibleException, y los pedidos idempotentes que fallan por
+ * red o con 502/503/504 se reintentan sin bloquear (backoff con jitter en "backend-retry").
+ */
+@Component
+public class BackendClient {
+
+    private final ObjectMapper mapper;
+    private final BackendReadiness readiness;
+    private final Map<Backend, Config> configs = new EnumMap<>(Backend.class);
+    // Readers/writers ya resueltos por tipo: se arman una vez y se reusan en cada pedido
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "backend-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record Config(String baseUrl, String probePath, HttpClient http, Duration timeout,
+                          BackendStats stats, BackendResilience resilience,
+                          SingleFlight<Vuelo, Object> singleFlight) { }
+
+    // Dos GET son el mismo si piden lo mismo y lo decodifican al mismo tipo
+    private record Vuelo(BackendRequest req, JavaType type) { }
+
+    private final boolean singleFlight;
+    private final MeterRegistry registry;
+    // Timers por backend y status ("error" si no hubo respuesta)
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public BackendClient(Environment env, ObjectMapper mapper, BackendReadiness readiness,
+                         @Qualifier("backendExecutor") ExecutorService executor, MeterRegistry registry) {
+        this.mapper = mapper;
+        this.registry = registry;
+        this.readiness = readiness;
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        BackendResilience.Ajustes ajustes = BackendResilience.Ajustes.desde(env);
+        this.singleFlight = env.getProperty("metamapa.backend.single-flight", Boolean.class, true);
+
+        for (Backend b : Backend.values()) {
+            String prefix = "metamapa.backends." + b.key() + ".";
+
+            // 1) properties  2) variable de entorno o .env (para desarrollo)
+            String url = env.getProperty(prefix + "url");
+            if (url == null || url.isBlank()) url = dotenv.get(b.envVar());
+            if (url == null || url.isBlank()) {
+                throw new IllegalStateException("Falta la URL del backend " + b.key()
+                        + " (" + prefix + "url o " + b.envVar() + ")");
+            }
+            url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+
+            Duration connect = env.getProperty(prefix + "connect-timeout", Duration.class, Duration.ofSeconds(10));
+            Duration timeout = env.getProperty(prefix + "timeout", Duration.class, Duration.ofSeconds(10));
+            String probePath = env.getProperty(prefix + "probe-path", "");
+
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connect)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .executor(executor)
+                    .build();
+            configs.put(b, new Config(url, probePath, http, timeout, new BackendStats(),
+                    new BackendResilience(ajustes, timeout), new SingleFlight<>()));
+        }
+    }
+
+    private void medir(Backend backend, String status, long nanos) {
+        timers.computeIfAbsent(backend.key() + " " + status, k -> Timer.builder("metamapa.backend.pedidos")
+                        .description("Latencia de los pedidos a los backends (hasta los headers en los streams)")
+                        .tag("backend", backend.key())
+                        .tag("status", status)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(5))
+                        .maximumExpectedValue(Duration.ofSeconds(60))
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public String baseUrl(Backend backend) {
+        return configs.get(backend).baseUrl();
+    }
+
+    public BackendStats stats(Backend backend) {
+        return configs.get(backend).stats();
+    }
+
+    /** Métricas de los GET idénticos que se juntaron en una sola llamada. */
+    public SingleFlight<?, ?> singleFlight(Backend backend) {
+        return configs.get(backend).singleFlight();
+    }
+
+    public BackendResilience resilience(Backend backend) {
+        return configs.get(backend).resilience();
+    }
+
+    public BackendReadiness readiness() {
+        return readiness;
+    }
+
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    public ObjectReader reader(JavaType type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    public ObjectReader reader(Class<?> type) {
+        return reader(mapper.constructType(type));
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, mapper::writerFor);
+    }
+
+    // ---- API cruda ----
+
+    /**
+     * Manda el pedido sin bloquear. El future falla con ResourceAccessException si no hubo respuesta,
+     * o con BackendNoDisponibleException (o BackendDespertandoException) si no se llegó a mandar.
+     */
+    public CompletableFuture<BackendResponse> sendAsync(BackendRequest req) {
+        Backend b = req.backend();
+        readiness.actividad(b);
+        configs.get(b).resilience().depositar();
+        CompletableFuture<BackendResponse> result = new CompletableFuture<>();
+        intentar(req, 1, result);
+        return result;
+    }
+
+    private void intentar(BackendRequest req, int intento, CompletableFuture<BackendResponse> result) {
+        Backend b = req.backend();
+        BackendResilience r = configs.get(b).resilience();
+        if (readiness.despertando(b)) {
+            result.completeExceptionally(new BackendDespertandoException(b));
+            return;
+        }
+        if (!r.permitir()) {
+            result.completeExceptionally(new BackendNoDisponibleException(b));
+            return;
+        }
+
+        long start = System.nanoTime();
+        enviar(req, r.timeout()).whenComplete((resp, err) -> {
+            boolean falla = err != null || resp.status() >= 500;
+            r.registrar(System.nanoTime() - start, falla);
+
+            if (reintentable(req, resp, err) && r.puedeReintentar(intento)) {
+                try {
+                    retryScheduler.schedule(() -> intentar(req, intento + 1, result),
+                            r.backoffMillis(intento), TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // apagando: devolvemos el último resultado
+                }
+            }
+            if (err != null) {
+                result.completeExceptionally(err instanceof CompletionException && err.getCause() != null
+                        ? err.getCause() : err);
+            } else {
+                result.complete(resp);
+            }
+        });
+    }
+
+    private static boolean reintentable(BackendRequest req, BackendResponse resp, Throwable err) {
+        if (!req.idempotente()) return false;
+        if (err != null) return true;
+        int s = resp.status();
+        return s == 502 || s == 503 || s == 504;
+    }
+
+    /**
+     * GET liviano para saber si el backend está despierto: no cuenta como actividad de usuarios,
+     * no pasa por el circuit breaker y usa el timeout completo del backend.
+     */
+    CompletableFuture<BackendResponse> probeAsync(Backend backend) {
+        Config c = configs.get(backend);
+        return enviar(BackendRequest.get(backend, c.probePath()), c.timeout());
+    }
+
+    private CompletableFuture<BackendResponse> enviar(BackendRequest req, Duration timeout) {
+        Backend b = req.backend();
+        Config c = configs.get(b);
+        HttpRequest httpReq;
+        try {
+            httpReq = build(c, req, timeout);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new RestClientException("Pedido inválido a " + req.backend().key(), e));
+        }
+
+        c.stats().started();
+        long start = System.nanoTime();
+        return c.http().sendAsync(httpReq, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((resp, err) -> {
+                    long nanos = System.nanoTime() - start;
+                    if (err != null) {
+                        c.stats().finished(nanos, true);
+                        medir(b, "error", nanos);
+                        readiness.noRespondio(b, sinConexion(err));
+                        throw new CompletionException(accessError(httpReq, err));
+                    }
+                    c.stats().finished(nanos, resp.statusCode() >= 500);
+                    medir(b, String.valueOf(resp.statusCode()), nanos);
+                    readiness.respondio(b);
+                    return new BackendResponse(resp.statusCode(), resp.headers(), descomprimir(httpReq, resp));
+                });
+    }
+
+    /** Versión bloqueante de {@link #sendAsync}: devuelve la respuesta sea cual sea el status. */
+    public BackendResponse send(BackendRequest req) {
+        return join(sendAsync(req));
+    }
+
+    // ---- API tipada (falla con HttpStatusCodeException si no es 2xx) ----
+
+    public <T> CompletableFuture<T> getAsync(Backend backend, String path, Class<T> type) {
+        return exchangeAsync(BackendRequest.get(backend, path), mapper.constructType(type));
+    }
+
+    public <T> CompletableFuture<T> getAsync(Backend backend, String path, TypeReference<T> type) {
+        return exchangeAsync(BackendRequest.get(backend, path), mapper.constructType(type));
+    }
+
+    public <T> T get(Backend backend, String path, Class<T> type) {
+        return join(getAsync(backend, path, type));
+    }
+
+    public <T> T get(Backend backend, String path, TypeReference<T> type) {
+        return join(getAsync(backend, path, type));
+    }
+
+    public <T> T post(Backend backend, String path, Object body, Class<T> type) {
+        return join(exchangeAsync(BackendRequest.post(backend, path, body), mapper.constructType(type)));
+    }
+
+    /** Lee el cuerpo de una respuesta a medida que llega. */
+    @FunctionalInterface
+    public interface LectorStream<T> {
+        T leer(InputStream in) throws IOException;
+    }
+
+    /**
+     * Lector de {@link #streamCondicional}: además del cuerpo recibe si la respuesta trajo ETag
+     * o Last-Modified (los headers llegan antes que el cuerpo), para no armar una copia que
+     * después no se va a poder revalidar.
+     */
+    @FunctionalInterface
+    public interface LectorValidado<T> {
+        T leer(InputStream in, boolean revalidable) throws IOException;
+    }
+
+    /**
+     * GET que entrega el cuerpo como stream, sin cargarlo entero en memoria.
+     * Pasa por el circuit breaker y el timeout adaptativo pero no se reintenta (el lector ya
+     * pudo haber consumido parte del cuerpo). Las respuestas que no son 2xx se traducen igual
+     * que en {@link #checkStatus}.
+     */
+    public <T> T stream(Backend backend, String path, LectorStream<T> lector) {
+        return streamCondicional(backend, path, null, (in, revalidable) -> lector.leer(in)).valor();
+    }
+
+    /**
+     * Como {@link #stream}, pero si hay una respuesta previa con ETag o Last-Modified manda
+     * If-None-Match / If-Modified-Since. Con un 304 devuelve la previa tal cual (mismo objeto)
+     * sin llamar al lector; si no, lee el cuerpo y lo devuelve con los validadores nuevos.
+     */
+    public <T> RespuestaValidada<T> streamCondicional(Backend backend, String path, RespuestaValidada<T> previa,
+                                                      LectorValidado<T> lector) {
+        Config c = configs.get(backend);
+        BackendResilience r = c.resilience();
+        readiness.actividad(backend);
+        r.depositar();
+        if (readiness.despertando(backend)) throw new BackendDespertandoException(backend);
+        if (!r.permitir()) throw new BackendNoDisponibleException(backend);
+
+        HttpRequest httpReq;
+        long start;
+        HttpResponse<InputStream> resp;
+        boolean registrado = false;
+        try {
+            try {
+                HttpRequest.Builder b = builder(c, BackendRequest.get(backend, path), r.timeout());
+                if (previa != null) {
+                    if (previa.etag() != null) b.header("If-None-Match", previa.etag());
+                    if (previa.lastModified() != null) b.header("If-Modified-Since", previa.lastModified());
+                }
+                httpReq = b.build();
+            } catch (Exception e) {
+                throw new RestClientException("Pedido inválido a " + backend.key(), e);
+            }
+
+            c.stats().started();
+            start = System.nanoTime();
+            try {
+                resp = c.http().send(httpReq, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (IOException | InterruptedException e) {
+                long nanos = System.nanoTime() - start;
+                c.stats().finished(nanos, true);
+                medir(backend, "error", nanos);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new ResourceAccessException("Pedido a " + backend.key() + " interrumpido");
+                }
+                registrado = true;
+                r.registrar(nanos, true);
+                readiness.noRespondio(backend, sinConexion(e));
+                throw accessError(httpReq, e);
+            }
+            // La latencia que cuenta para el timeout es hasta los headers, no la lectura completa
+            registrado = true;
+            r.registrar(System.nanoTime() - start, resp.statusCode() >= 500);
+        } finally {
+            // Un pedido inválido o interrumpido no dice nada del backend (ni éxito ni falla),
+            // pero si era la prueba del circuito semiabierto la tiene que dejar libre
+            if (!registrado) r.liberar();
+        }
+        medir(backend, String.valueOf(resp.statusCode()), System.nanoTime() - start);
+        readiness.respondio(backend);
+
+        boolean error = true;
+        try (InputStream in = cuerpo(resp)) {
+            if (resp.statusCode() == 304 && previa != null) {
+                error = false;
+                return previa;
+            }
+            if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+                error = resp.statusCode() >= 500;
+                checkStatus(new BackendResponse(resp.statusCode(), resp.headers(), in.readAllBytes()));
+            }
+            String etag = resp.headers().firstValue("ETag").orElse(null);
+            String lastModified = resp.headers().firstValue("Last-Modified").orElse(null);
+            T res = lector.leer(in, etag != null || lastModified != null);
+            error = false;
+            return new RespuestaValidada<>(etag, lastModified, res);
+        } catch (IOException e) {
+            throw accessError(httpReq, e);
+        } finally {
+            c.stats().finished(System.nanoTime() - start, error);
+        }
+    }
+
+    private static InputStream cuerpo(HttpResponse<InputStream> resp) throws IOException {
+        boolean gzip = resp.headers().firstValue("Content-Encoding")
+                .map(v -> v.toLowerCase().contains("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(resp.body()) : resp.body();
+    }
+
+    // Los GET iguales en vuelo comparten la llamada y el objeto decodificado (los DTOs son
+    // inmutables; las listas no se tienen que modificar)
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> exchangeAsync(BackendRequest req, JavaType type) {
+        if (!singleFlight || !"GET".equals(req.method())) {
+            return llamar(req, type);
+        }
+        SingleFlight<Vuelo, Object> sf = configs.get(req.backend()).singleFlight();
+        return (CompletableFuture<T>) sf.hacer(new Vuelo(req, type), () -> llamar(req, type));
+    }
+
+    private <T> CompletableFuture<T> llamar(BackendRequest req, JavaType type) {
+        return sendAsync(req).thenApply(resp -> {
+            checkStatus(resp);
+            return decode(resp, type);
+        });
+    }
+
+    /** Lanza la HttpStatusCodeException que correspondería en RestTemplate si la respuesta no es 2xx. */
+    public void checkStatus(BackendResponse resp) {
+        if (resp.is2xx()) return;
+        HttpStatusCode code = HttpStatusCode.valueOf(resp.status());
+        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
+        resp.headers().map().forEach(headers::addAll);
+        if (code.is4xxClientError()) {
+            throw HttpClientErrorException.create(code, "", headers, resp.body(), StandardCharsets.UTF_8);
+        }
+        if (code.is5xxServerError()) {
+            throw HttpServerErrorException.create(code, "", headers, resp.body(), StandardCharsets.UTF_8);
+        }
+        throw new UnknownHttpStatusCodeException(resp.status(), "", headers, resp.body(), StandardCharsets.UTF_8);
+    }
+
+    public <T> T decode(BackendResponse resp, JavaType type) {
+        if (resp.body() == null || resp.body().length == 0) return null;
+        try {
+            return reader(type).readValue(resp.body());
+        } catch (IOException e) {
+            throw new RestClientException("No se pudo leer la respuesta: " + e.getMessage(), e);
+        }
+    }
+
+    public <T> T decode(BackendResponse resp, Class<T> type) {
+        return decode(resp, mapper.constructType(type));
+    }
+
+    // ---- helpers ----
+
+    private HttpRequest build(Config c, BackendRequest req, Duration timeout) throws IOException {
+        return builder(c, req, timeout).build();
+    }
+
+    private HttpRequest.Builder builder(Config c, BackendRequest req, Duration timeout) throws IOException {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(c.baseUrl() + req.path()))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip");
+
+        Object body = req.body();
+        if (body == null) {
+            b.method(req.method(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            byte[] bytes = body instanceof String s
+                    ? s.getBytes(StandardCharsets.UTF_8)
+                    : writer(body.getClass()).writeValueAsBytes(body);
+            b.header("Content-Type", "application/json")
+                    .method(req.method(), HttpRequest.BodyPublishers.ofByteArray(bytes));
+        }
+        return b;
+    }
+
+    private static byte[] descomprimir(HttpRequest req, HttpResponse<byte[]> resp) {
+        byte[] body = resp.body();
+        boolean gzip = resp.headers().firstValue("Content-Encoding")
+                .map(v -> v.toLowerCase().contains("gzip"))
+                .orElse(false);
+        if (!gzip || body == null || body.length == 0) return body;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new CompletionException(accessError(req, e));
+        }
+    }
+
+    // No se pudo ni conectar (caído o sin levantar); un timeout del pedido puede ser solo lentitud
+    private static boolean sinConexion(Throwable err) {
+        Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+        return cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException;
+    }
+
+    private static RuntimeException accessError(HttpRequest req, Throwable err) {
+        Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+        if (cause instanceof RestClientException rce) return rce;
+        IOException io = cause instanceof IOException e ? e : new IOException(cause.getMessage(), cause);
+        return new ResourceAccessException("I/O error on " + req.method() + " request for \""
+                + req.uri() + "\": " + io.getMessage(), io);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+    }
+
+    /** Espera un future de este cliente y relanza la excepción original (sin CompletionException). */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.metamapa.telegram.clients;
+
+/**
+ * El backend está arrancando (cold start de Render): no se manda el pedido y se
+ * avisa al usuario enseguida. El mensaje está pensado para mostrarse tal cual.
+ */
+public class BackendDespertandoException extends BackendNoDisponibleException {
+
+    public BackendDespertandoException(Backend backend) {
+        super("⏳ El servicio de " + backend.key() + " se está despertando. Probá de nuevo en unos segundos.");
+    }
+}
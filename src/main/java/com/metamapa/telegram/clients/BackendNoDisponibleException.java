@@ -0,0 +1,18 @@
+package com.metamapa.telegram.clients;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * El pedido no se mandó porque el backend no está disponible (circuito abierto).
+ * Igual que {@link BackendDespertandoException}, el mensaje está pensado para mostrarse tal cual.
+ */
+public class BackendNoDisponibleException extends ResourceAccessException {
+
+    public BackendNoDisponibleException(Backend backend) {
+        this("⚠️ El servicio de " + backend.key() + " no está respondiendo. Probá de nuevo en un rato.");
+    }
+
+    protected BackendNoDisponibleException(String mensaje) {
+        super(mensaje);
+    }
+}
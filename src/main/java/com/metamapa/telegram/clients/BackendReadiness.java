@@ -0,0 +1,91 @@
+package com.metamapa.telegram.clients;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Estado de cada backend según las últimas respuestas y los probes de {@link BackendWarmup}.
+ * Mientras un backend está DESPERTANDO, {@link BackendClient} falla enseguida en vez de
+ * dejar un hilo esperando el arranque en frío de Render.
+ */
+@Component
+public class BackendReadiness {
+
+    public enum Estado { DESCONOCIDO, DESPERTANDO, LISTO, CAIDO }
+
+    // Render duerme un servicio después de 15 minutos sin pedidos: si respondió hace menos que
+    // esto, un timeout es un pedido lento y no un arranque en frío
+    private static final long RESPONDIO_HACE_POCO_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final Map<Backend, AtomicReference<Estado>> estados = new EnumMap<>(Backend.class);
+    private final Map<Backend, AtomicLong> ultimoContacto = new EnumMap<>(Backend.class);
+    private final Map<Backend, AtomicLong> ultimaActividad = new EnumMap<>(Backend.class);
+    private volatile Consumer<Backend> onDormido;
+
+    public BackendReadiness() {
+        for (Backend b : Backend.values()) {
+            estados.put(b, new AtomicReference<>(Estado.DESCONOCIDO));
+            ultimoContacto.put(b, new AtomicLong());
+            ultimaActividad.put(b, new AtomicLong());
+        }
+    }
+
+    public Estado estado(Backend b) {
+        return estados.get(b).get();
+    }
+
+    public boolean despertando(Backend b) {
+        return estado(b) == Estado.DESPERTANDO;
+    }
+
+    /** Se llama cuando un backend que parecía vivo deja de responder (para empezar a despertarlo). */
+    void setOnDormido(Consumer<Backend> listener) {
+        this.onDormido = listener;
+    }
+
+    void marcar(Backend b, Estado estado) {
+        estados.get(b).set(estado);
+    }
+
+    // Cualquier respuesta HTTP (aunque sea un 404) significa que el servicio está despierto
+    void respondio(Backend b) {
+        ultimoContacto.get(b).set(System.currentTimeMillis());
+        estados.get(b).set(Estado.LISTO);
+    }
+
+    /**
+     * Un pedido falló sin respuesta HTTP. Pasa a DESPERTANDO (y arranca el warm-up) si no se pudo
+     * conectar, o si fue un timeout y el backend no respondió nada en los últimos minutos: el
+     * arranque en frío de Render acepta la conexión y la deja colgada. Sin warm-up activo no hay
+     * quién lo saque de DESPERTANDO: se deja el estado como está.
+     */
+    void noRespondio(Backend b, boolean sinConexion) {
+        Consumer<Backend> listener = onDormido;
+        if (listener == null) return;
+        if (!sinConexion && System.currentTimeMillis() - ultimoContacto.get(b).get() < RESPONDIO_HACE_POCO_MS) return;
+        Estado previo = estados.get(b).get();
+        if (previo != Estado.DESPERTANDO && estados.get(b).compareAndSet(previo, Estado.DESPERTANDO)) {
+            listener.accept(b);
+        }
+    }
+
+    void actividad(Backend b) {
+        ultimaActividad.get(b).set(System.currentTimeMillis());
+    }
+
+    /** Epoch millis de la última respuesta recibida (0 si nunca respondió). */
+    public long getUltimoContacto(Backend b) {
+        return ultimoContacto.get(b).get();
+    }
+
+    /** Epoch millis del último pedido hecho por un usuario (los probes no cuentan). */
+    public long getUltimaActividad(Backend b) {
+        return ultimaActividad.get(b).get();
+    }
+}
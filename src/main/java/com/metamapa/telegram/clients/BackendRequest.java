@@ -0,0 +1,27 @@
+package com.metamapa.telegram.clients;
+
+/**
+ * Pedido a un backend. El path se concatena a la URL base del backend.
+ * Si el body es un String se manda tal cual; cualquier otro objeto se serializa a JSON.
+ *
+ * Solo los pedidos idempotentes se reintentan (los GET lo son por defecto).
+ */
+public record BackendRequest(Backend backend, String method, String path, Object body, boolean idempotente) {
+
+    public static BackendRequest get(Backend backend, String path) {
+        return new BackendRequest(backend, "GET", path, null, true);
+    }
+
+    public static BackendRequest post(Backend backend, String path, Object body) {
+        return new BackendRequest(backend, "POST", path, body, false);
+    }
+
+    public static BackendRequest patch(Backend backend, String path, Object body) {
+        return new BackendRequest(backend, "PATCH", path, body, false);
+    }
+
+    /** Marca el pedido como seguro de repetir (por ejemplo un PATCH que fija un valor). */
+    public BackendRequest comoIdempotente() {
+        return new BackendRequest(backend, method, path, body, true);
+    }
+}
@@ -0,0 +1,151 @@
+package com.metamapa.telegram.clients;
+
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Protección de un backend, compartida por todos los handlers que lo usan:
+ * circuit breaker, timeout adaptativo y presupuesto de reintentos.
+ *
+ * El timeout de cada pedido sale de la latencia observada (percentil × factor), acotado
+ * entre min-timeout y el timeout configurado del backend. Los reintentos se limitan con
+ * un presupuesto: cada pedido suma una fracción de ficha y cada reintento gasta una entera,
+ * así una caída no multiplica la carga sobre un servicio que ya está mal.
+ */
+public class BackendResilience {
+
+    /** Ajustes comunes a todos los backends (metamapa.resilience.*). */
+    record Ajustes(int failureThreshold, Duration openFor, double percentil, double factor,
+                   Duration minTimeout, int minMuestras, int maxAttempts,
+                   Duration backoffBase, Duration backoffMax, double budgetRatio, double budgetMax) {
+
+        static Ajustes desde(Environment env) {
+            String p = "metamapa.resilience.";
+            return new Ajustes(
+                    env.getProperty(p + "failure-threshold", Integer.class, 5),
+                    env.getProperty(p + "open-for", Duration.class, Duration.ofSeconds(30)),
+                    env.getProperty(p + "timeout-percentile", Double.class, 0.99),
+                    env.getProperty(p + "timeout-factor", Double.class, 3d),
+                    env.getProperty(p + "min-timeout", Duration.class, Duration.ofSeconds(2)),
+                    env.getProperty(p + "min-samples", Integer.class, 20),
+                    env.getProperty(p + "max-attempts", Integer.class, 3),
+                    env.getProperty(p + "backoff-base", Duration.class, Duration.ofMillis(200)),
+                    env.getProperty(p + "backoff-max", Duration.class, Duration.ofSeconds(3)),
+                    env.getProperty(p + "retry-budget-ratio", Double.class, 0.2),
+                    env.getProperty(p + "retry-budget-max", Double.class, 10d));
+        }
+    }
+
+    private static final int VENTANA = 128;
+    private static final int RECALCULAR_CADA = 16;
+
+    private final Ajustes ajustes;
+    private final Duration maxTimeout;
+    private final CircuitBreaker breaker;
+    private final LatencyWindow latencias = new LatencyWindow(VENTANA);
+
+    private volatile long timeoutNanos;
+    private final AtomicLong muestras = new AtomicLong();
+
+    // Presupuesto en milésimas de ficha para poder usar un AtomicLong
+    private final AtomicLong presupuesto;
+    private final long deposito;
+    private final long maxPresupuesto;
+
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+    private final AtomicLong sinPresupuesto = new AtomicLong();
+
+    BackendResilience(Ajustes ajustes, Duration maxTimeout) {
+        this.ajustes = ajustes;
+        this.maxTimeout = maxTimeout;
+        this.breaker = new CircuitBreaker(ajustes.failureThreshold(), ajustes.openFor().toNanos());
+        this.timeoutNanos = maxTimeout.toNanos();
+        this.deposito = Math.round(ajustes.budgetRatio() * 1000);
+        this.maxPresupuesto = Math.round(ajustes.budgetMax() * 1000);
+        this.presupuesto = new AtomicLong(maxPresupuesto);
+    }
+
+    /** false si el circuito está abierto: el pedido no debe salir. */
+    boolean permitir() {
+        if (breaker.permitir(System.nanoTime())) return true;
+        rechazados.incrementAndGet();
+        return false;
+    }
+
+    /** El pedido permitido no llegó a ser un intento (se cortó de nuestro lado): no cuenta para nada. */
+    void liberar() {
+        breaker.liberar();
+    }
+
+    /** Resultado de un intento. Los errores de red, timeouts y 5xx cuentan como falla. */
+    void registrar(long nanos, boolean falla) {
+        if (falla) breaker.falla(System.nanoTime());
+        else breaker.exito();
+
+        latencias.registrar(nanos);
+        if (muestras.incrementAndGet() % RECALCULAR_CADA == 0) recalcularTimeout();
+    }
+
+    private void recalcularTimeout() {
+        if (latencias.cantidad() < ajustes.minMuestras()) return;
+        long derivado = (long) (latencias.percentil(ajustes.percentil()) * ajustes.factor());
+        timeoutNanos = Math.max(ajustes.minTimeout().toNanos(), Math.min(maxTimeout.toNanos(), derivado));
+    }
+
+    Duration timeout() {
+        return Duration.ofNanos(timeoutNanos);
+    }
+
+    /** Cada pedido nuevo (no los reintentos) suma al presupuesto. */
+    void depositar() {
+        presupuesto.accumulateAndGet(deposito, (actual, d) -> Math.min(maxPresupuesto, actual + d));
+    }
+
+    /** Gasta una ficha para reintentar; false si no alcanza el presupuesto o ya no quedan intentos. */
+    boolean puedeReintentar(int intento) {
+        if (intento >= ajustes.maxAttempts()) return false;
+        long actual;
+        do {
+            actual = presupuesto.get();
+            if (actual < 1000) {
+                sinPresupuesto.incrementAndGet();
+                return false;
+            }
+        } while (!presupuesto.compareAndSet(actual, actual - 1000));
+        reintentos.incrementAndGet();
+        return true;
+    }
+
+    /** Backoff exponencial con "full jitter": un valor al azar entre 0 y base × 2^(intento-1). */
+    long backoffMillis(int intento) {
+        long tope = Math.min(ajustes.backoffMax().toMillis(),
+                ajustes.backoffBase().toMillis() << Math.min(20, intento - 1));
+        return ThreadLocalRandom.current().nextLong(tope + 1);
+    }
+
+    public String getEstadoCircuito() {
+        return breaker.estado().name();
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutNanos / 1_000_000;
+    }
+
+    public long getReintentos() {
+        return reintentos.get();
+    }
+
+    /** Pedidos cortados por el circuito abierto. */
+    public long getRechazados() {
+        return rechazados.get();
+    }
+
+    /** Reintentos que no se hicieron por falta de presupuesto. */
+    public long getSinPresupuesto() {
+        return sinPresupuesto.get();
+    }
+}
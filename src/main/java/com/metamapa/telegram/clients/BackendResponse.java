@@ -0,0 +1,18 @@
+package com.metamapa.telegram.clients;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Respuesta cruda de un backend (ya descomprimida si vino en gzip).
+ */
+public record BackendResponse(int status, HttpHeaders headers, byte[] body) {
+
+    public boolean is2xx() {
+        return status >= 200 && status < 300;
+    }
+
+    public String bodyAsString() {
+        return body == null ? "" : new String(body, StandardCharsets.UTF_8);
+    }
+}
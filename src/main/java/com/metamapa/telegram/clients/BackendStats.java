@@ -0,0 +1,51 @@
+package com.metamapa.telegram.clients;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de uso de un backend. inFlight es la cantidad de conexiones/streams
+ * ocupados en ese momento (el HttpClient de Java no expone su pool).
+ */
+public class BackendStats {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong latencyTotalNanos = new AtomicLong();
+    private final AtomicLong latencyMaxNanos = new AtomicLong();
+
+    void started() {
+        inFlight.incrementAndGet();
+        requests.incrementAndGet();
+    }
+
+    void finished(long nanos, boolean error) {
+        inFlight.decrementAndGet();
+        if (error) errors.incrementAndGet();
+        latencyTotalNanos.addAndGet(nanos);
+        latencyMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /** Errores de red/timeout y respuestas 5xx. */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public double getAverageLatencyMillis() {
+        long n = requests.get() - inFlight.get();
+        return n <= 0 ? 0 : latencyTotalNanos.get() / 1_000_000d / n;
+    }
+
+    public double getMaxLatencyMillis() {
+        return latencyMaxNanos.get() / 1_000_000d;
+    }
+}
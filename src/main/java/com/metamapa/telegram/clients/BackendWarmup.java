@@ -0,0 +1,182 @@
+package com.metamapa.telegram.clients;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Despierta los backends de Render.
+ *
+ * Al arrancar el bot manda un probe a cada backend en paralelo y lo reintenta hasta que
+ * responda. Si un backend deja de responder más tarde, vuelve a probarlo hasta que despierte.
+ *
+ * Opcionalmente (metamapa.warmup.keep-warm) lo mantiene despierto con un probe periódico,
+ * solo dentro de las ventanas de actividad configuradas. El intervalo es adaptativo:
+ * si un probe tarda como un arranque en frío se achica, si responde rápido se agranda.
+ */
+@Component
+public class BackendWarmup {
+
+    private final BackendClient client;
+    private final BackendReadiness readiness;
+
+    private final boolean enabled;
+    private final boolean keepWarm;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final Duration coldThreshold;
+    private final List<LocalTime[]> ventanas;
+    private final ZoneId zona;
+
+    private final Map<Backend, Long> intervalos = new EnumMap<>(Backend.class);
+    private final Set<Backend> probando = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "backend-warmup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public BackendWarmup(BackendClient client,
+                         @Value("${metamapa.warmup.enabled:true}") boolean enabled,
+                         @Value("${metamapa.warmup.keep-warm:false}") boolean keepWarm,
+                         @Value("${metamapa.warmup.max-attempts:6}") int maxAttempts,
+                         @Value("${metamapa.warmup.retry-delay:10s}") Duration retryDelay,
+                         @Value("${metamapa.warmup.interval:10m}") Duration interval,
+                         @Value("${metamapa.warmup.min-interval:5m}") Duration minInterval,
+                         @Value("${metamapa.warmup.max-interval:14m}") Duration maxInterval,
+                         @Value("${metamapa.warmup.cold-threshold:5s}") Duration coldThreshold,
+                         @Value("${metamapa.warmup.windows:}") String windows,
+                         @Value("${metamapa.warmup.zone:America/Argentina/Buenos_Aires}") String zone) {
+        this.client = client;
+        this.readiness = client.readiness();
+        this.enabled = enabled;
+        this.keepWarm = keepWarm;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = retryDelay;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.coldThreshold = coldThreshold;
+        this.ventanas = parsearVentanas(windows);
+        this.zona = ZoneId.of(zone);
+        for (Backend b : Backend.values()) {
+            intervalos.put(b, clamp(interval.toMillis()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!enabled) return;
+        readiness.setOnDormido(this::despertar);
+        for (Backend b : Backend.values()) {
+            despertar(b);
+        }
+        if (keepWarm) {
+            scheduler.scheduleWithFixedDelay(this::mantenerDespierto, 1, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    /** Prueba el backend hasta que responda (o se agoten los intentos). Un solo probe por backend a la vez. */
+    void despertar(Backend b) {
+        if (!probando.add(b)) return;
+        readiness.marcar(b, BackendReadiness.Estado.DESPERTANDO);
+        System.out.println("⏳ Despertando backend " + b.key() + "...");
+        probar(b, 1);
+    }
+
+    private void probar(Backend b, int intento) {
+        long start = System.nanoTime();
+        client.probeAsync(b).whenComplete((resp, err) -> {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (err == null) {
+                probando.remove(b);
+                System.out.println("✅ Backend " + b.key() + " listo (" + millis + " ms, intento " + intento + ")");
+                return;
+            }
+            if (intento >= maxAttempts) {
+                probando.remove(b);
+                readiness.marcar(b, BackendReadiness.Estado.CAIDO);
+                System.err.println("❌ Backend " + b.key() + " no respondió después de " + intento + " intentos");
+                return;
+            }
+            // noRespondio lo pudo haber pasado a CAIDO/LISTO; mientras reintentamos sigue despertando
+            readiness.marcar(b, BackendReadiness.Estado.DESPERTANDO);
+            scheduler.schedule(() -> probar(b, intento + 1), retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    // Corre cada minuto en el hilo "backend-warmup"
+    private void mantenerDespierto() {
+        if (!enVentana(LocalTime.now(zona))) return;
+        long ahora = System.currentTimeMillis();
+        for (Backend b : Backend.values()) {
+            long intervalo = intervalos.get(b);
+            if (ahora - readiness.getUltimoContacto(b) < intervalo || probando.contains(b)) continue;
+
+            long start = System.nanoTime();
+            client.probeAsync(b).whenComplete((resp, err) -> {
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                scheduler.execute(() -> ajustarIntervalo(b, err == null ? millis : Long.MAX_VALUE));
+            });
+        }
+    }
+
+    // Un probe lento quiere decir que el servicio ya se había dormido: probamos más seguido
+    private void ajustarIntervalo(Backend b, long millis) {
+        long actual = intervalos.get(b);
+        long nuevo = millis >= coldThreshold.toMillis()
+                ? clamp(actual / 2)
+                : clamp(actual + TimeUnit.MINUTES.toMillis(1));
+        intervalos.put(b, nuevo);
+    }
+
+    private long clamp(long millis) {
+        return Math.max(minInterval.toMillis(), Math.min(maxInterval.toMillis(), millis));
+    }
+
+    boolean enVentana(LocalTime hora) {
+        if (ventanas.isEmpty()) return true;
+        for (LocalTime[] v : ventanas) {
+            boolean dentro = v[0].isAfter(v[1])
+                    ? !hora.isBefore(v[0]) || !hora.isAfter(v[1])   // ventana que cruza la medianoche
+                    : !hora.isBefore(v[0]) && !hora.isAfter(v[1]);
+            if (dentro) return true;
+        }
+        return false;
+    }
+
+    /** "08:00-13:00,18:00-01:00" → lista de [desde, hasta]. Vacío = todo el día. */
+    static List<LocalTime[]> parsearVentanas(String windows) {
+        List<LocalTime[]> res = new ArrayList<>();
+        if (windows == null || windows.isBlank()) return res;
+        for (String v : windows.split(",")) {
+            String[] partes = v.trim().split("-");
+            if (partes.length != 2) {
+                throw new IllegalStateException("Ventana inválida en metamapa.warmup.windows: " + v);
+            }
+            res.add(new LocalTime[]{LocalTime.parse(partes[0].trim()), LocalTime.parse(partes[1].trim())});
+        }
+        return res;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.metamapa.telegram.clients;
+
+/**
+ * Circuit breaker por backend.
+ * CERRADO: pasan todos los pedidos. Después de N fallas seguidas pasa a ABIERTO y rechaza
+ * todo durante un rato; después deja pasar un único pedido de prueba (SEMIABIERTO):
+ * si anda se cierra, si falla vuelve a abrirse.
+ */
+class CircuitBreaker {
+
+    enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallasSeguidas;
+    private long abiertoHasta;
+    private boolean pruebaEnCurso;
+
+    CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openNanos;
+    }
+
+    /** true si el pedido puede salir. En SEMIABIERTO solo deja pasar uno a la vez. */
+    synchronized boolean permitir(long now) {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (now - abiertoHasta < 0) return false;
+                estado = Estado.SEMIABIERTO;
+                pruebaEnCurso = true;
+                return true;
+            default:
+                if (pruebaEnCurso) return false;
+                pruebaEnCurso = true;
+                return true;
+        }
+    }
+
+    synchronized void exito() {
+        fallasSeguidas = 0;
+        pruebaEnCurso = false;
+        estado = Estado.CERRADO;
+    }
+
+    synchronized void falla(long now) {
+        fallasSeguidas++;
+        if (estado == Estado.SEMIABIERTO || fallasSeguidas >= failureThreshold) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = now + openNanos;
+            pruebaEnCurso = false;
+        }
+    }
+
+    /**
+     * El pedido de prueba no llegó al backend: sigue SEMIABIERTO y el próximo pedido puede
+     * ser la prueba. Sin esto el circuito quedaría rechazando todo hasta reiniciar.
+     */
+    synchronized void liberar() {
+        if (estado == Estado.SEMIABIERTO) pruebaEnCurso = false;
+    }
+
+    synchronized Estado estado() {
+        return estado;
+    }
+}
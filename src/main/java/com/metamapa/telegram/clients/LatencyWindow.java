@@ -0,0 +1,39 @@
+package com.metamapa.telegram.clients;
+
+import java.util.Arrays;
+
+/**
+ * Últimas N latencias de un backend en un buffer circular, para sacar percentiles.
+ */
+class LatencyWindow {
+
+    private final long[] muestras;
+    private int siguiente;
+    private int cantidad;
+
+    LatencyWindow(int size) {
+        this.muestras = new long[Math.max(1, size)];
+    }
+
+    synchronized void registrar(long nanos) {
+        muestras[siguiente] = nanos;
+        siguiente = (siguiente + 1) % muestras.length;
+        if (cantidad < muestras.length) cantidad++;
+    }
+
+    synchronized int cantidad() {
+        return cantidad;
+    }
+
+    /** Percentil p (0..1) de las muestras actuales; 0 si no hay ninguna. */
+    long percentil(double p) {
+        long[] copia;
+        synchronized (this) {
+            if (cantidad == 0) return 0;
+            copia = Arrays.copyOf(muestras, cantidad);
+        }
+        Arrays.sort(copia);
+        int idx = (int) Math.ceil(p * copia.length) - 1;
+        return copia[Math.max(0, Math.min(copia.length - 1, idx))];
+    }
+}
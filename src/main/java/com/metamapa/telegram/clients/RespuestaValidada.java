@@ -0,0 +1,13 @@
+package com.metamapa.telegram.clients;
+
+/**
+ * Un cuerpo ya decodificado junto con los validadores HTTP (ETag / Last-Modified) con que
+ * vino, para revalidarlo después con un GET condicional. Los validadores que el backend no
+ * mandó quedan en null; sin ninguno de los dos no se puede revalidar.
+ */
+public record RespuestaValidada<T>(String etag, String lastModified, T valor) {
+
+    public boolean revalidable() {
+        return etag != null || lastModified != null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.metamapa.telegram.clients;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Junta pedidos idénticos que están en vuelo al mismo tiempo: el primero hace la llamada
+ * y los que llegan mientras tanto reciben el mismo resultado. Cuando la llamada termina la
+ * clave se libera, así que no es un cache: el siguiente pedido vuelve a ir al backend.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> enVuelo = new ConcurrentHashMap<>();
+    private final LongAdder pedidos = new LongAdder();
+    private final LongAdder compartidos = new LongAdder();
+
+    /**
+     * Devuelve el resultado de la llamada en vuelo para esta clave, o arranca una nueva.
+     * Cada llamador recibe su propia copia del future (cancelarla no afecta a los demás).
+     */
+    public CompletableFuture<V> hacer(K clave, Supplier<CompletableFuture<V>> llamada) {
+        pedidos.increment();
+        CompletableFuture<V> nuevo = new CompletableFuture<>();
+        CompletableFuture<V> existente = enVuelo.putIfAbsent(clave, nuevo);
+        if (existente != null) {
+            compartidos.increment();
+            return existente.copy();
+        }
+
+        CompletableFuture<V> real;
+        try {
+            real = llamada.get();
+        } catch (RuntimeException e) {
+            real = CompletableFuture.failedFuture(e);
+        }
+        real.whenComplete((v, err) -> {
+            // Se libera antes de completar: el que llegue después hace su propia llamada
+            enVuelo.remove(clave, nuevo);
+            if (err != null) {
+                nuevo.completeExceptionally(err instanceof CompletionException && err.getCause() != null
+                        ? err.getCause() : err);
+            } else {
+                nuevo.complete(v);
+            }
+        });
+        return nuevo.copy();
+    }
+
+    /** Pedidos que pasaron por acá (compartidos o no). */
+    public long getPedidos() {
+        return pedidos.sum();
+    }
+
+    /** Pedidos que no fueron al backend porque se sumaron a uno idéntico en vuelo. */
+    public long getCompartidos() {
+        return compartidos.sum();
+    }
+
+    /** Fracción de pedidos que se ahorraron (0 si no hubo pedidos). */
+    public double getRatio() {
+        long n = pedidos.sum();
+        return n == 0 ? 0 : (double) compartidos.sum() / n;
+    }
+
+    public int getEnVuelo() {
+        return enVuelo.size();
+    }
+}
@@ -0,0 +1,20 @@
+package com.metamapa.telegram.geo;
+
+/** Latitud y longitud en grados (WGS84). */
+public record Coordenada(double lat, double lon) {
+
+    private static final double RADIO_TIERRA_KM = 6371.0;
+
+    public boolean valida() {
+        return lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180;
+    }
+
+    /** Distancia en km por la fórmula del haversine. */
+    public double distanciaKm(double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat);
+        double dLon = Math.toRadians(lon2 - lon);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.metamapa.telegram.geo;
+
+import com.metamapa.telegram.search.Analizador;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Nomenclador local de lugares: nombre -> coordenada, leído de un CSV "nombre,lat,lon"
+ * (metamapa.geo.gazetteer; si está vacío se usa el gazetteer.csv del classpath).
+ * No hace llamadas de red: lo que no está en el archivo no se ubica.
+ */
+@Component
+public class Gazetteer {
+
+    private final Map<String, Coordenada> lugares;
+
+    @Autowired
+    public Gazetteer(@Value("${metamapa.geo.gazetteer:}") String archivo) {
+        try (InputStream in = archivo.isBlank()
+                ? Gazetteer.class.getResourceAsStream("/gazetteer.csv")
+                : Files.newInputStream(Path.of(archivo))) {
+            this.lugares = in != null ? leer(in) : Map.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el gazetteer " + archivo, e);
+        }
+        System.out.println("🗺️ Gazetteer: " + lugares.size() + " lugares");
+    }
+
+    Gazetteer(Map<String, Coordenada> lugares) {
+        this.lugares = lugares;
+    }
+
+    static Map<String, Coordenada> leer(InputStream in) throws IOException {
+        Map<String, Coordenada> out = new HashMap<>();
+        BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String linea;
+        while ((linea = r.readLine()) != null) {
+            if (linea.isBlank() || linea.startsWith("#")) continue;
+            // El nombre puede tener comas: lat y lon son los dos últimos campos
+            int c2 = linea.lastIndexOf(',');
+            int c1 = c2 > 0 ? linea.lastIndexOf(',', c2 - 1) : -1;
+            if (c1 <= 0) continue;
+            try {
+                Coordenada c = new Coordenada(Double.parseDouble(linea.substring(c1 + 1, c2).trim()),
+                        Double.parseDouble(linea.substring(c2 + 1).trim()));
+                if (c.valida()) out.putIfAbsent(Analizador.plegar(linea.substring(0, c1)), c);
+            } catch (NumberFormatException e) {
+                // encabezado o línea mal formada
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Coordenada de un texto de ubicación: "lat, lon" literal, el nombre entero o, si no,
+     * la primera de sus partes (separadas por coma, guion, barra o paréntesis) que esté en el
+     * nomenclador. "Palermo, CABA" da Palermo. null si no se reconoce.
+     */
+    public Coordenada ubicar(String texto) {
+        if (texto == null || texto.isBlank()) return null;
+        Coordenada literal = literal(texto);
+        if (literal != null) return literal;
+
+        Coordenada c = lugares.get(Analizador.plegar(texto));
+        if (c != null) return c;
+        int desde = 0;
+        for (int i = 0, n = texto.length(); i <= n; i++) {
+            char ch = i < n ? texto.charAt(i) : ',';
+            if (ch == ',' || ch == '-' || ch == '/' || ch == '(' || ch == ')') {
+                if (i > desde) {
+                    c = lugares.get(Analizador.plegar(texto.substring(desde, i)));
+                    if (c != null) return c;
+                }
+                desde = i + 1;
+            }
+        }
+        return null;
+    }
+
+    private static Coordenada literal(String texto) {
+        int coma = texto.indexOf(',');
+        if (coma < 0 || texto.indexOf(',', coma + 1) >= 0) return null;
+        try {
+            Coordenada c = new Coordenada(Double.parseDouble(texto.substring(0, coma).trim()),
+                    Double.parseDouble(texto.substring(coma + 1).trim()));
+            return c.valida() ? c : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public int size() {
+        return lugares.size();
+    }
+}
@@ -0,0 +1,124 @@
+package com.metamapa.telegram.geo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Grilla de celdas fijas (como un geohash de una sola precisión) para buscar vecinos.
+ * Los k más cercanos se buscan por anillos de celdas alrededor del punto, del más cercano
+ * hacia afuera, y se corta cuando el anillo siguiente ya no puede tener nada más cerca que
+ * el k-ésimo encontrado. Agregar es O(1), así que se puede ir llenando de a un punto.
+ * No es thread-safe.
+ */
+final class GrillaGeo<T> {
+
+    private static final double KM_POR_GRADO = 111.19;
+
+    record Vecino<T>(T valor, double km) { }
+
+    private record Item<T>(T valor, double lat, double lon) { }
+
+    private final double celda;
+    private final Map<Long, List<Item<T>>> celdas = new HashMap<>();
+    private int size;
+    private int minFila = Integer.MAX_VALUE, maxFila = Integer.MIN_VALUE;
+    private int minCol = Integer.MAX_VALUE, maxCol = Integer.MIN_VALUE;
+
+    /** celdaGrados: lado de cada celda en grados (0.05 son ~5 km). */
+    GrillaGeo(double celdaGrados) {
+        this.celda = celdaGrados;
+    }
+
+    void agregar(T valor, double lat, double lon) {
+        int f = fila(lat), c = columna(lon);
+        celdas.computeIfAbsent(clave(f, c), k -> new ArrayList<>(2)).add(new Item<>(valor, lat, lon));
+        size++;
+        minFila = Math.min(minFila, f);
+        maxFila = Math.max(maxFila, f);
+        minCol = Math.min(minCol, c);
+        maxCol = Math.max(maxCol, c);
+    }
+
+    /**
+     * Saca ese mismo valor (por identidad) de la celda de lat/lon. Los límites de filas y
+     * columnas no se achican: solo acotan hasta dónde se buscan anillos.
+     */
+    boolean quitar(T valor, double lat, double lon) {
+        long k = clave(fila(lat), columna(lon));
+        List<Item<T>> items = celdas.get(k);
+        if (items == null) return false;
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).valor() == valor) {
+                items.remove(i);
+                if (items.isEmpty()) celdas.remove(k);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Hasta k vecinos del punto, del más cercano al más lejano. */
+    List<Vecino<T>> cercanos(double lat, double lon, int k) {
+        if (size == 0 || k <= 0) return List.of();
+        Coordenada origen = new Coordenada(lat, lon);
+        // Max-heap de los k mejores hasta ahora
+        PriorityQueue<Vecino<T>> mejores = new PriorityQueue<>(k, (a, b) -> Double.compare(b.km(), a.km()));
+        int f0 = fila(lat), c0 = columna(lon);
+        int maxAnillo = Math.max(Math.max(Math.abs(f0 - minFila), Math.abs(maxFila - f0)),
+                Math.max(Math.abs(c0 - minCol), Math.abs(maxCol - c0)));
+        int vistos = 0;
+        for (int r = 0; r <= maxAnillo && vistos < size; r++) {
+            if (mejores.size() == k && mejores.peek().km() <= cotaKm(lat, r)) break;
+            for (int f = f0 - r; f <= f0 + r; f++) {
+                // En las filas del medio solo las dos columnas del borde son del anillo
+                int paso = (f == f0 - r || f == f0 + r) ? 1 : Math.max(1, 2 * r);
+                for (int c = c0 - r; c <= c0 + r; c += paso) {
+                    List<Item<T>> items = celdas.get(clave(f, c));
+                    if (items == null) continue;
+                    for (Item<T> it : items) {
+                        vistos++;
+                        double km = origen.distanciaKm(it.lat(), it.lon());
+                        if (mejores.size() < k) {
+                            mejores.add(new Vecino<>(it.valor(), km));
+                        } else if (km < mejores.peek().km()) {
+                            mejores.poll();
+                            mejores.add(new Vecino<>(it.valor(), km));
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Vecino<T>> out = new ArrayList<>(mejores);
+        out.sort((a, b) -> Double.compare(a.km(), b.km()));
+        return out;
+    }
+
+    // Lo mínimo que puede estar un punto a r anillos: r-1 celdas enteras, medidas en el paralelo
+    // más alejado del ecuador que alcanza el anillo (ahí un grado de longitud es más corto)
+    private double cotaKm(double lat, int r) {
+        if (r <= 1) return 0;
+        double cos = Math.cos(Math.toRadians(Math.min(89, Math.abs(lat) + r * celda)));
+        return (r - 1) * celda * KM_POR_GRADO * Math.max(0.01, cos);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int fila(double lat) {
+        return (int) Math.floor(lat / celda);
+    }
+
+    private int columna(double lon) {
+        return (int) Math.floor(lon / celda);
+    }
+
+    private static long clave(int fila, int col) {
+        return ((long) fila << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,134 @@
+package com.metamapa.telegram.geo;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.HechoDetalleDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import com.metamapa.telegram.DTO.PdiDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Hechos y PDIs ubicados en el mapa, para /cerca. Los backends no tienen búsqueda espacial,
+ * así que se arma acá: cada hecho (o PDI) que pasa por el bot con una ubicación que el
+ * {@link Gazetteer} reconoce se agrega a una {@link GrillaGeo}. Un hecho es el mismo venga de
+ * /buscar, /hechos o /hecho (título, ubicación y fecha); cuando /hecho trae el ID se completa.
+ * Pasado metamapa.geo.max-puntos se descarta el que hace más tiempo que no se ve.
+ */
+@Component
+public class IndiceGeo {
+
+    /** Algo que se puede mostrar en /cerca; hechoId es null si el backend no lo dio. */
+    public record Punto(String titulo, String ubicacion, String detalle, String hechoId) { }
+
+    public record Cercano(Punto punto, double km) { }
+
+    private final Gazetteer gazetteer;
+    private final boolean enabled;
+    private final int maxPuntos;
+    private final int maxResultados;
+
+    private final GrillaGeo<Punto> grilla;
+    // Lo que hay en la grilla por clave, del visto hace más tiempo al más reciente (orden de acceso)
+    private final LinkedHashMap<String, Entrada> puntos = new LinkedHashMap<>(16, 0.75f, true);
+
+    private record Entrada(Punto punto, Coordenada coordenada) { }
+
+    public IndiceGeo(Gazetteer gazetteer,
+                     @Value("${metamapa.geo.enabled:true}") boolean enabled,
+                     @Value("${metamapa.geo.celda-grados:0.05}") double celdaGrados,
+                     @Value("${metamapa.geo.max-puntos:50000}") int maxPuntos,
+                     @Value("${metamapa.geo.max-resultados:50}") int maxResultados) {
+        this.gazetteer = gazetteer;
+        this.enabled = enabled;
+        this.grilla = new GrillaGeo<>(celdaGrados);
+        this.maxPuntos = maxPuntos;
+        this.maxResultados = Math.max(1, maxResultados);
+    }
+
+    public void aprender(List<HechoDTO> hechos) {
+        if (hechos == null) return;
+        for (HechoDTO h : hechos) aprender(h);
+    }
+
+    public void aprender(HechoDTO h) {
+        if (!enabled || h == null) return;
+        agregar(clave(h.titulo(), h.ubicacion(), h.fecha()), new Punto(h.titulo(), h.ubicacion(), h.categoria(), null));
+    }
+
+    /** El hecho de /hecho y cada uno de sus PDIs con lugar. */
+    public void aprender(HechoDetalleDTO h, List<PdiDTO> pdis) {
+        if (!enabled || h == null) return;
+        agregar(clave(h.titulo(), h.ubicacion(), h.fecha()), new Punto(h.titulo(), h.ubicacion(), h.categoria(), h.id()));
+        if (pdis == null) return;
+        for (PdiDTO p : pdis) {
+            if (p.id() == null) continue;
+            agregar("pdi|" + p.id(), new Punto(h.titulo(), p.lugar(), "PDI: " + p.descripcion(), h.id()));
+        }
+    }
+
+    // Los listados no traen el ID: el hecho se reconoce por lo que sí traen todos
+    private static String clave(String titulo, String ubicacion, LocalDate fecha) {
+        return "hecho|" + titulo + "|" + ubicacion + "|" + fecha;
+    }
+
+    private void agregar(String clave, Punto p) {
+        if (p.ubicacion() == null || maxPuntos <= 0) return;
+        // Geocodificar es una búsqueda en un hash: se hace fuera del lock
+        Coordenada c = gazetteer.ubicar(p.ubicacion());
+        if (c == null) return;
+        synchronized (this) {
+            // get lo pasa al final: es lo último que se vio
+            Entrada previa = puntos.get(clave);
+            if (previa != null) {
+                // Un listado sin ID no le borra el que ya trajo /hecho
+                if (p.hechoId() == null && previa.punto().hechoId() != null) {
+                    p = new Punto(p.titulo(), p.ubicacion(), p.detalle(), previa.punto().hechoId());
+                }
+                if (p.equals(previa.punto())) return;
+                grilla.quitar(previa.punto(), previa.coordenada().lat(), previa.coordenada().lon());
+            } else if (puntos.size() >= maxPuntos) {
+                Iterator<Entrada> viejos = puntos.values().iterator();
+                Entrada vieja = viejos.next();
+                viejos.remove();
+                grilla.quitar(vieja.punto(), vieja.coordenada().lat(), vieja.coordenada().lon());
+            }
+            grilla.agregar(p, c.lat(), c.lon());
+            puntos.put(clave, new Entrada(p, c));
+        }
+    }
+
+    /**
+     * Los más cercanos a la coordenada, paginados como la API del buscador. Se ordenan como
+     * mucho metamapa.geo.max-resultados, así que esa es la última página.
+     */
+    public PageResponse<Cercano> cercanos(Coordenada c, int page, int pageSize) {
+        int hasta = Math.min(maxResultados, (page + 1) * pageSize);
+        List<GrillaGeo.Vecino<Punto>> vecinos;
+        int total;
+        synchronized (this) {
+            vecinos = grilla.cercanos(c.lat(), c.lon(), hasta);
+            total = Math.min(maxResultados, grilla.size());
+        }
+        List<Cercano> content = new ArrayList<>(pageSize);
+        for (int i = page * pageSize; i < vecinos.size(); i++) {
+            content.add(new Cercano(vecinos.get(i).valor(), vecinos.get(i).km()));
+        }
+        int totalPages = (total + pageSize - 1) / pageSize;
+        return new PageResponse<>(content, page, totalPages, total, page == 0, page + 1 >= totalPages);
+    }
+
+    /** Lugar -> coordenada con el nomenclador local (null si no lo conoce). */
+    public Coordenada ubicar(String lugar) {
+        return gazetteer.ubicar(lugar);
+    }
+
+    public synchronized int getPuntos() {
+        return grilla.size();
+    }
+}
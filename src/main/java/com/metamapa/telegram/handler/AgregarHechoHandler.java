@@ -1,91 +1,76 @@
 package com.metamapa.telegram.handler;
 
-import org.springframework.http.*;
+import com.metamapa.telegram.DTO.HechoDetalleDTO;
+import com.metamapa.telegram.DTO.NuevoHechoDTO;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.outbox.Outbox;
+import com.metamapa.telegram.util.Argumentos;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
-import io.github.cdimascio.dotenv.Dotenv;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 @Component
 public class AgregarHechoHandler implements BotCommandHandler {
 
-    private final RestTemplate rest;
-    private final String baseUrl;
-
-    public AgregarHechoHandler(RestTemplate rest) {
-        this.rest = rest;
+    private final BackendClient backend;
+    private final Outbox outbox;
 
-        // 1) ENV real
-        String url = System.getenv("FUENTES_API_URL");
-        // 2) .env (para desarrollo)
-        if (url == null || url.isBlank()) {
-            Dotenv d = Dotenv.configure()
-                    .ignoreIfMissing()  // no rompe si no está el archivo
-                    .load();
-            url = d.get("FUENTES_API_URL");
-        }
-        if (url == null || url.isBlank()) {
-            throw new IllegalStateException("Falta FUENTES_API_URL (env var o .env)");
-        }
-        this.baseUrl = url.endsWith("/") ? url.substring(0, url.length()-1) : url;
+    public AgregarHechoHandler(BackendClient backend, Outbox outbox) {
+        this.backend = backend;
+        this.outbox = outbox;
     }
 
-    @Override public boolean canHandle(String command) {
-        return command != null && command.trim().toLowerCase().startsWith("/agregar_hecho");
+    @Override public Set<String> commands() {
+        return Set.of("/agregar_hecho");
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public SendMessage handle(Update u) {
         Long chatId = u.getMessage().getChatId();
-        String text = u.getMessage().getText().trim();
 
         String usage = "Uso:\n/agregar_hecho <coleccion> | <titulo> | [categoria] | [ubicacion] | [fechaISO] | [origen]";
-        String[] cmdAndArgs = text.split("\\s+", 2);
-        if (cmdAndArgs.length < 2) return new SendMessage(chatId.toString(), usage);
+        Argumentos args = Argumentos.del(u.getMessage().getText());
+        if (args.resto() == null) return new SendMessage(chatId.toString(), usage);
 
-        String[] raw = cmdAndArgs[1].split("\\|");
-        String coleccion = raw.length > 0 ? nz(raw[0]) : null;
-        String titulo    = raw.length > 1 ? nz(raw[1]) : null;
-        String categoria = raw.length > 2 ? nz(raw[2]) : null;
-        String ubicacion = raw.length > 3 ? nz(raw[3]) : null;
-        String fechaIso  = raw.length > 4 ? nz(raw[4]) : null;
-        String origen    = raw.length > 5 ? nz(raw[5]) : null;
+        String coleccion = args.campo(0);
+        String titulo    = args.campo(1);
+        String categoria = args.campo(2);
+        String ubicacion = args.campo(3);
+        String fechaIso  = args.campo(4);
+        String origen    = args.campo(5);
 
         if (coleccion == null || titulo == null) return new SendMessage(chatId.toString(), usage);
 
-        try {
-            Map<String,Object> body = new HashMap<>();
-            body.put("nombre_coleccion", coleccion);
-            body.put("titulo", titulo);
-            if (categoria != null) body.put("categoria", categoria);
-            if (ubicacion != null) body.put("ubicacion", ubicacion);
-            if (fechaIso  != null) body.put("fecha", fechaIso);
-            if (origen    != null) body.put("origen", origen);
+        var body = new NuevoHechoDTO(coleccion, titulo, categoria, ubicacion, fechaIso, origen);
+        String invalido = body.validar();
+        if (invalido != null) return new SendMessage(chatId.toString(), "No pude crear el hecho: " + invalido + ".\n" + usage);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-            ResponseEntity<Map> resp = rest.postForEntity(baseUrl + "/hecho", new HttpEntity<>(body, headers), Map.class);
+        // Con fuentes dormido no se hace esperar al usuario: se guarda y se manda después
+        if (outbox.diferir(Outbox.Tipo.HECHO)) return diferido(chatId, body);
 
-            if (resp.getStatusCode().is2xxSuccessful()) {
-                Map<String,Object> creado = resp.getBody();
-                String id = String.valueOf(creado != null ? creado.getOrDefault("id", creado.get("hechoId")) : "?");
-                String ok = "Hecho creado\nID: " + id + "\nTítulo: " + titulo + "\nColección: " + coleccion;
-                return new SendMessage(chatId.toString(), ok);
-            }
-            return new SendMessage(chatId.toString(), "Error " + resp.getStatusCode());
+        try {
+            // Las respuestas que no son 2xx llegan como HttpStatusCodeException
+            HechoDetalleDTO creado = backend.post(Backend.FUENTES, "/hecho", body, HechoDetalleDTO.class);
+            String id = creado != null && creado.id() != null ? creado.id() : "?";
+            String ok = "Hecho creado\nID: " + id + "\nTítulo: " + titulo + "\nColección: " + coleccion;
+            return new SendMessage(chatId.toString(), ok);
 
         } catch (Exception e) {
+            if (outbox.activo() && Outbox.noLlego(e)) return diferido(chatId, body);
             return new SendMessage(chatId.toString(), "No pude crear el hecho.\n" + e.getMessage());
         }
     }
 
-    private static String nz(String s){ return (s==null)?null : s.trim().isEmpty()?null : s.trim(); }
+    private SendMessage diferido(Long chatId, NuevoHechoDTO body) {
+        try {
+            long n = outbox.encolar(Outbox.Tipo.HECHO, chatId, body);
+            return new SendMessage(chatId.toString(), "📝 Recibí el hecho \"" + body.titulo() + "\" (pendiente #" + n + ").\n"
+                    + outbox.motivoDiferido() + ": te aviso el ID apenas se guarde.");
+        } catch (IllegalStateException e) {
+            return new SendMessage(chatId.toString(), "No pude crear el hecho: el servidor no responde. Probá de nuevo en un rato.");
+        }
+    }
 }
@@ -1,9 +1,14 @@
 package com.metamapa.telegram.handler;
 
-import io.github.cdimascio.dotenv.Dotenv;
-import org.springframework.http.*;
+import com.metamapa.telegram.DTO.NuevoPdiDTO;
+import com.metamapa.telegram.DTO.PdiDTO;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendNoDisponibleException;
+import com.metamapa.telegram.outbox.Outbox;
+import com.metamapa.telegram.util.Argumentos;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
@@ -12,100 +17,84 @@ import java.util.*;
 @Component
 public class AgregarPdiHandler implements BotCommandHandler {
 
-    private final RestTemplate rest;
-    private final String baseUrl;
+    private final BackendClient backend;
+    private final Outbox outbox;
 
-    public AgregarPdiHandler(RestTemplate rest) {
-        this.rest = rest;
-
-        Dotenv dotenv = Dotenv.configure()
-                .ignoreIfMissing()
-                .systemProperties()
-                .load();
-
-        String url = dotenv.get("FUENTES_API_URL");
-        if (url == null || url.isBlank()) {
-            throw new IllegalStateException("Falta variable FUENTES_API_URL en .env o entorno");
-        }
-        this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    public AgregarPdiHandler(BackendClient backend, Outbox outbox) {
+        this.backend = backend;
+        this.outbox = outbox;
     }
 
     @Override
-    public boolean canHandle(String command) {
-        return command != null && command.trim().toLowerCase().startsWith("/agregar_pdi");
+    public Set<String> commands() {
+        return Set.of("/agregar_pdi");
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public SendMessage handle(Update u) {
         Long chatId = u.getMessage().getChatId();
-        String text = u.getMessage().getText().trim();
 
         String usage = """
                 Uso:
                 /agregar_pdi <hechoId> | <descripcion> | [lugar] | [momentoISO] | [urlImagen]
                 """;
 
-        String[] cmdAndArgs = text.split("\\s+", 2);
-        if (cmdAndArgs.length < 2)
+        Argumentos args = Argumentos.del(u.getMessage().getText());
+        if (args.resto() == null)
             return new SendMessage(chatId.toString(), usage);
 
-        String[] raw = cmdAndArgs[1].split("\\|");
-        String hechoId      = raw.length > 0 ? nz(raw[0]) : null;
-        String descripcion  = raw.length > 1 ? nz(raw[1]) : null;
-        String lugar        = raw.length > 2 ? nz(raw[2]) : null;
-        String momentoIso   = raw.length > 3 ? nz(raw[3]) : null;
-        String urlImagen    = raw.length > 4 ? nz(raw[4]) : null;
-        String textoImagen  = raw.length > 5 ? nz(raw[5]) : null;
-        String etiquetasStr = raw.length > 6 ? nz(raw[6]) : null;
+        String hechoId      = args.campo(0);
+        String descripcion  = args.campo(1);
+        String lugar        = args.campo(2);
+        String momentoIso   = args.campo(3);
+        String urlImagen    = args.campo(4);
+        String textoImagen  = args.campo(5);
+        String etiquetasStr = args.campo(6);
 
         if (hechoId == null || descripcion == null)
             return new SendMessage(chatId.toString(), usage);
 
         List<String> etiquetas = new ArrayList<>();
-        if (etiquetasStr != null && !etiquetasStr.isBlank()) {
+        if (etiquetasStr != null) {
             for (String e : etiquetasStr.split(",")) {
                 if (!e.trim().isEmpty()) etiquetas.add(e.trim());
             }
         }
 
+        // cuerpo del request en snake_case
+        var body = new NuevoPdiDTO(hechoId, descripcion, lugar, momentoIso, urlImagen, textoImagen, etiquetas);
+        if (outbox.diferir(Outbox.Tipo.PDI)) return diferido(chatId, body);
+
         try {
-            // cuerpo del request en snake_case
-            Map<String, Object> body = new HashMap<>();
-            body.put("hecho_id", hechoId);
-            body.put("descripcion", descripcion);
-            if (lugar != null)        body.put("lugar", lugar);
-            if (momentoIso != null)   body.put("momento", momentoIso);
-            if (urlImagen != null)    body.put("url_imagen", urlImagen);
-            if (textoImagen != null)  body.put("texto_imagen", textoImagen);
-            if (!etiquetas.isEmpty()) body.put("etiquetas", etiquetas);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-
-            ResponseEntity<Map> resp = rest.postForEntity(
-                    baseUrl + "/pdis", new HttpEntity<>(body, headers), Map.class);
-
-            if (resp.getStatusCode().is2xxSuccessful()) {
-                Map<String, Object> creado = resp.getBody();
-                String pdiId = String.valueOf(
-                        creado != null ? creado.getOrDefault("id", creado.get("pdi_id")) : "?");
-                String ok = "PDI agregado al hecho " + hechoId +
-                        "\nID: " + pdiId +
-                        "\nDescripción: " + descripcion;
-                return new SendMessage(chatId.toString(), ok);
-            }
+
+            PdiDTO creado = backend.post(Backend.FUENTES, "/pdis", body, PdiDTO.class);
+            String pdiId = creado != null && creado.id() != null ? creado.id() : "?";
+            String ok = "PDI agregado al hecho " + hechoId +
+                    "\nID: " + pdiId +
+                    "\nDescripción: " + descripcion;
+            return new SendMessage(chatId.toString(), ok);
+
+        } catch (BackendNoDisponibleException e) {
+            if (outbox.activo()) return diferido(chatId, body);
+            return new SendMessage(chatId.toString(), e.getMessage());
+        } catch (HttpStatusCodeException e) {
             return new SendMessage(chatId.toString(),
                     "❌ No se pudo agregar el PDI. Hubo un problema con el servidor remoto.");
-
         } catch (Exception e) {
+            if (outbox.activo() && Outbox.noLlego(e)) return diferido(chatId, body);
             return new SendMessage(chatId.toString(),
                     "❌ Ocurrió un error inesperado al intentar guardar el PDI.");
         }
     }
 
-    private static String nz(String s) {
-        return (s == null) ? null : s.trim().isEmpty() ? null : s.trim();
+    private SendMessage diferido(Long chatId, NuevoPdiDTO body) {
+        try {
+            long n = outbox.encolar(Outbox.Tipo.PDI, chatId, body);
+            return new SendMessage(chatId.toString(), "📝 Recibí el PDI para el hecho " + body.hechoId()
+                    + " (pendiente #" + n + ").\n" + outbox.motivoDiferido() + ": te aviso el ID apenas se guarde.");
+        } catch (IllegalStateException e) {
+            return new SendMessage(chatId.toString(),
+                    "❌ No se pudo agregar el PDI: el servidor no responde. Probá de nuevo en un rato.");
+        }
     }
 }
@@ -1,13 +1,39 @@
 package com.metamapa.telegram.handler;
 
+import com.metamapa.telegram.util.CommandToken;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 public interface BotCommandHandler {
 
-    boolean canHandle(String command);
+    // Comandos que atiende este handler, en minúscula y sin @bot (ej: "/buscar").
+    // El router los indexa para no tener que preguntarle a cada handler.
+    default Set<String> commands() {
+        return Set.of();
+    }
+
+    // Prefijos de callback_data que atiende, incluyendo el separador (ej: "BUSCAR|")
+    default Set<String> callbackPrefixes() {
+        return Set.of();
+    }
+
+    // Prefijos (de los anteriores) de botones de navegación, como ◀ / ▶: si en un mismo lote de
+    // updates se tocan varias veces en el mismo mensaje, solo se atiende el último toque
+    default Set<String> coalescingCallbackPrefixes() {
+        return Set.of();
+    }
+
+    // Los handlers que declaran comandos/prefijos no necesitan sobreescribirlo
+    default boolean canHandle(String command) {
+        if (command == null) return false;
+        String token = CommandToken.of(command);
+        if (token != null) return commands().contains(token);
+        String prefix = CommandToken.callbackPrefix(command);
+        return prefix != null && callbackPrefixes().contains(prefix);
+    }
 
     // El método original se queda igual para no romper a los demás
     BotApiMethod<?> handle(Update update);
@@ -20,4 +46,4 @@ public interface BotCommandHandler {
         }
         return List.of(singleResponse);
     }
-}
\ No newline at end of file
+}
@@ -2,38 +2,61 @@ package com.metamapa.telegram.handler;
 
 import com.metamapa.telegram.DTO.HechoDTO;
 import com.metamapa.telegram.DTO.PageResponse;
+import com.metamapa.telegram.clients.BackendNoDisponibleException;
+import com.metamapa.telegram.geo.IndiceGeo;
+import com.metamapa.telegram.render.Formato;
+import com.metamapa.telegram.render.HechoRenderer;
+import com.metamapa.telegram.render.MessageComposer;
+import com.metamapa.telegram.search.Autocompletado;
+import com.metamapa.telegram.service.BusquedaService;
+import com.metamapa.telegram.util.Argumentos;
 import com.metamapa.telegram.util.BotKeyboardUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 
+import java.util.List;
+import java.util.Set;
+
 @Component
 public class BuscarKeywordHandler implements BotCommandHandler {
 
-    private final RestTemplate restTemplate;
-
-    @Value("${metamapa.api.url}")
-    private String API_URL;
+    private final BusquedaService busqueda;
+    private final Autocompletado autocompletado;
+    private final IndiceGeo geo;
+    private final int sugerencias;
+    private final int minCaracteres;
 
     @Autowired
-    public BuscarKeywordHandler(RestTemplate restTemplate) {
-        System.out.println("--- INICIALIZANDO BuscarKeywordHandler ---");
-        this.restTemplate = restTemplate;
+    public BuscarKeywordHandler(BusquedaService busqueda, Autocompletado autocompletado, IndiceGeo geo,
+                                @Value("${metamapa.autocompletado.sugerencias:6}") int sugerencias,
+                                @Value("${metamapa.autocompletado.min-caracteres:3}") int minCaracteres) {
+        this.busqueda = busqueda;
+        this.autocompletado = autocompletado;
+        this.geo = geo;
+        this.sugerencias = Math.max(1, sugerencias);
+        this.minCaracteres = minCaracteres;
     }
 
     @Override
-    public boolean canHandle(String command) {
-        if (command != null && command.startsWith("/buscar")) return true;
-        if (command != null && command.startsWith("BUSCAR|")) return true;
-        return false;
+    public Set<String> commands() {
+        return Set.of("/buscar");
+    }
+
+    @Override
+    public Set<String> callbackPrefixes() {
+        return Set.of("BUSCAR|");
+    }
+
+    // Los toques repetidos de ◀ / ▶ en un mismo mensaje se resuelven con el último
+    @Override
+    public Set<String> coalescingCallbackPrefixes() {
+        return Set.of("BUSCAR|");
     }
 
     @Override
@@ -47,33 +70,44 @@ public class BuscarKeywordHandler implements BotCommandHandler {
     private BotApiMethod<?> handleCommand(Update update) {
 
         Long chatId = update.getMessage().getChatId();
-        String text = update.getMessage().getText();
+        Argumentos args = Argumentos.del(update.getMessage().getText());
 
         try {
-            String keyword = extraerKeyword(text);
+            String keyword = keyword(args);
             
             if (keyword == null) {
                 SendMessage msg = new SendMessage(chatId.toString(), "Formato inválido. Ejemplos:\n/buscar \"incendio\"\n/buscar incendio\n/buscar incendio, tag: \"CABA\"");
+                // Sin keyword: se ofrecen las más vistas
+                sugerir(msg, BotKeyboardUtil.sugerencias(autocompletado.keywords("", sugerencias + 2), null, sugerencias),
+                        "\n\nO probá con alguna de estas:");
                 return msg;
             }
 
-            String tag = extraerTag(text);
-     
+            String tag = args.valor("tag");
+
+            // Muy corta: si hay con qué completarla se sugiere en vez de ir al buscador
+            if (keyword.length() < minCaracteres) {
+                SendMessage msg = new SendMessage(chatId.toString(), "La búsqueda es muy corta.");
+                if (sugerir(msg, BotKeyboardUtil.sugerencias(autocompletado.keywords(keyword, sugerencias + 2), tag, sugerencias),
+                        " ¿Quisiste decir…?")) {
+                    return msg;
+                }
+            }
+
             return buscarYResponder(chatId.toString(), keyword, tag, 0, false, 0);
 
         } catch (Exception e) {
-    
-            e.printStackTrace();
+            System.err.println("❌ /buscar en el chat " + chatId + ": " + e);
             return new SendMessage(chatId.toString(), "Error procesando búsqueda.");
         }
     }
 
     private BotApiMethod<?> handleCallback(Update update) {
-        // (Lógica de callback... no la tocamos)
-        String[] data = update.getCallbackQuery().getData().split("\\|");
-        String keyword = data[1];
-        String tag = data[2].equals("_") ? null : data[2];
-        int page = Integer.parseInt(data[3]);
+        // callback_data: BUSCAR|<keyword>|<tag o _>|<página>
+        Argumentos data = Argumentos.del(update.getCallbackQuery().getData());
+        String keyword = data.campo(1);
+        String tag = "_".equals(data.campo(2)) ? null : data.campo(2);
+        int page = Integer.parseInt(data.campo(3));
         Long chatId = update.getCallbackQuery().getMessage().getChatId();
         Integer messageId = update.getCallbackQuery().getMessage().getMessageId();
         return buscarYResponder(chatId.toString(), keyword, tag, page, true, messageId);
@@ -87,25 +121,15 @@ public class BuscarKeywordHandler implements BotCommandHandler {
             boolean editMessage,
             Integer messageIdToEdit) {
 
-        if (this.restTemplate == null) {
-           
-            return new SendMessage(chatId, "Error: RestTemplate es nulo.");
-        }
-
-        String url = API_URL + "?keyword=" + keyword + "&page=" + page;
-        if (tag != null) url += "&tag=" + tag;
-
-        ParameterizedTypeReference<PageResponse<HechoDTO>> responseType =
-                new ParameterizedTypeReference<>() {};
-
         PageResponse<HechoDTO> pageResp;
         try {
           
-            pageResp = restTemplate.exchange(url, HttpMethod.GET, null, responseType).getBody();
+            pageResp = busqueda.buscar(keyword, tag, page);
         
+        } catch (BackendNoDisponibleException e) {
+            return new SendMessage(chatId, e.getMessage());
         } catch (Exception e) {
-         
-            e.printStackTrace();
+            System.err.println("❌ Búsqueda de '" + keyword + "' (página " + page + "): " + e);
             return new SendMessage(chatId, "Error al conectar con la API de búsqueda.");
         }
 
@@ -115,24 +139,36 @@ public class BuscarKeywordHandler implements BotCommandHandler {
                 EditMessageText edit = new EditMessageText();
                 edit.setChatId(chatId);
                 edit.setMessageId(messageIdToEdit);
-                edit.setText("No hay más resultados para *" + keyword + "*");
-                edit.enableMarkdown(true);
+                try (MessageComposer c = MessageComposer.de(Formato.HTML)) {
+                    edit.setText(c.texto("No hay más resultados para ").negrita(keyword).unMensaje());
+                }
+                edit.setParseMode(Formato.HTML.parseMode());
                 return edit;
             }
-            return new SendMessage(chatId, "Sin resultados.");
+            SendMessage msg = new SendMessage(chatId, "Sin resultados.");
+            // Si vino con tag, primero se prueba completar el tag; si no, la keyword
+            boolean sugerido = tag != null && sugerir(msg,
+                    BotKeyboardUtil.sugerenciasDeTag(keyword, autocompletado.etiquetas(tag, sugerencias + 2), sugerencias),
+                    " ¿Quisiste decir…?");
+            if (!sugerido) {
+                sugerir(msg, BotKeyboardUtil.sugerencias(autocompletado.keywords(keyword, sugerencias + 2), tag, sugerencias),
+                        " ¿Quisiste decir…?");
+            }
+            return msg;
         }
-
-        System.out.println("--- [LOG 10] CONSTRUYENDO RESPUESTA... ---");
-        
-        StringBuilder sb = new StringBuilder();
-        sb.append("Resultados para *").append(keyword).append("*");
-        if (tag != null) sb.append(" (tag: _").append(tag).append("_)");
-        sb.append("\nPágina ").append(pageResp.number() + 1).append(" de ").append(pageResp.totalPages()).append("\n\n");
-        for (HechoDTO dto : pageResp.content()) {
-            sb.append("• ").append(dto.titulo()).append("\n");
-            if (dto.etiquetas() != null && !dto.etiquetas().isEmpty())
-                sb.append("  Tags: ").append(dto.etiquetas()).append("\n");
-            sb.append("\n");
+        autocompletado.aprender(pageResp.content());
+        geo.aprender(pageResp.content());
+
+        // keyword, tag y títulos vienen del usuario/backend: el composer los escapa
+        String texto;
+        try (MessageComposer c = MessageComposer.de(Formato.HTML)) {
+            c.texto("Resultados para ").negrita(keyword);
+            if (tag != null) c.texto(" (tag: ").cursiva(tag).texto(")");
+            c.linea().texto("Página " + (pageResp.number() + 1) + " de " + pageResp.totalPages()).linea().linea().fin();
+            for (HechoDTO dto : pageResp.content()) {
+                HechoRenderer.itemBusqueda(c, dto);
+            }
+            texto = c.unMensaje();
         }
 
         InlineKeyboardMarkup kb = BotKeyboardUtil.pagination(keyword, tag, pageResp.number(), pageResp.totalPages());
@@ -141,44 +177,39 @@ public class BuscarKeywordHandler implements BotCommandHandler {
             EditMessageText edit = new EditMessageText();
             edit.setChatId(chatId);
             edit.setMessageId(messageIdToEdit);
-            edit.enableMarkdown(true);
-            edit.setText(sb.toString());
+            edit.setParseMode(Formato.HTML.parseMode());
+            edit.setText(texto);
             edit.setReplyMarkup(kb);
             return edit;
         }
 
-        SendMessage msg = new SendMessage(chatId, sb.toString());
-        msg.enableMarkdown(true);
+        SendMessage msg = new SendMessage(chatId, texto);
+        msg.setParseMode(Formato.HTML.parseMode());
         msg.setReplyMarkup(kb);
         return msg;
     }
 
-    // --- MÉTODOS DE PARSEO (Sin cambios) ---
-    private String extraerKeyword(String text) {
-        int i1 = text.indexOf("\"");
-        int i2 = text.indexOf("\"", i1 + 1);
-        if (i1 != -1 && i2 != -1) return text.substring(i1 + 1, i2);
-        String[] parts = text.split(" ", 2);
-        if (parts.length < 2) return null;
-        String keywordData = parts[1].trim();
-        int tagIndex = keywordData.toLowerCase().indexOf("tag:");
-        if (tagIndex != -1) {
-            keywordData = keywordData.substring(0, tagIndex).trim();
-            if (keywordData.endsWith(",")) {
-                keywordData = keywordData.substring(0, keywordData.length() - 1).trim();
-            }
-        }
-        if (!keywordData.isEmpty()) return keywordData;
-        return null;
+    // Pone el teclado de sugerencias (y agrega el texto) si quedó algún botón
+    private static boolean sugerir(SendMessage msg, InlineKeyboardMarkup kb, String agregado) {
+        if (kb.getKeyboard().isEmpty()) return false;
+        msg.setText(msg.getText() + agregado);
+        msg.setReplyMarkup(kb);
+        return true;
+    }
+
+    // --- MÉTODOS DE PARSEO (públicos para los benchmarks) ---
+    // Los dos usan la vista del hilo: pedir keyword y tag del mismo texto lo recorre una vez
+    public static String extraerKeyword(String text) {
+        return keyword(Argumentos.del(text));
+    }
+
+    public static String extraerTag(String text) {
+        return Argumentos.del(text).valor("tag");
     }
 
-    private String extraerTag(String text) {
-        String lower = text.toLowerCase();
-        int tagIndex = lower.indexOf("tag:");
-        if (tagIndex == -1) return null;
-        int i1 = text.indexOf("\"", tagIndex);
-        int i2 = text.indexOf("\"", i1 + 1);
-        if (i1 == -1 || i2 == -1) return null;
-        return text.substring(i1 + 1, i2);
+    // "/buscar \"incendio forestal\"" o "/buscar incendio forestal, tag: CABA"
+    private static String keyword(Argumentos args) {
+        String entreComillas = args.entreComillas();
+        return entreComillas != null ? entreComillas : args.libre();
     }
 }
\ No newline at end of file
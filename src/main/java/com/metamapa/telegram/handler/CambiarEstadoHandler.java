@@ -1,105 +1,63 @@
 package com.metamapa.telegram.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.metamapa.telegram.DTO.SolicitudDTO;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendNoDisponibleException;
+import com.metamapa.telegram.clients.BackendRequest;
+import com.metamapa.telegram.util.Argumentos;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
-import java.net.URI;
-import java.net.http.*;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
-import java.util.Arrays;
+import java.util.Set;
 
 @Component
 public class CambiarEstadoHandler implements BotCommandHandler {
 
-    private static final HttpClient HTTP = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
-
-    private static final ObjectMapper MAPPER = new ObjectMapper();
-
-
-    private HttpResponse<String> sendWithRetry(HttpRequest req) throws Exception {
-        int attempts = 0;
-        int maxAttempts = 3;
-        long backoffMs = 800; // 0.8s → 1.6s → 3.2s
-
-        while (true) {
-            attempts++;
-            try {
-                // Aumentá el timeout de CADA request (render puede tardar en “despertar”)
-                HttpRequest withTimeout = HttpRequest.newBuilder(req.uri())
-                        .timeout(Duration.ofSeconds(25)) // <-- antes tenías 10s
-                        .method(req.method(), req.bodyPublisher().orElse(HttpRequest.BodyPublishers.noBody()))
-                        .headers(req.headers().map().entrySet().stream()
-                                .flatMap(e -> e.getValue().stream().map(v -> new String[]{e.getKey(), v}))
-                                .flatMap(Arrays::stream) // flatten pairs
-                                .toArray(String[]::new))
-                        .build();
-
-                return HTTP.send(withTimeout, HttpResponse.BodyHandlers.ofString());
-
-            } catch (java.net.http.HttpTimeoutException te) {
-                if (attempts >= maxAttempts) throw te;
-                Thread.sleep(backoffMs);
-                backoffMs *= 2;
-            }
-        }
-    }
-
+    private final BackendClient backend;
 
-    private final String baseUrl =
-            System.getenv().getOrDefault("SOLICITUDES_BASE_URL",
-                    "https://solicitudes-tpdds.onrender.com/solicitudes");
-    private final HttpClient http =
-            HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    public CambiarEstadoHandler(BackendClient backend) {
+        this.backend = backend;
+    }
 
     @Override
-    public boolean canHandle(String command) {
-        if (command == null) return false;
-        String token = command.trim().split("\\s+")[0].toLowerCase();
-        int at = token.indexOf('@');
-        if (at > 0) token = token.substring(0, at);
-
-        return token.equals("/cambiar_estado");
+    public Set<String> commands() {
+        return Set.of("/cambiar_estado");
     }
 
     @Override
     public SendMessage handle(Update update) {
         var chatId = update.getMessage().getChatId().toString();
-        var text = update.getMessage().getText().trim();
+        var args = Argumentos.del(update.getMessage().getText());
 
         // Formato: /cambiar_estado <solicitudId> <ACEPTADA|RECHAZADA|CREADA>
-        var parts = text.split("\\s+");
-        if (parts.length < 3) {
+        if (args.posicionales() < 2) {
             return new SendMessage(chatId,
                     "Uso: /cambiar_estado <solicitudId> <ACEPTADA|RECHAZADA|CREADA>");
         }
-        var solicitudId = parts[1];
-        var estado = parts[2].toUpperCase();
+        var solicitudId = args.posicional(0);
+        var estado = args.posicional(1).toUpperCase();
 
         try {
-            var uri = URI.create(baseUrl + "/" + solicitudId + "/estado?estado=" + estado);
-            var req = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .header("Content-Type", "application/json")
-                    .timeout(Duration.ofSeconds(10))
-                    .method("PATCH", HttpRequest.BodyPublishers.ofString("{}", StandardCharsets.UTF_8))
-                    .build();
-
-            var resp = sendWithRetry(req);
-            int status = resp.statusCode();
-            String body = resp.body();
+            var req = BackendRequest.patch(Backend.SOLICITUDES,
+                    "/" + UriUtils.encodePathSegment(solicitudId, StandardCharsets.UTF_8)
+                            + "/estado?estado=" + UriUtils.encodeQueryParam(estado, StandardCharsets.UTF_8),
+                    "{}").comoIdempotente(); // fija el estado: repetirlo da lo mismo
+
+            var resp = backend.send(req);
+            int status = resp.status();
+            String body = resp.bodyAsString();
 
             if (status == 200) {
-                JsonNode node = MAPPER.readTree(body);
+                SolicitudDTO s = backend.decode(resp, SolicitudDTO.class);
 
-                String id = node.path("id").asText(solicitudId);
-                String hechoId = node.path("hechoId").asText("desconocido");
-                String nuevoEstado = node.path("estado").asText(estado);
+                String id = s != null && s.id() != null ? s.id() : solicitudId;
+                String hechoId = s != null && s.hechoId() != null ? s.hechoId() : "desconocido";
+                String nuevoEstado = s != null && s.estado() != null ? s.estado() : estado;
 
                 String msg = "✅ Estado actualizado correctamente.\n\n"
                         + "📝 Solicitud: " + id + "\n"
@@ -125,6 +83,8 @@ public class CambiarEstadoHandler implements BotCommandHandler {
                         "❗ Error al cambiar estado (HTTP " + status + ").\n" + errorMsg);
             }
 
+        } catch (BackendNoDisponibleException e) {
+            return new SendMessage(chatId, e.getMessage());
         } catch (Exception e) {
             return new SendMessage(chatId,
                     "❗ Error al cambiar estado: " + e.getMessage());
@@ -133,7 +93,7 @@ public class CambiarEstadoHandler implements BotCommandHandler {
 
     private String extraerMensajeError(String body) {
         try {
-            JsonNode node = MAPPER.readTree(body);
+            JsonNode node = backend.mapper().readTree(body);
             if (node.has("error")) {
                 return node.get("error").asText();
             }
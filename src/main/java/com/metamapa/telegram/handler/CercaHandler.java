@@ -0,0 +1,163 @@
+package com.metamapa.telegram.handler;
+
+import com.metamapa.telegram.DTO.PageResponse;
+import com.metamapa.telegram.geo.Coordenada;
+import com.metamapa.telegram.geo.IndiceGeo;
+import com.metamapa.telegram.render.Formato;
+import com.metamapa.telegram.render.MessageComposer;
+import com.metamapa.telegram.util.Argumentos;
+import com.metamapa.telegram.util.BotKeyboardUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Location;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * /cerca &lt;lugar&gt; o una ubicación compartida: los hechos y PDIs conocidos más cercanos,
+ * ordenados por distancia ({@link IndiceGeo}), con las mismas flechas ◀ / ▶ que /buscar.
+ * El lugar se resuelve con el nomenclador local; también acepta "lat, lon".
+ */
+@Component
+public class CercaHandler implements BotCommandHandler {
+
+    private static final String CALLBACK = "CERCA|";
+
+    private final IndiceGeo geo;
+    private final int pageSize;
+
+    public CercaHandler(IndiceGeo geo, @Value("${metamapa.geo.page-size:5}") int pageSize) {
+        this.geo = geo;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @Override
+    public Set<String> commands() {
+        return Set.of("/cerca");
+    }
+
+    @Override
+    public Set<String> callbackPrefixes() {
+        return Set.of(CALLBACK);
+    }
+
+    @Override
+    public Set<String> coalescingCallbackPrefixes() {
+        return Set.of(CALLBACK);
+    }
+
+    @Override
+    public BotApiMethod<?> handle(Update update) {
+        if (update.hasCallbackQuery()) {
+            return handleCallback(update);
+        }
+
+        String chatId = update.getMessage().getChatId().toString();
+        if (update.getMessage().hasLocation()) {
+            Location l = update.getMessage().getLocation();
+            return pagina(chatId, new Coordenada(l.getLatitude(), l.getLongitude()), "tu ubicación", 0, null);
+        }
+
+        String lugar = Argumentos.del(update.getMessage().getText()).resto();
+        if (lugar == null) {
+            // Telegram solo acepta el botón de compartir ubicación en chats privados
+            if (!update.getMessage().isUserMessage()) {
+                return new SendMessage(chatId, "Escribí /cerca <lugar> (ej: /cerca Palermo).");
+            }
+            return pedirUbicacion(chatId);
+        }
+
+        Coordenada c = geo.ubicar(lugar);
+        if (c == null) {
+            return new SendMessage(chatId, "No conozco el lugar '" + lugar
+                    + "'. Probá con un barrio o ciudad, con \"lat, lon\" o compartiendo tu ubicación.");
+        }
+        return pagina(chatId, c, lugar, 0, null);
+    }
+
+    // callback_data: CERCA|<lat>|<lon>|<página>
+    private BotApiMethod<?> handleCallback(Update update) {
+        Argumentos data = Argumentos.del(update.getCallbackQuery().getData());
+        String chatId = update.getCallbackQuery().getMessage().getChatId().toString();
+        Integer messageId = update.getCallbackQuery().getMessage().getMessageId();
+        if (data.campos() != 4 || data.campo(1) == null || data.campo(2) == null || data.campo(3) == null) return null;
+        try {
+            String lat = data.campo(1);
+            String lon = data.campo(2);
+            Coordenada c = new Coordenada(Double.parseDouble(lat), Double.parseDouble(lon));
+            return pagina(chatId, c, lat + ", " + lon, Integer.parseInt(data.campo(3)), messageId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private BotApiMethod<?> pagina(String chatId, Coordenada c, String donde, int page, Integer messageIdToEdit) {
+        PageResponse<IndiceGeo.Cercano> resp = geo.cercanos(c, page, pageSize);
+
+        String texto;
+        if (resp.content().isEmpty()) {
+            texto = page == 0
+                    ? "Todavía no conozco hechos ubicados. Aparecen acá a medida que se consultan con /buscar, /hechos o /hecho."
+                    : "No hay más hechos cerca de " + donde + ".";
+        } else {
+            try (MessageComposer m = MessageComposer.de(Formato.TEXTO)) {
+                m.texto("📍 Hechos cerca de " + donde + " (página " + (page + 1) + " de " + resp.totalPages() + "):")
+                        .linea().linea().fin();
+                int n = page * pageSize + 1;
+                for (IndiceGeo.Cercano cercano : resp.content()) {
+                    IndiceGeo.Punto p = cercano.punto();
+                    m.texto(n++ + ". " + (p.titulo() != null ? p.titulo() : "(sin título)"))
+                            .texto(" — " + distancia(cercano.km())).linea();
+                    m.texto("   Ubicación: " + p.ubicacion()).linea();
+                    if (p.detalle() != null) m.texto("   " + p.detalle()).linea();
+                    if (p.hechoId() != null) m.texto("   Ver: /hecho " + p.hechoId()).linea();
+                    m.linea().fin();
+                }
+                texto = m.unMensaje();
+            }
+        }
+
+        // 4 decimales (~10 m) alcanzan y dejan el callback_data corto
+        String prefijo = String.format(Locale.ROOT, "%s%.4f|%.4f|", CALLBACK, c.lat(), c.lon());
+        var kb = resp.content().isEmpty() ? null : BotKeyboardUtil.pagination(prefijo, page, resp.totalPages());
+
+        if (messageIdToEdit != null) {
+            EditMessageText edit = new EditMessageText();
+            edit.setChatId(chatId);
+            edit.setMessageId(messageIdToEdit);
+            edit.setText(texto);
+            edit.setReplyMarkup(kb);
+            return edit;
+        }
+        SendMessage msg = new SendMessage(chatId, texto);
+        msg.setReplyMarkup(kb);
+        return msg;
+    }
+
+    private static SendMessage pedirUbicacion(String chatId) {
+        KeyboardButton compartir = new KeyboardButton("📍 Compartir ubicación");
+        compartir.setRequestLocation(true);
+        KeyboardRow fila = new KeyboardRow();
+        fila.add(compartir);
+        ReplyKeyboardMarkup kb = new ReplyKeyboardMarkup(List.of(fila));
+        kb.setResizeKeyboard(true);
+        kb.setOneTimeKeyboard(true);
+
+        SendMessage msg = new SendMessage(chatId, "Compartí tu ubicación o escribí /cerca <lugar> (ej: /cerca Palermo).");
+        msg.setReplyMarkup(kb);
+        return msg;
+    }
+
+    private static String distancia(double km) {
+        return km < 1 ? Math.round(km * 1000) + " m" : String.format(Locale.ROOT, "%.1f km", km);
+    }
+}
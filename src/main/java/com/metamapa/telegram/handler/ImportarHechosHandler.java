@@ -0,0 +1,304 @@
+package com.metamapa.telegram.handler;
+
+import com.metamapa.telegram.DTO.NuevoHechoDTO;
+import com.metamapa.telegram.bot.TelegramSender;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendNoDisponibleException;
+import com.metamapa.telegram.clients.BackendRequest;
+import com.metamapa.telegram.clients.BackendResponse;
+import com.metamapa.telegram.importacion.LectorHechos;
+import com.metamapa.telegram.importacion.LectorHechos.Fila;
+import com.metamapa.telegram.importacion.LectorHechos.FormatoArchivo;
+import com.metamapa.telegram.render.Formato;
+import com.metamapa.telegram.render.MessageComposer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Document;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /importar_hechos: carga muchos hechos de un archivo CSV o JSONL, ya sea mandado con el
+ * comando como epígrafe o respondiendo al archivo con el comando.
+ *
+ * El archivo se lee fila por fila ({@link LectorHechos}) y cada fila válida se manda a
+ * POST /hecho apenas se libera un lugar, con como mucho metamapa.importar.concurrencia
+ * pedidos en vuelo.
+ * El avance se muestra editando un único mensaje de estado y al final se manda el detalle
+ * de las filas que fallaron. Corre en el hilo del chat, así que los comandos que lleguen
+ * mientras tanto se atienden al terminar.
+ */
+@Component
+public class ImportarHechosHandler implements BotCommandHandler {
+
+    private static final String USO = """
+            Mandá un archivo .csv o .jsonl con /importar_hechos como epígrafe, o respondé al archivo con /importar_hechos.
+            Columnas: coleccion, titulo, categoria, ubicacion, fecha (aaaa-mm-dd), origen.
+            En CSV la primera fila puede nombrar las columnas; si no, van en ese orden.""";
+
+    // Detalle de errores que se guarda; del resto solo se cuentan
+    private static final int MAX_ERRORES_DETALLE = 200;
+    private static final int MAX_MENSAJES_REPORTE = 3;
+
+    private final BackendClient backend;
+    private final TelegramSender sender;
+    private final int maxFilas;
+    private final int concurrencia;
+    private final long maxBytes;
+    private final long progresoCadaNanos;
+
+    public ImportarHechosHandler(BackendClient backend, TelegramSender sender,
+                                 @Value("${metamapa.importar.max-filas:1000}") int maxFilas,
+                                 @Value("${metamapa.importar.concurrencia:4}") int concurrencia,
+                                 @Value("${metamapa.importar.max-bytes:5MB}") DataSize maxBytes,
+                                 @Value("${metamapa.importar.progreso-cada:3s}") Duration progresoCada) {
+        this.backend = backend;
+        this.sender = sender;
+        this.maxFilas = Math.max(1, maxFilas);
+        this.concurrencia = Math.max(1, concurrencia);
+        this.maxBytes = maxBytes.toBytes();
+        this.progresoCadaNanos = progresoCada.toNanos();
+    }
+
+    @Override
+    public Set<String> commands() {
+        return Set.of("/importar_hechos");
+    }
+
+    @Override
+    public SendMessage handle(Update update) {
+        return null;
+    }
+
+    @Override
+    public List<BotApiMethod<?>> handleBatch(Update update) {
+        Message msg = update.getMessage();
+        long chatId = msg.getChatId();
+
+        Document doc = msg.hasDocument() ? msg.getDocument()
+                : msg.getReplyToMessage() != null && msg.getReplyToMessage().hasDocument()
+                ? msg.getReplyToMessage().getDocument() : null;
+        if (doc == null) {
+            return texto(chatId, USO);
+        }
+        FormatoArchivo formato = LectorHechos.detectar(doc.getFileName(), doc.getMimeType());
+        if (formato == null) {
+            return texto(chatId, "Solo puedo importar archivos .csv o .jsonl.\n\n" + USO);
+        }
+        if (doc.getFileSize() != null && doc.getFileSize() > maxBytes) {
+            return texto(chatId, "El archivo es demasiado grande (máximo " + maxBytes / 1024 + " KB).");
+        }
+
+        String nombre = doc.getFileName() != null ? doc.getFileName() : "el archivo";
+        Integer estadoId = mensajeDeEstado(chatId, "📥 Importando " + nombre + "…");
+        Progreso p = new Progreso();
+
+        try (InputStream in = sender.descargarArchivo(doc.getFileId());
+             LectorHechos lector = LectorHechos.de(in, formato, backend.reader(NuevoHechoDTO.class))) {
+            importar(lector, p, chatId, estadoId);
+        } catch (TelegramApiException e) {
+            System.err.println("❌ No se pudo descargar " + nombre + ": " + e.getMessage());
+            return cerrarEstado(chatId, estadoId, "No pude descargar el archivo de Telegram. Probá de nuevo.");
+        } catch (IOException e) {
+            // Lo que ya se mandó queda creado: se informa igual
+            p.interrumpir("No pude seguir leyendo el archivo: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            p.interrumpir("La importación se canceló.");
+        }
+
+        List<BotApiMethod<?>> respuesta = new ArrayList<>(cerrarEstado(chatId, estadoId, p.resumen(nombre)));
+        respuesta.addAll(reporte(chatId, p));
+        return respuesta;
+    }
+
+    private void importar(LectorHechos lector, Progreso p, long chatId, Integer estadoId)
+            throws IOException, InterruptedException {
+        Semaphore enVuelo = new Semaphore(concurrencia);
+        long ultimoAviso = System.nanoTime();
+        CompletableFuture<?> aviso = CompletableFuture.completedFuture(null);
+
+        try {
+            Fila f;
+            while (!p.interrumpida() && (f = lector.siguiente()) != null) {
+                if (p.leidas() >= maxFilas) {
+                    p.interrumpir("Se importaron solo las primeras " + maxFilas + " filas.");
+                    break;
+                }
+                p.leida();
+                if (f.error() != null) {
+                    p.fallo(f.numero(), f.error());
+                    continue;
+                }
+
+                enVuelo.acquire();
+                // El permiso se devuelve después de contar el resultado
+                crear(f, p).whenComplete((r, e) -> enVuelo.release());
+
+                // Un edit por vez y no más seguido que progreso-cada, para no gastar el límite del chat
+                long now = System.nanoTime();
+                if (estadoId != null && aviso.isDone() && now - ultimoAviso >= progresoCadaNanos) {
+                    aviso = sender.enviar(chatId, editar(chatId, estadoId, p.avance()));
+                    ultimoAviso = now;
+                }
+            }
+        } finally {
+            // Aunque se corte la lectura, el resumen tiene que contar lo que ya estaba en vuelo:
+            // con todos los permisos de vuelta no queda ningún pedido pendiente
+            enVuelo.acquireUninterruptibly(concurrencia);
+        }
+    }
+
+    private CompletableFuture<Void> crear(Fila f, Progreso p) {
+        return backend.sendAsync(BackendRequest.post(Backend.FUENTES, "/hecho", f.hecho()))
+                .handle((resp, err) -> {
+                    if (err == null && resp.is2xx()) {
+                        p.creado();
+                    } else if (err instanceof BackendNoDisponibleException e) {
+                        // Con el backend caído el resto fallaría igual: se corta acá
+                        p.fallo(f.numero(), "no se envió");
+                        p.interrumpir(e.getMessage());
+                    } else {
+                        p.fallo(f.numero(), err != null ? "sin respuesta del servidor" : rechazo(resp));
+                    }
+                    return null;
+                });
+    }
+
+    private static String rechazo(BackendResponse resp) {
+        String cuerpo = resp.bodyAsString();
+        if (cuerpo == null || cuerpo.isBlank()) return "el servidor respondió " + resp.status();
+        cuerpo = cuerpo.strip();
+        return "el servidor respondió " + resp.status() + ": "
+                + (cuerpo.length() > 120 ? cuerpo.substring(0, 120) + "…" : cuerpo);
+    }
+
+    // Id del mensaje de estado, o null si no se pudo mandar (entonces no hay avance, solo el resumen)
+    private Integer mensajeDeEstado(long chatId, String texto) {
+        try {
+            return sender.enviar(chatId, new SendMessage(String.valueOf(chatId), texto))
+                    .get(15, TimeUnit.SECONDS).getMessageId();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static List<BotApiMethod<?>> cerrarEstado(long chatId, Integer estadoId, String texto) {
+        return estadoId != null ? List.of(editar(chatId, estadoId, texto)) : texto(chatId, texto);
+    }
+
+    private static EditMessageText editar(long chatId, int messageId, String texto) {
+        EditMessageText edit = new EditMessageText();
+        edit.setChatId(String.valueOf(chatId));
+        edit.setMessageId(messageId);
+        edit.setText(texto);
+        return edit;
+    }
+
+    private static List<BotApiMethod<?>> reporte(long chatId, Progreso p) {
+        List<String> errores = p.errores();
+        if (errores.isEmpty()) return List.of();
+
+        List<String> partes;
+        try (MessageComposer c = MessageComposer.de(Formato.TEXTO)) {
+            c.continuacion("(continuación errores...)\n\n");
+            c.texto("Filas con errores:").linea().linea().fin();
+            for (String e : errores) c.texto(e).linea().fin();
+            partes = new ArrayList<>(c.partes());
+        }
+
+        List<BotApiMethod<?>> mensajes = new ArrayList<>();
+        for (int i = 0; i < partes.size() && i < MAX_MENSAJES_REPORTE; i++) {
+            mensajes.add(new SendMessage(String.valueOf(chatId), partes.get(i)));
+        }
+        if (partes.size() > MAX_MENSAJES_REPORTE || p.fallidas() > errores.size()) {
+            mensajes.add(new SendMessage(String.valueOf(chatId),
+                    "… el detalle está recortado: en total fallaron " + p.fallidas() + " filas."));
+        }
+        return mensajes;
+    }
+
+    private static List<BotApiMethod<?>> texto(long chatId, String texto) {
+        return List.of(new SendMessage(String.valueOf(chatId), texto));
+    }
+
+    // Contadores de una importación; los resultados llegan desde los hilos del cliente HTTP
+    private static final class Progreso {
+        private final List<ErrorFila> errores = new ArrayList<>();
+        private int leidas;
+        private int creados;
+        private int fallidas;
+        private volatile String interrupcion;
+
+        void leida() {
+            leidas++;
+        }
+
+        int leidas() {
+            return leidas;
+        }
+
+        synchronized void creado() {
+            creados++;
+        }
+
+        synchronized void fallo(int fila, String motivo) {
+            fallidas++;
+            if (errores.size() < MAX_ERRORES_DETALLE) errores.add(new ErrorFila(fila, motivo));
+        }
+
+        synchronized int fallidas() {
+            return fallidas;
+        }
+
+        synchronized List<String> errores() {
+            // Los pedidos en vuelo terminan en cualquier orden
+            return errores.stream()
+                    .sorted(Comparator.comparingInt(ErrorFila::fila))
+                    .map(e -> "Fila " + e.fila() + ": " + e.motivo())
+                    .toList();
+        }
+
+        void interrumpir(String motivo) {
+            if (interrupcion == null) interrupcion = motivo;
+        }
+
+        boolean interrumpida() {
+            return interrupcion != null;
+        }
+
+        synchronized String avance() {
+            return "📥 Importando… " + leidas + " filas leídas, " + creados + " hechos creados, "
+                    + fallidas + " con errores.";
+        }
+
+        synchronized String resumen(String nombre) {
+            String r = (interrupcion == null ? "✅" : "⚠️") + " Importación de " + nombre + " terminada.\n"
+                    + "Filas leídas: " + leidas + "\nHechos creados: " + creados + "\nCon errores: " + fallidas;
+            return interrupcion == null ? r : r + "\n\n" + interrupcion;
+        }
+    }
+
+    private record ErrorFila(int fila, String motivo) { }
+}
@@ -0,0 +1,212 @@
+package com.metamapa.telegram.handler;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import com.metamapa.telegram.bot.TelegramSender;
+import com.metamapa.telegram.bot.UpdateDispatcher;
+import com.metamapa.telegram.render.Formato;
+import com.metamapa.telegram.render.HechoRenderer;
+import com.metamapa.telegram.service.BusquedaService;
+import com.metamapa.telegram.util.Argumentos;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.AnswerInlineQuery;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.InlineQuery;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.inputmessagecontent.InputTextMessageContent;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.result.InlineQueryResult;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.result.InlineQueryResultArticle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo inline: "@bot incendio" (o "@bot incendio #CABA" para filtrar por tag) busca con
+ * {@link BusquedaService} y responde con un artículo por hecho. Hay que activar el modo
+ * inline del bot con /setinline en BotFather.
+ *
+ * Telegram manda una consulta por cada tecla: se espera metamapa.inline.debounce sin
+ * consultas nuevas del mismo usuario antes de ir al buscador (las intermedias quedan sin
+ * responder). Lo que ya está en la cache se responde enseguida, y el cache_time que se le
+ * pasa a Telegram es lo que le queda a esa página en la cache local.
+ * Al scrollear, Telegram pide la página siguiente con el offset que le devolvimos.
+ *
+ * Las consultas de un usuario van en orden entre sí con su propia clave en el dispatcher
+ * ({@link #clave}), no en la de su chat privado, y la respuesta sale por
+ * {@link TelegramSender#enviarSinChat}: un /buscar lento por privado no demora el inline.
+ */
+@Component
+public class InlineBusquedaHandler {
+
+    private static final int MAX_TITULO = 100;
+    private static final int MAX_DESCRIPCION = 200;
+
+    private final BusquedaService busqueda;
+    private final UpdateDispatcher dispatcher;
+    private final TelegramSender sender;
+    private final long debounceMillis;
+    private final int minCaracteres;
+
+    // Última consulta de cada usuario que espera que pase el debounce
+    private final Map<Long, InlineQuery> ultimas = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "inline-debounce");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public InlineBusquedaHandler(BusquedaService busqueda, UpdateDispatcher dispatcher, TelegramSender sender,
+                                 @Value("${metamapa.inline.debounce:400ms}") Duration debounce,
+                                 @Value("${metamapa.inline.min-caracteres:3}") int minCaracteres) {
+        this.busqueda = busqueda;
+        this.dispatcher = dispatcher;
+        this.sender = sender;
+        this.debounceMillis = debounce.toMillis();
+        this.minCaracteres = Math.max(1, minCaracteres);
+    }
+
+    /** Lo llama el bot por cada inline_query (desde el hilo de polling: no bloquea). */
+    public void recibir(InlineQuery q) {
+        long usuario = q.getFrom().getId();
+        Consulta c = Consulta.de(q);
+        if (c == null) return;
+        if (c.keyword().length() < minCaracteres) {
+            // Sin esperar: la respuesta vacía no toca el backend
+            ultimas.remove(usuario);
+            sender.enviarSinChat(respuesta(q, List.of(), "", 0));
+            return;
+        }
+
+        // Scrollear o algo que ya está en cache: no hay nada que ahorrar esperando
+        if (c.page() > 0 || busqueda.enCache(c.keyword(), c.tag(), c.page())) {
+            ultimas.remove(usuario);
+            dispatcher.submit(clave(usuario), () -> responder(q, c));
+            return;
+        }
+
+        ultimas.put(usuario, q);
+        try {
+            timer.schedule(() -> {
+                // Si llegó otra consulta del mismo usuario, esta ya no le interesa
+                if (ultimas.remove(usuario, q)) dispatcher.submit(clave(usuario), () -> responder(q, c));
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            ultimas.remove(usuario, q);
+        }
+    }
+
+    private void responder(InlineQuery q, Consulta c) {
+        PageResponse<HechoDTO> page;
+        try {
+            page = busqueda.buscar(c.keyword(), c.tag(), c.page());
+        } catch (Exception e) {
+            // Sin cache_time, así Telegram vuelve a preguntar en la próxima tecla
+            System.err.println("Inline: falló la búsqueda de '" + c.keyword() + "': " + e.getMessage());
+            sender.enviarSinChat(respuesta(q, List.of(), "", 0));
+            return;
+        }
+
+        List<InlineQueryResult> resultados = new ArrayList<>();
+        String siguiente = "";
+        if (page != null && page.content() != null) {
+            int i = 0;
+            for (HechoDTO h : page.content()) {
+                resultados.add(articulo(c.page() + "-" + i++, h));
+            }
+            if (!page.last() && page.number() + 1 < page.totalPages()) {
+                siguiente = String.valueOf(c.page() + 1);
+            }
+        }
+        int cacheTime = (int) busqueda.segundosVigentes(c.keyword(), c.tag(), c.page());
+        sender.enviarSinChat(respuesta(q, resultados, siguiente, cacheTime));
+    }
+
+    /**
+     * Clave del usuario en el dispatcher para el modo inline, aparte de la de su chat. Los ids
+     * de Telegram no pasan de 2^53 en valor absoluto, así que corridos a Long.MIN_VALUE no
+     * chocan con ningún chat.
+     */
+    static long clave(long usuario) {
+        return Long.MIN_VALUE + usuario;
+    }
+
+    private static InlineQueryResultArticle articulo(String id, HechoDTO h) {
+        String titulo = h.titulo() != null && !h.titulo().isBlank() ? h.titulo() : "(sin título)";
+        List<String> detalle = new ArrayList<>(3);
+        if (h.categoria() != null) detalle.add(h.categoria());
+        if (h.ubicacion() != null) detalle.add(h.ubicacion());
+        if (h.fecha() != null) detalle.add(h.fecha().toString());
+
+        return InlineQueryResultArticle.builder()
+                .id(id)
+                .title(recortar(titulo, MAX_TITULO))
+                .description(recortar(String.join(" · ", detalle), MAX_DESCRIPCION))
+                .inputMessageContent(InputTextMessageContent.builder()
+                        .messageText(HechoRenderer.articulo(h))
+                        .parseMode(Formato.HTML.parseMode())
+                        .build())
+                .build();
+    }
+
+    private static AnswerInlineQuery respuesta(InlineQuery q, List<InlineQueryResult> resultados,
+                                               String siguiente, int cacheTime) {
+        AnswerInlineQuery a = new AnswerInlineQuery();
+        a.setInlineQueryId(q.getId());
+        a.setResults(resultados);
+        a.setNextOffset(siguiente);
+        a.setCacheTime(cacheTime);
+        // Los resultados no dependen de quién pregunta: Telegram los puede reusar para todos
+        a.setIsPersonal(false);
+        return a;
+    }
+
+    private static String recortar(String s, int max) {
+        return s.length() <= max ? s : s.substring(0, max - 1) + "…";
+    }
+
+    /** Palabras de la consulta como keyword; la primera "#palabra" es el tag. */
+    record Consulta(String keyword, String tag, int page) {
+
+        static Consulta de(InlineQuery q) {
+            int page = 0;
+            String offset = q.getOffset();
+            if (offset != null && !offset.isEmpty()) {
+                try {
+                    page = Integer.parseInt(offset);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return parsear(q.getQuery(), page);
+        }
+
+        static Consulta parsear(String texto, int page) {
+            Argumentos args = Argumentos.de(texto);
+            StringBuilder keyword = new StringBuilder();
+            // Como en /buscar, también vale tag: "X"
+            String tag = args.valor("tag");
+            for (int i = 0; i < args.posicionales(); i++) {
+                String palabra = args.posicional(i);
+                if (tag == null && palabra.length() > 1 && palabra.charAt(0) == '#') {
+                    tag = palabra.substring(1);
+                    continue;
+                }
+                if (keyword.length() > 0) keyword.append(' ');
+                keyword.append(palabra);
+            }
+            return new Consulta(keyword.toString(), tag, page);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
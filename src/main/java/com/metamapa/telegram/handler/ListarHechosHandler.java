@@ -1,113 +1,378 @@
 package com.metamapa.telegram.handler;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.cache.TtlLruCache;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendNoDisponibleException;
+import com.metamapa.telegram.clients.RespuestaValidada;
+import com.metamapa.telegram.geo.IndiceGeo;
+import com.metamapa.telegram.util.Argumentos;
+import com.metamapa.telegram.util.BotKeyboardUtil;
+import com.metamapa.telegram.render.Formato;
+import com.metamapa.telegram.render.HechoRenderer;
+import com.metamapa.telegram.render.MessageComposer;
+import com.metamapa.telegram.search.Autocompletado;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriUtils;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
-import java.time.LocalDate;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * /hechos &lt;idColeccion&gt;: lista los hechos de una colección.
+ *
+ * La respuesta del backend se lee con un parser de streaming, hecho por hecho, así el uso de
+ * memoria no depende del tamaño de la colección. Hay dos modos (metamapa.hechos.modo):
+ * "completo" manda la lista partida en mensajes de hasta 4096 caracteres (con un tope de
+ * mensajes) y "paginado" muestra una página por vez con botones ◀ / ▶.
+ *
+ * Los listados se guardan ya decodificados junto con su ETag / Last-Modified: la próxima vez
+ * se piden con If-None-Match / If-Modified-Since y, si la colección no cambió, el backend
+ * contesta 304 sin cuerpo y se usa la copia (ir a otra página no vuelve a bajar la lista).
+ * En el peor caso la cache tiene max-entries × max-hechos HechoDTO en memoria (con los valores
+ * por defecto, 20 × 2000: del orden de 40 MB con ~1 KB por hecho).
+ */
 @Component
 public class ListarHechosHandler implements BotCommandHandler {
 
-    private final RestTemplate restTemplate;
-    private final String API_BASE_URL = "https://two025-tp-entrega-2-zoedominguez-bsuh.onrender.com/colecciones/";
+    private static final String CALLBACK = "HECHOS|";
+    private static final int MAX_CALLBACK_BYTES = 64;
+    // Lugar que se deja al final de una página para "Página N de M (T hechos)."
+    private static final int RESERVA_PIE = 64;
 
-    @Autowired
-    public ListarHechosHandler(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    private final BackendClient backend;
+    private final Autocompletado autocompletado;
+    private final IndiceGeo geo;
+    private final boolean paginado;
+    private final int pageSize;
+    private final int maxMensajes;
+    // Copias de los listados para revalidar con GET condicional (null = sin cache)
+    private final TtlLruCache<String, RespuestaValidada<List<HechoDTO>>> cache;
+    private final int maxHechosCache;
+    private final AtomicLong revalidados = new AtomicLong();
+    private final AtomicLong descargados = new AtomicLong();
+
+    public ListarHechosHandler(BackendClient backend, Autocompletado autocompletado, IndiceGeo geo,
+                               @Value("${metamapa.hechos.modo:completo}") String modo,
+                               @Value("${metamapa.hechos.page-size:10}") int pageSize,
+                               @Value("${metamapa.hechos.max-mensajes:5}") int maxMensajes,
+                               @Value("${metamapa.hechos.cache.max-entries:20}") int cacheEntries,
+                               @Value("${metamapa.hechos.cache.ttl:30m}") Duration cacheTtl,
+                               @Value("${metamapa.hechos.cache.max-hechos:2000}") int maxHechosCache) {
+        this.backend = backend;
+        this.autocompletado = autocompletado;
+        this.geo = geo;
+        this.paginado = "paginado".equalsIgnoreCase(modo);
+        this.pageSize = Math.max(1, pageSize);
+        this.maxMensajes = Math.max(1, maxMensajes);
+        this.cache = cacheEntries > 0 ? new TtlLruCache<>(cacheEntries, cacheTtl.toMillis(), TimeUnit.MILLISECONDS) : null;
+        this.maxHechosCache = maxHechosCache;
+    }
+
+    @Override
+    public Set<String> commands() {
+        return Set.of("/hechos");
     }
 
     @Override
-    public boolean canHandle(String command) {
-        return command != null && command.startsWith("/hechos");
+    public Set<String> callbackPrefixes() {
+        return Set.of(CALLBACK);
+    }
+
+    @Override
+    public Set<String> coalescingCallbackPrefixes() {
+        return Set.of(CALLBACK);
     }
 
     @Override
     public SendMessage handle(Update update) {
-        final String messageTextReceived = update.getMessage().getText();
-        Long chatId = update.getMessage().getChatId();
-        SendMessage message = new SendMessage();
-        message.setChatId(chatId.toString());
+        return null;
+    }
+
+    @Override
+    public List<BotApiMethod<?>> handleBatch(Update update) {
+        if (update.hasCallbackQuery()) {
+            return handleCallback(update);
+        }
 
-        String responseText;
-        String coleccionId = "";
+        String chatId = update.getMessage().getChatId().toString();
 
+        // Todo lo que sigue a "/hechos" (o "/hechos@bot") es el ID, aunque tenga espacios
+        String coleccionId = Argumentos.del(update.getMessage().getText()).resto();
+        if (coleccionId == null) {
+            return texto(chatId, "Por favor, especifica un ID (nombre) de colección. Ejemplo: /hechos miColeccion");
+        }
+
+        try {
+            return paginado
+                    ? List.of(pagina(chatId, coleccionId, 0, null))
+                    : completo(chatId, coleccionId);
+        } catch (Exception e) {
+            return texto(chatId, mensajeDeError(e, coleccionId));
+        }
+    }
+
+    // callback_data: HECHOS|<idColeccion>|<página>
+    private List<BotApiMethod<?>> handleCallback(Update update) {
+        String data = update.getCallbackQuery().getData();
+        String chatId = update.getCallbackQuery().getMessage().getChatId().toString();
+        Integer messageId = update.getCallbackQuery().getMessage().getMessageId();
+
+        int sep = data.lastIndexOf('|');
+        if (sep <= CALLBACK.length()) {
+            return List.of();
+        }
+        String coleccionId = data.substring(CALLBACK.length(), sep);
+        int page;
         try {
-            final String commandPrefix = "/hechos "; 
-
-        if (messageTextReceived.startsWith(commandPrefix)) {
-            
-            coleccionId = messageTextReceived.substring(commandPrefix.length()).trim();
-
-            if (coleccionId.isEmpty()) {
-                responseText = "Por favor, especifica un ID (nombre) de colección. Ejemplo: /hechos miColeccion";
-            } else {
-                
-                String url = API_BASE_URL + coleccionId + "/hechos";
-                HechoDTO[] hechosArray = restTemplate.getForObject(url, HechoDTO[].class);
-
-                if (hechosArray == null || hechosArray.length == 0) {
-                    responseText = "No se encontraron hechos para la colección: '" + coleccionId + "'.";
-                } else {
-                    List<HechoDTO> hechos = Arrays.asList(hechosArray);
-                    StringBuilder sb = new StringBuilder("Hechos para '" + coleccionId + "':\n\n");
-
-                    for (HechoDTO hecho : hechos) {
-                        
-                        sb.append("• Título: ").append(hecho.titulo()).append("\n");
-
-                        if (hecho.etiquetas() != null){
-                            sb.append("• Etiqueta: ").append(hecho.etiquetas()).append("\n");
-                        }
-                        if (hecho.categoria() != null){
-                            sb.append("• Categoría: ").append(hecho.categoria()).append("\n");
-                        }
-                        if (hecho.ubicacion() != null){
-                            sb.append("• Ubicación: ").append(hecho.ubicacion()).append("\n");
-                        }
-                        if (hecho.fecha() != null)
-                        {
-                            sb.append("• Fecha: ").append(hecho.fecha()).append("\n");
-                        }
-                        if (hecho.origen() != null)
-                        {
-                            sb.append("• Origen: ").append(hecho.origen()).append("\n");
-                        }
-                            
-                        sb.append("\n");
-
-                    }
-                    responseText = sb.toString();
+            page = Integer.parseInt(data.substring(sep + 1));
+        } catch (NumberFormatException e) {
+            return List.of();
+        }
+
+        try {
+            return List.of(pagina(chatId, coleccionId, page, messageId));
+        } catch (Exception e) {
+            return texto(chatId, mensajeDeError(e, coleccionId));
+        }
+    }
+
+    /** Modo completo: todos los hechos, en mensajes de hasta 4096 caracteres y como mucho maxMensajes. */
+    private List<BotApiMethod<?>> completo(String chatId, String coleccionId) {
+        int[] cuenta = new int[2]; // [total, mostrados]
+        List<String> textos;
+
+        try (MessageComposer c = MessageComposer.de(Formato.TEXTO)) {
+            recorrer(coleccionId, hecho -> {
+                if (cuenta[0] == 0) c.texto("Hechos para '" + coleccionId + "':\n\n").fin();
+                cuenta[0]++;
+
+                // Llegado el tope de mensajes, el resto solo se cuenta (sin deserializar)
+                if (cuenta[0] - 1 > cuenta[1] || c.emitidos() >= maxMensajes) {
+                    hecho.saltear();
+                    return;
                 }
+                mostrar(c, hecho.leer());
+                cuenta[1]++;
+            });
+            textos = new ArrayList<>(c.partes());
+        }
+
+        if (cuenta[0] == 0) {
+            return texto(chatId, "No se encontraron hechos para la colección: '" + coleccionId + "'.");
+        }
+        // El último bloque pudo haber abierto un mensaje de más: ese hecho queda para las páginas
+        while (textos.size() > maxMensajes) {
+            textos.remove(textos.size() - 1);
+            cuenta[1]--;
+        }
+
+        List<BotApiMethod<?>> mensajes = new ArrayList<>();
+        for (String t : textos) mensajes.add(new SendMessage(chatId, t));
+
+        int restantes = cuenta[0] - cuenta[1];
+        if (restantes > 0) {
+            SendMessage resto = new SendMessage(chatId, "… y " + restantes + " hechos más.");
+            String prefijo = callbackPrefix(coleccionId);
+            if (prefijo != null) {
+                int totalPages = (cuenta[0] + pageSize - 1) / pageSize;
+                // Solo el botón ▶, a la página del primer hecho que no se mostró
+                resto.setReplyMarkup(BotKeyboardUtil.pagination(prefijo, cuenta[1] / pageSize - 1, totalPages, false));
+                resto.setText(resto.getText() + " Podés recorrerlos por páginas:");
             }
+            mensajes.add(resto);
+        }
+        return mensajes;
+    }
+
+    /** Modo paginado: deserializa solo los hechos de la página; los demás se saltean y se cuentan. */
+    private BotApiMethod<?> pagina(String chatId, String coleccionId, int page, Integer messageIdToEdit) {
+        int desde = page * pageSize;
+        int hasta = desde + pageSize;
 
-        } else if (messageTextReceived.equals("/hechos")) {
-            responseText = "Por favor, especifica un ID (nombre) de colección. Ejemplo: /hechos miColeccion";
-        
+        String texto;
+        int total;
+        try (MessageComposer c = MessageComposer.de(Formato.TEXTO, MessageComposer.TELEGRAM_MAX - RESERVA_PIE)) {
+            c.texto("Hechos para '" + coleccionId + "' (página " + (page + 1) + "):").linea().linea().fin();
+            int[] idx = new int[1];
+            recorrer(coleccionId, hecho -> {
+                int i = idx[0]++;
+                if (i < desde || i >= hasta) {
+                    hecho.saltear();
+                    return;
+                }
+                mostrar(c, hecho.leer());
+            });
+            total = idx[0];
+            texto = total > desde ? c.unMensaje() : null;
+        }
+
+        int totalPages = Math.max(1, (total + pageSize - 1) / pageSize);
+        if (total == 0) {
+            texto = "No se encontraron hechos para la colección: '" + coleccionId + "'.";
+        } else if (texto == null) {
+            texto = "No hay más hechos para la colección: '" + coleccionId + "'.";
         } else {
-            responseText = "Comando no válido. Usa: /hechos <idColeccion>";
+            // El total recién se sabe al terminar de leer; el pie entra en el lugar reservado
+            texto = texto.stripTrailing() + "\n\nPágina " + (page + 1) + " de " + totalPages + " (" + total + " hechos).";
+        }
+
+        String prefijo = callbackPrefix(coleccionId);
+        var kb = prefijo != null && total > 0 ? BotKeyboardUtil.pagination(prefijo, page, totalPages) : null;
+
+        if (messageIdToEdit != null) {
+            EditMessageText edit = new EditMessageText();
+            edit.setChatId(chatId);
+            edit.setMessageId(messageIdToEdit);
+            edit.setText(texto);
+            edit.setReplyMarkup(kb);
+            return edit;
         }
-    
-    } catch (HttpClientErrorException.NotFound e) {
-        responseText = "Error: No se encontró una colección con el ID: '" + coleccionId + "'.";
-    } catch (RestClientException e) {
-        responseText = "Error de conexión: No se pudo contactar al servidor de colecciones.";
-        e.printStackTrace(); 
-    } catch (Exception e) {
-       
-        responseText = "Ocurrió un error inesperado al procesar tu solicitud.";
-        e.printStackTrace();
+        SendMessage msg = new SendMessage(chatId, texto);
+        msg.setReplyMarkup(kb);
+        return msg;
+    }
+
+    // Los hechos que se muestran alimentan las sugerencias de /buscar y el índice de /cerca
+    private void mostrar(MessageComposer c, HechoDTO h) {
+        HechoRenderer.itemListado(c, h);
+        autocompletado.aprender(h);
+        geo.aprender(h);
+    }
+
+    /** El hecho actual del recorrido: se lee o se saltea (en el stream, saltearlo evita deserializarlo). */
+    private interface Hecho {
+        HechoDTO leer() throws IOException;
+
+        void saltear() throws IOException;
     }
 
-    message.setText(responseText);
-    return message;
+    private interface AlLeerHecho {
+        void leer(Hecho hecho) throws IOException;
+    }
+
+    // Un hecho que ya está decodificado (de la copia guardada)
+    private record Decodificado(HechoDTO hecho) implements Hecho {
+        public HechoDTO leer() {
+            return hecho;
+        }
+
+        public void saltear() {
+        }
+    }
+
+    /**
+     * Recorre los hechos de la colección. Si hay una copia guardada con ETag / Last-Modified se
+     * revalida con un GET condicional y ante un 304 se recorre la copia sin bajar nada; si no,
+     * se lee el stream y (si la colección no es demasiado grande) se guarda lo leído.
+     */
+    private void recorrer(String coleccionId, AlLeerHecho alLeer) {
+        String path = path(coleccionId);
+        RespuestaValidada<List<HechoDTO>> previa = cache != null ? cache.get(path) : null;
+        RespuestaValidada<List<HechoDTO>> resp = backend.streamCondicional(Backend.COLECCIONES, path, previa,
+                (in, revalidable) -> leerStream(in, revalidable, alLeer));
+
+        if (resp == previa) {
+            revalidados.incrementAndGet();
+            try {
+                for (HechoDTO h : previa.valor()) alLeer.leer(new Decodificado(h));
+            } catch (IOException e) {
+                throw new RestClientException("Error recorriendo la copia de '" + coleccionId + "'", e);
+            }
+            return;
+        }
+        descargados.incrementAndGet();
+        if (cache != null) {
+            if (resp.valor() != null && resp.revalidable()) cache.put(path, resp);
+            else cache.invalidate(path);
+        }
+    }
+
+    // Recorre el array de hechos del stream; devuelve la copia decodificada, o null si no se guarda.
+    // Sin ETag ni Last-Modified no se copia nada: no se podría revalidar y en el modo paginado
+    // se deserializarían hechos que se iban a saltear
+    private List<HechoDTO> leerStream(InputStream in, boolean revalidable, AlLeerHecho alLeer) throws IOException {
+        List<HechoDTO> copia = cache != null && revalidable ? new ArrayList<>() : null;
+        try (JsonParser parser = backend.mapper().getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RestClientException("La respuesta de colecciones no es una lista de hechos");
+            }
+            Hecho enStream = new Hecho() {
+                public HechoDTO leer() throws IOException {
+                    return parser.readValueAs(HechoDTO.class);
+                }
+
+                public void saltear() throws IOException {
+                    parser.skipChildren();
+                }
+            };
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                // Pasado el tope se deja de copiar: el resto vuelve a leerse o saltearse a pedido
+                if (copia != null && copia.size() >= maxHechosCache) copia = null;
+                if (copia == null) {
+                    alLeer.leer(enStream);
+                    continue;
+                }
+                HechoDTO h = parser.readValueAs(HechoDTO.class);
+                copia.add(h);
+                alLeer.leer(new Decodificado(h));
+            }
+        }
+        return copia;
+    }
+
+    // null si el ID es tan largo que el callback_data no entra en los 64 bytes de Telegram
+    private static String callbackPrefix(String coleccionId) {
+        String prefijo = CALLBACK + coleccionId + "|";
+        return prefijo.getBytes(StandardCharsets.UTF_8).length + 6 <= MAX_CALLBACK_BYTES ? prefijo : null;
+    }
+
+    private static String path(String coleccionId) {
+        return "/" + UriUtils.encodePathSegment(coleccionId, StandardCharsets.UTF_8) + "/hechos";
+    }
+
+    /** Listados respondidos con la copia guardada (304 del backend). */
+    public long getCacheHits() {
+        return revalidados.get();
+    }
+
+    public long getCacheMisses() {
+        return descargados.get();
+    }
+
+    private static List<BotApiMethod<?>> texto(String chatId, String texto) {
+        return List.of(new SendMessage(chatId, texto));
+    }
+
+    private static String mensajeDeError(Exception e, String coleccionId) {
+        if (e instanceof BackendNoDisponibleException) {
+            return e.getMessage();
+        }
+        if (e instanceof HttpClientErrorException.NotFound) {
+            return "Error: No se encontró una colección con el ID: '" + coleccionId + "'.";
+        }
+        System.err.println("❌ /hechos de '" + coleccionId + "': " + e);
+        if (e instanceof RestClientException) {
+            return "Error de conexión: No se pudo contactar al servidor de colecciones.";
+        }
+        return "Ocurrió un error inesperado al procesar tu solicitud.";
     }
-}
\ No newline at end of file
+}
@@ -1,82 +1,44 @@
 package com.metamapa.telegram.handler;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.metamapa.telegram.DTO.NuevaSolicitudDTO;
+import com.metamapa.telegram.DTO.SolicitudDTO;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendNoDisponibleException;
+import com.metamapa.telegram.clients.BackendRequest;
+import com.metamapa.telegram.util.Argumentos;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
-import java.net.URI;
-import java.net.http.*;
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
-import java.util.Arrays;
+import java.util.Set;
 
 @Component
 public class SolicitarBorradoHandler implements BotCommandHandler {
 
-    private static final HttpClient HTTP = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    private final BackendClient backend;
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
-
-
-    private HttpResponse<String> sendWithRetry(HttpRequest req) throws Exception {
-        int attempts = 0;
-        int maxAttempts = 3;
-        long backoffMs = 800; // 0.8s → 1.6s → 3.2s
-
-        while (true) {
-            attempts++;
-            try {
-                HttpRequest withTimeout = HttpRequest.newBuilder(req.uri())
-                        .timeout(Duration.ofSeconds(25)) // <-- antes tenías 10s
-                        .method(req.method(), req.bodyPublisher().orElse(HttpRequest.BodyPublishers.noBody()))
-                        .headers(req.headers().map().entrySet().stream()
-                                .flatMap(e -> e.getValue().stream().map(v -> new String[]{e.getKey(), v}))
-                                .flatMap(Arrays::stream) // flatten pairs
-                                .toArray(String[]::new))
-                        .build();
-
-                return HTTP.send(withTimeout, HttpResponse.BodyHandlers.ofString());
-
-            } catch (java.net.http.HttpTimeoutException te) {
-                if (attempts >= maxAttempts) throw te;
-                Thread.sleep(backoffMs);
-                backoffMs *= 2;
-            }
-        }
+    public SolicitarBorradoHandler(BackendClient backend) {
+        this.backend = backend;
     }
 
-
-    private final String baseUrl =
-            System.getenv().getOrDefault("SOLICITUDES_BASE_URL",
-                    "https://solicitudes-tpdds.onrender.com/solicitudes");
-    private final HttpClient http =
-            HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
-
     @Override
-    public boolean canHandle(String command) {
-        if (command == null) return false;
-        String token = command.trim().split("\\s+")[0].toLowerCase();
-        int at = token.indexOf('@');
-        if (at > 0) token = token.substring(0, at);
-        return token.equals("/solicitar_borrado") || token.equals("/solicitud_borrado");
+    public Set<String> commands() {
+        return Set.of("/solicitar_borrado", "/solicitud_borrado");
     }
 
     @Override
     public SendMessage handle(Update update) {
         var chatId = update.getMessage().getChatId().toString();
-        var text   = update.getMessage().getText().trim();
+        var args   = Argumentos.del(update.getMessage().getText());
 
-        var parts = text.split("\\s+");
-        if (parts.length < 3) {
+        var hechoId = args.posicional(0);
+        var descripcion = args.restoDespues(0);
+        if (hechoId == null || descripcion == null) {
             return new SendMessage(chatId,
                     "Uso: /solicitar_borrado <hechoId> <descripcion (≥500 caracteres)>");
         }
-        var hechoId = parts[1];
-        var descripcion = text.substring(text.indexOf(hechoId) + hechoId.length()).trim();
 
         if (descripcion.length() < 500) {
             return new SendMessage(chatId,
@@ -84,29 +46,19 @@ public class SolicitarBorradoHandler implements BotCommandHandler {
         }
 
         try {
-            String json = String.format(
-                    "{\"descripcion\":\"%s\",\"estado\":\"CREADA\",\"hecho_id\":\"%s\"}",
-                    descripcion.replace("\"","\\\""),
-                    hechoId
-            );
-
-            var req = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl)) // POST /solicitudes
-                    .header("Content-Type","application/json")
-                    .timeout(Duration.ofSeconds(10))
-                    .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
-                    .build();
-
-            var resp = sendWithRetry(req);
-            int status = resp.statusCode();
-            String body = resp.body();
+            var nueva = new NuevaSolicitudDTO(descripcion, "CREADA", hechoId);
+            var req = BackendRequest.post(Backend.SOLICITUDES, "", nueva); // POST /solicitudes
+
+            var resp = backend.send(req);
+            int status = resp.status();
+            String body = resp.bodyAsString();
 
             if (status == 200 || status == 201) {
-                JsonNode node = MAPPER.readTree(body);
+                SolicitudDTO creada = backend.decode(resp, SolicitudDTO.class);
 
-                String id = node.path("id").asText("¿sin id?");
-                String estado = node.path("estado").asText("DESCONOCIDO");
-                String hechoResp = node.path("hechoId").asText(hechoId);
+                String id = creada != null && creada.id() != null ? creada.id() : "¿sin id?";
+                String estado = creada != null && creada.estado() != null ? creada.estado() : "DESCONOCIDO";
+                String hechoResp = creada != null && creada.hechoId() != null ? creada.hechoId() : hechoId;
 
                 String msg = "📨 Solicitud creada con éxito.\n\n"
                         + "📝 ID: " + id + "\n"
@@ -123,6 +75,8 @@ public class SolicitarBorradoHandler implements BotCommandHandler {
                 return new SendMessage(chatId, msg);
             }
 
+        } catch (BackendNoDisponibleException e) {
+            return new SendMessage(chatId, e.getMessage());
         } catch (Exception e) {
             return new SendMessage(chatId,
                     "❗ Error al crear la solicitud: " + e.getMessage());
@@ -131,7 +85,7 @@ public class SolicitarBorradoHandler implements BotCommandHandler {
 
     private String extraerMensajeError(String body) {
         try {
-            JsonNode node = MAPPER.readTree(body);
+            JsonNode node = backend.mapper().readTree(body);
             if (node.has("error")) {
                 return node.get("error").asText();
             }
@@ -1,50 +1,51 @@
 package com.metamapa.telegram.handler;
 
-import io.github.cdimascio.dotenv.Dotenv;
-import org.springframework.http.ResponseEntity;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.metamapa.telegram.DTO.HechoDetalleDTO;
+import com.metamapa.telegram.DTO.PdiDTO;
+import com.metamapa.telegram.cache.TtlLruCache;
+import com.metamapa.telegram.render.HechoRenderer;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.geo.IndiceGeo;
+import com.metamapa.telegram.util.Argumentos;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriUtils;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class VerHechoHandler implements BotCommandHandler {
 
-    private final RestTemplate rest;
-    private final String baseUrl;
-    private static final DateTimeFormatter MOMENTO_FMT =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final TypeReference<List<PdiDTO>> PDIS_TYPE = new TypeReference<>() {};
 
+    private final BackendClient backend;
+    private final IndiceGeo geo;
+    private final TtlLruCache<String, Detalle> detalles;
 
-    private static final int MAX_MESSAGE_LENGTH = 3500;
-
-    public VerHechoHandler(RestTemplate rest) {
-        this.rest = rest;
-
-        Dotenv dotenv = Dotenv.configure()
-                .ignoreIfMissing()
-                .systemProperties()
-                .load();
-
-        String url = dotenv.get("FUENTES_API_URL");
-        if (url == null || url.isBlank()) {
-            throw new IllegalStateException("Falta variable FUENTES_API_URL en .env o entorno");
-        }
-        this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    public VerHechoHandler(BackendClient backend, IndiceGeo geo,
+                           @Value("${metamapa.hecho.cache.max-entries:200}") int maxEntries,
+                           @Value("${metamapa.hecho.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.backend = backend;
+        this.geo = geo;
+        this.detalles = new TtlLruCache<>(maxEntries, ttlSeconds, TimeUnit.SECONDS);
     }
 
     @Override
-    public boolean canHandle(String command) {
-        return command != null && command.trim().toLowerCase().startsWith("/hecho ");
+    public Set<String> commands() {
+        return Set.of("/hecho");
     }
 
 
@@ -55,168 +56,116 @@ public class VerHechoHandler implements BotCommandHandler {
 
 
     @Override
-    @SuppressWarnings("unchecked")
     public List<BotApiMethod<?>> handleBatch(Update u) {
         Long chatId = u.getMessage().getChatId();
-        List<BotApiMethod<?>> mensajes = new ArrayList<>();
         
-        String[] parts = u.getMessage().getText().trim().split("\\s+");
-        if (parts.length < 2) {
-            mensajes.add(new SendMessage(chatId.toString(), "Uso: /hecho <id>"));
-            return mensajes;
+        String id = Argumentos.del(u.getMessage().getText()).posicional(0);
+        if (id == null) {
+            return List.of(new SendMessage(chatId.toString(), "Uso: /hecho <id>"));
+        }
+
+        try {
+            Detalle detalle = detalles.get(id);
+            if (detalle == null) {
+                detalle = cargarDetalle(id);
+                if (detalle.cacheable()) detalles.put(id, detalle);
+            }
+            return detalle.mensajes(chatId.toString());
+
+        } catch (Exception e) {
+            return List.of(new SendMessage(chatId.toString(),
+                    "Error al obtener el hecho " + id + ": " + e.getMessage()));
         }
+    }
 
-        String id = parts[1].trim();
+    // Pide el hecho y sus PDIs en paralelo y arma las partes del mensaje
+    private Detalle cargarDetalle(String id) {
+        String path = "/hecho/" + UriUtils.encodePathSegment(id, StandardCharsets.UTF_8);
+        CompletableFuture<HechoDetalleDTO> hechoF = backend.getAsync(Backend.FUENTES, path, HechoDetalleDTO.class);
+        CompletableFuture<List<PdiDTO>> pdisF = backend.getAsync(Backend.FUENTES, path + "/pdis", PDIS_TYPE);
 
+        HechoDetalleDTO h;
         try {
+            h = hechoF.join();
+        } catch (CompletionException e) {
+            pdisF.cancel(false);
+            throw unwrap(e);
+        }
 
-            Map<String, Object> h = (Map<String, Object>) (Map<?, ?>)
-                    rest.getForObject(baseUrl + "/hecho/" + id, Map.class);
+        List<Parte> partes = new ArrayList<>();
+        if (h == null) {
+            pdisF.cancel(false);
+            partes.add(new Parte("No encontré el hecho " + id + ".", false));
+            return new Detalle(partes, false);
+        }
 
-            if (h == null || h.isEmpty()) {
-                mensajes.add(new SendMessage(chatId.toString(), "No encontré el hecho " + id + "."));
-                return mensajes;
-            }
+        for (String texto : HechoRenderer.encabezado(h, id)) {
+            partes.add(new Parte(texto, true));
+        }
+        int cantEncabezado = partes.size();
 
-            String titulo = s(h.get("titulo"), "(sin título)");
-            String nombreColeccion = s(h.get("nombreColeccion"), null);
-            String categoria = s(h.get("categoria"), null);
-            String ubicacion = s(h.get("ubicacion"), null);
-            String fecha = s(h.get("fecha"), null);
-            String origen = s(h.get("origen"), null);
-
-
-            StringBuilder sbHeader = new StringBuilder();
-            sbHeader.append("<b>").append(esc(titulo)).append("</b>\n");
-            sbHeader.append("ID: ").append(esc(s(h.get("id"), id))).append("\n");
-            if (nombreColeccion != null) sbHeader.append("Colección: ").append(esc(nombreColeccion)).append("\n");
-            if (categoria != null)       sbHeader.append("Categoría: ").append(esc(categoria)).append("\n");
-            if (ubicacion != null)       sbHeader.append("Ubicación: ").append(esc(ubicacion)).append("\n");
-            if (fecha != null)           sbHeader.append("Fecha: ").append(esc(fecha)).append("\n");
-            if (origen != null)          sbHeader.append("Origen: ").append(esc(origen)).append("\n");
-
-            SendMessage msgHeader = new SendMessage(chatId.toString(), sbHeader.toString());
-            msgHeader.setParseMode("HTML");
-            mensajes.add(msgHeader);
-
-            boolean pdisOk = false;
-            try {
-                ResponseEntity<List> r = rest.getForEntity(baseUrl + "/hecho/" + id + "/pdis", List.class);
-                List<Map<String, Object>> pdis = (List<Map<String, Object>>) (List<?>) r.getBody();
-
-                if (pdis != null && !pdis.isEmpty()) {
-                    pdisOk = true;
-                    
-
-                    StringBuilder sbPdis = new StringBuilder();
-                    sbPdis.append("\n<b>PDIs (").append(pdis.size()).append("):</b>\n");
-
-                    int n = 1;
-                    for (Map<String, Object> p : pdis) {
-                        StringBuilder unPdi = new StringBuilder();
-                        
-                        String pdiId     = s(p.get("id"), "-");
-                        String descr     = s(p.get("descripcion"), "(sin descripción)");
-                        String lugar     = s(p.get("lugar"), null);
-                        Object momento   = p.get("momento");
-                        String urlImagen = s(p.get("url_imagen"), null);
-                        String textoImagen = s(p.get("texto_imagen"), null);
-                        Object etiquetas = p.get("etiquetas");
-
-                        unPdi.append(n++).append(". ").append(esc(descr)).append("\n");
-                        unPdi.append("   ID: ").append(esc(pdiId)).append("\n");
-                        if (lugar != null)   unPdi.append("   Lugar: ").append(esc(lugar)).append("\n");
-                        if (momento != null) unPdi.append("   Momento: ").append(esc(formatMomento(momento))).append("\n");
-
-                        if (textoImagen != null && !textoImagen.isBlank()) {
-                            unPdi.append("   📝 ").append(esc(textoImagen)).append("\n");
-                        }
-
-                        if (etiquetas instanceof List<?> list && !list.isEmpty()) {
-                            unPdi.append("   🏷️ Etiquetas: ");
-                            unPdi.append(esc(String.join(", ", list.stream().map(Object::toString).toList()))).append("\n");
-                        }
-
-                        if (urlImagen != null && looksLikeUrl(urlImagen)) {
-                            unPdi.append(urlImagen).append("\n");
-                        }
-                        unPdi.append("\n");
-
-                        // Si agregar este PDI supera el límite, enviamos lo que tenemos y empezamos otro mensaje
-                        if (sbPdis.length() + unPdi.length() > MAX_MESSAGE_LENGTH) {
-                            SendMessage msgChunk = new SendMessage(chatId.toString(), sbPdis.toString());
-                            msgChunk.setParseMode("HTML");
-                            msgChunk.setDisableWebPagePreview(false);
-                            mensajes.add(msgChunk);
-
-                            // Reiniciamos buffer
-                            sbPdis = new StringBuilder("(continuación PDIs...)\n\n");
-                        }
-                        
-                        // Agregamos el PDI al buffer actual
-                        sbPdis.append(unPdi);
-                    }
-
-                    // Al terminar el loop, si quedó algo en el buffer, lo agregamos
-                    if (sbPdis.length() > 0) {
-                        SendMessage msgFinal = new SendMessage(chatId.toString(), sbPdis.toString());
-                        msgFinal.setParseMode("HTML");
-                        msgFinal.setDisableWebPagePreview(false);
-                        mensajes.add(msgFinal);
-                    }
+        boolean pdisOk = false;
+        boolean completo = true;
+        try {
+            List<PdiDTO> pdis = pdisF.join();
+            geo.aprender(h, pdis);
+
+            if (pdis != null && !pdis.isEmpty()) {
+                pdisOk = true;
+                for (String texto : HechoRenderer.pdis(pdis)) {
+                    partes.add(new Parte(texto, true, true));
                 }
-            } catch (HttpStatusCodeException e) {
-                mensajes.add(new SendMessage(chatId.toString(), "\n⚠️ No se pudieron cargar los puntos de interés (Información no disponible)."));
-            } catch (ResourceAccessException e) {
-                mensajes.add(new SendMessage(chatId.toString(), "\n⚠️ El servicio de PDIs está tardando demasiado en responder."));
-            } catch (Exception e) {
-                mensajes.add(new SendMessage(chatId.toString(), "\n⚠️ Ocurrió un problema al consultar los detalles adicionales."));
             }
-
-            if (!pdisOk && mensajes.size() == 1) {
-                SendMessage msgNoPdis = new SendMessage(chatId.toString(), "\n<b>PDIs:</b> (no hay)");
-                msgNoPdis.setParseMode("HTML");
-                mensajes.add(msgNoPdis);
+        } catch (CompletionException ce) {
+            geo.aprender(h, null);
+            completo = false;
+            Throwable e = ce.getCause();
+            if (e instanceof HttpStatusCodeException) {
+                partes.add(new Parte("\n⚠️ No se pudieron cargar los puntos de interés (Información no disponible).", false));
+            } else if (e instanceof ResourceAccessException) {
+                partes.add(new Parte("\n⚠️ El servicio de PDIs está tardando demasiado en responder.", false));
+            } else {
+                partes.add(new Parte("\n⚠️ Ocurrió un problema al consultar los detalles adicionales.", false));
             }
+        }
 
-            return mensajes;
-
-        } catch (Exception e) {
-            return List.of(new SendMessage(chatId.toString(),
-                    "Error al obtener el hecho " + id + ": " + e.getMessage()));
+        if (!pdisOk && partes.size() == cantEncabezado) {
+            partes.add(new Parte("\n<b>PDIs:</b> (no hay)", true));
         }
+
+        // Solo se cachea el detalle completo: si fallaron los PDIs se reintenta la próxima vez
+        return new Detalle(partes, completo);
     }
 
-    // helpers 
+    private static RuntimeException unwrap(CompletionException e) {
+        return e.getCause() instanceof RuntimeException re ? re : e;
+    }
 
-    private static String s(Object o, String def) { return o == null ? def : String.valueOf(o); }
+    public long getCacheHits() {
+        return detalles.getHits();
+    }
 
-    private static String esc(String s) {
-        if (s == null) return "";
-        return s.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;");
+    public long getCacheMisses() {
+        return detalles.getMisses();
     }
 
-    private static String formatMomento(Object momento) {
-        try {
-            if (momento instanceof List<?> list && list.size() >= 5) {
-                int year = (int) list.get(0);
-                int month = (int) list.get(1);
-                int day = (int) list.get(2);
-                int hour = (int) list.get(3);
-                int minute = (int) list.get(4);
-                LocalDateTime ldt = LocalDateTime.of(year, month, day, hour, minute);
-                return MOMENTO_FMT.format(ldt);
-            }
-            return String.valueOf(momento);
-        } catch (Exception e) {
-            return String.valueOf(momento);
+    // Texto ya renderizado; se arma el SendMessage recién al responder porque depende del chat
+    private record Parte(String texto, boolean html, boolean conPreview) {
+        Parte(String texto, boolean html) {
+            this(texto, html, false);
         }
     }
 
-    private static boolean looksLikeUrl(String s) {
-        String l = s == null ? "" : s.trim().toLowerCase();
-        return l.startsWith("http://") || l.startsWith("https://");
+    private record Detalle(List<Parte> partes, boolean cacheable) {
+        List<BotApiMethod<?>> mensajes(String chatId) {
+            List<BotApiMethod<?>> mensajes = new ArrayList<>(partes.size());
+            for (Parte p : partes) {
+                SendMessage msg = new SendMessage(chatId, p.texto());
+                if (p.html()) msg.setParseMode("HTML");
+                if (p.conPreview()) msg.setDisableWebPagePreview(false);
+                mensajes.add(msg);
+            }
+            return mensajes;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.metamapa.telegram.importacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de CSV (RFC 4180) registro por registro: campos entre comillas con separadores,
+ * saltos de línea y comillas dobladas ("") adentro. No carga el archivo entero.
+ */
+final class CsvParser {
+
+    // Un registro más largo que esto es casi seguro una comilla sin cerrar
+    private static final int MAX_REGISTRO = 64 * 1024;
+
+    private final Reader in;
+    private final char separador;
+    private final StringBuilder campo = new StringBuilder();
+    private int linea = 1;
+    private int lineaRegistro;
+    private int pendiente = -2; // carácter leído de más (-2 = ninguno)
+
+    CsvParser(Reader in, char separador) {
+        this.in = in;
+        this.separador = separador;
+    }
+
+    /** Línea del archivo donde empezó el último registro leído. */
+    int lineaRegistro() {
+        return lineaRegistro;
+    }
+
+    /** Siguiente registro, o null al final del archivo. Las líneas vacías se saltean. */
+    List<String> siguiente() throws IOException {
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        lineaRegistro = linea;
+        boolean comillas = false;
+        boolean leyoAlgo = false;
+        int largo = 0;
+
+        while (true) {
+            int c = leer();
+            if (c == -1) {
+                if (comillas) throw new IOException("comilla sin cerrar en el registro de la línea " + lineaRegistro);
+                if (!leyoAlgo) return null;
+                campos.add(campo.toString());
+                return campos;
+            }
+            if (++largo > MAX_REGISTRO) {
+                throw new IOException("el registro de la línea " + lineaRegistro + " es demasiado largo");
+            }
+
+            if (comillas) {
+                if (c == '"') {
+                    int sig = leer();
+                    if (sig == '"') {
+                        campo.append('"');
+                    } else {
+                        comillas = false;
+                        pendiente = sig;
+                    }
+                } else {
+                    if (c == '\n') linea++;
+                    campo.append((char) c);
+                }
+                continue;
+            }
+
+            if (c == '\r') continue;
+            if (c == '\n') {
+                linea++;
+                if (!leyoAlgo) {
+                    lineaRegistro = linea;
+                    continue;
+                }
+                campos.add(campo.toString());
+                return campos;
+            }
+
+            leyoAlgo = true;
+            if (c == '"' && campo.isEmpty()) {
+                comillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append((char) c);
+            }
+        }
+    }
+
+    private int leer() throws IOException {
+        if (pendiente != -2) {
+            int c = pendiente;
+            pendiente = -2;
+            return c;
+        }
+        return in.read();
+    }
+}
@@ -0,0 +1,181 @@
+package com.metamapa.telegram.importacion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.metamapa.telegram.DTO.NuevoHechoDTO;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lee los hechos de un archivo subido a /importar_hechos, fila por fila y sin cargarlo entero.
+ *
+ * CSV: separado por coma o punto y coma (se detecta en la primera línea). Si la primera fila
+ * nombra las columnas (coleccion, titulo, categoria, ubicacion, fecha, origen) se respeta ese
+ * orden; si no, se toman en ese orden fijo, como los argumentos de /agregar_hecho.
+ * JSONL: un objeto por línea con los mismos campos (nombre_coleccion o coleccion).
+ */
+public final class LectorHechos implements Closeable {
+
+    public enum FormatoArchivo { CSV, JSONL }
+
+    /** Una fila del archivo: el hecho a mandar, o el motivo por el que no se puede. */
+    public record Fila(int numero, NuevoHechoDTO hecho, String error) { }
+
+    private static final String[] COLUMNAS = {"coleccion", "titulo", "categoria", "ubicacion", "fecha", "origen"};
+
+    private final BufferedReader reader;
+    private final FormatoArchivo formato;
+    private final ObjectReader json;
+    private CsvParser csv;
+    private int[] columnas; // columnas[i] = posición en el CSV del campo COLUMNAS[i], o -1
+    private int linea;
+
+    private LectorHechos(InputStream in, FormatoArchivo formato, ObjectReader json) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.formato = formato;
+        this.json = json;
+    }
+
+    /** json tiene que leer {@link NuevoHechoDTO} (ej: BackendClient.reader(NuevoHechoDTO.class)). */
+    public static LectorHechos de(InputStream in, FormatoArchivo formato, ObjectReader json) {
+        return new LectorHechos(in, formato, json);
+    }
+
+    /** Formato según el nombre o el tipo MIME del documento, o null si no es ninguno de los soportados. */
+    public static FormatoArchivo detectar(String nombre, String mime) {
+        String n = nombre == null ? "" : nombre.toLowerCase(Locale.ROOT);
+        String m = mime == null ? "" : mime.toLowerCase(Locale.ROOT);
+        if (n.endsWith(".csv") || m.equals("text/csv") || m.equals("text/comma-separated-values")) {
+            return FormatoArchivo.CSV;
+        }
+        if (n.endsWith(".jsonl") || n.endsWith(".ndjson") || n.endsWith(".json")
+                || m.contains("ndjson") || m.contains("jsonl") || m.equals("application/json")) {
+            return FormatoArchivo.JSONL;
+        }
+        return null;
+    }
+
+    /** Siguiente fila con datos, o null al final del archivo. */
+    public Fila siguiente() throws IOException {
+        return formato == FormatoArchivo.CSV ? siguienteCsv() : siguienteJson();
+    }
+
+    private Fila siguienteJson() throws IOException {
+        String l;
+        do {
+            l = reader.readLine();
+            if (l == null) return null;
+            linea++;
+            if (linea == 1) l = sinBom(l);
+        } while (l.isBlank());
+
+        try {
+            NuevoHechoDTO h = json.readValue(l);
+            return fila(linea, h == null ? null : normalizar(h.nombreColeccion(), h.titulo(), h.categoria(),
+                    h.ubicacion(), h.fecha(), h.origen()));
+        } catch (JsonProcessingException e) {
+            return new Fila(linea, null, "JSON inválido (" + e.getOriginalMessage() + ")");
+        }
+    }
+
+    private Fila siguienteCsv() throws IOException {
+        if (csv == null) {
+            csv = new CsvParser(reader, detectarSeparador());
+            List<String> primera = csv.siguiente();
+            if (primera == null) return null;
+            columnas = encabezado(primera);
+            if (columnas == null) {
+                columnas = new int[]{0, 1, 2, 3, 4, 5};
+                return filaCsv(primera);
+            }
+        }
+        List<String> campos = csv.siguiente();
+        return campos == null ? null : filaCsv(campos);
+    }
+
+    private Fila filaCsv(List<String> campos) {
+        String[] v = new String[COLUMNAS.length];
+        for (int i = 0; i < v.length; i++) {
+            int pos = columnas[i];
+            v[i] = pos >= 0 && pos < campos.size() ? campos.get(pos) : null;
+        }
+        return fila(csv.lineaRegistro(), normalizar(v[0], v[1], v[2], v[3], v[4], v[5]));
+    }
+
+    private static Fila fila(int numero, NuevoHechoDTO h) {
+        if (h == null) return new Fila(numero, null, "fila vacía");
+        String error = h.validar();
+        return error != null ? new Fila(numero, null, error) : new Fila(numero, h, null);
+    }
+
+    // Mira la primera línea sin consumirla: gana el separador que más aparece
+    private char detectarSeparador() throws IOException {
+        reader.mark(8192);
+        char[] buf = new char[8192];
+        int n = reader.read(buf, 0, buf.length);
+        reader.reset();
+        if (n > 0 && buf[0] == '\uFEFF') reader.skip(1);
+
+        int comas = 0, puntoYComa = 0;
+        for (int i = 0; i < n && buf[i] != '\n'; i++) {
+            if (buf[i] == ',') comas++;
+            else if (buf[i] == ';') puntoYComa++;
+        }
+        return puntoYComa > comas ? ';' : ',';
+    }
+
+    // null si la fila no parece un encabezado (ninguna celda es un nombre de columna conocido)
+    private static int[] encabezado(List<String> celdas) {
+        int[] pos = {-1, -1, -1, -1, -1, -1};
+        boolean alguna = false;
+        for (int c = 0; c < celdas.size(); c++) {
+            String nombre = clave(celdas.get(c));
+            if (nombre.equals("nombre_coleccion") || nombre.equals("nombrecoleccion")) nombre = "coleccion";
+            for (int i = 0; i < COLUMNAS.length; i++) {
+                if (COLUMNAS[i].equals(nombre) && pos[i] < 0) {
+                    pos[i] = c;
+                    alguna = true;
+                }
+            }
+        }
+        return alguna ? pos : null;
+    }
+
+    // "Colección " -> "coleccion"
+    private static String clave(String s) {
+        String sinTildes = Normalizer.normalize(s.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+
+    private static NuevoHechoDTO normalizar(String coleccion, String titulo, String categoria,
+                                            String ubicacion, String fecha, String origen) {
+        if (nz(coleccion) == null && nz(titulo) == null && nz(categoria) == null
+                && nz(ubicacion) == null && nz(fecha) == null && nz(origen) == null) {
+            return null;
+        }
+        return new NuevoHechoDTO(nz(coleccion), nz(titulo), nz(categoria), nz(ubicacion), nz(fecha), nz(origen));
+    }
+
+    private static String nz(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+
+    private static String sinBom(String s) {
+        return !s.isEmpty() && s.charAt(0) == '\uFEFF' ? s.substring(1) : s;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
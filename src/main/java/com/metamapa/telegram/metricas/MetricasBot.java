@@ -0,0 +1,135 @@
+package com.metamapa.telegram.metricas;
+
+import com.metamapa.telegram.bot.MetaMapaBot;
+import com.metamapa.telegram.bot.TelegramSender;
+import com.metamapa.telegram.bot.UpdateDeduplicator;
+import com.metamapa.telegram.bot.UpdateDispatcher;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendResilience;
+import com.metamapa.telegram.clients.BackendStats;
+import com.metamapa.telegram.clients.SingleFlight;
+import com.metamapa.telegram.geo.IndiceGeo;
+import com.metamapa.telegram.handler.ListarHechosHandler;
+import com.metamapa.telegram.handler.VerHechoHandler;
+import com.metamapa.telegram.outbox.Outbox;
+import com.metamapa.telegram.search.Autocompletado;
+import com.metamapa.telegram.search.IndiceLocal;
+import com.metamapa.telegram.service.BusquedaService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publica en Micrometer los contadores que ya llevan los componentes (colas, caches,
+ * resiliencia de los backends, outbox, etc.). No agrega trabajo en el camino de los updates:
+ * Prometheus lee los getters recién cuando hace el scrape de /actuator/prometheus.
+ * Los timers de comandos, backends y Telegram los registran MetaMapaBot, BackendClient y
+ * TelegramSender.
+ */
+@Component
+public class MetricasBot {
+
+    private final MeterRegistry registry;
+    private final MetaMapaBot bot;
+    private final UpdateDispatcher dispatcher;
+    private final TelegramSender sender;
+    private final UpdateDeduplicator dedup;
+    private final BackendClient backend;
+    private final BusquedaService busqueda;
+    private final VerHechoHandler verHecho;
+    private final ListarHechosHandler listarHechos;
+    private final Outbox outbox;
+    private final IndiceLocal indice;
+    private final Autocompletado autocompletado;
+    private final IndiceGeo geo;
+
+    public MetricasBot(MeterRegistry registry, MetaMapaBot bot, UpdateDispatcher dispatcher, TelegramSender sender,
+                       UpdateDeduplicator dedup, BackendClient backend, BusquedaService busqueda,
+                       VerHechoHandler verHecho, ListarHechosHandler listarHechos, Outbox outbox,
+                       IndiceLocal indice, Autocompletado autocompletado, IndiceGeo geo) {
+        this.registry = registry;
+        this.bot = bot;
+        this.dispatcher = dispatcher;
+        this.sender = sender;
+        this.dedup = dedup;
+        this.backend = backend;
+        this.busqueda = busqueda;
+        this.verHecho = verHecho;
+        this.listarHechos = listarHechos;
+        this.outbox = outbox;
+        this.indice = indice;
+        this.autocompletado = autocompletado;
+        this.geo = geo;
+    }
+
+    @PostConstruct
+    void registrar() {
+        // Updates
+        gauge("metamapa.dispatcher.cola", "Updates esperando un worker", dispatcher, UpdateDispatcher::getQueueDepth);
+        gauge("metamapa.dispatcher.en.vuelo", "Updates que se están atendiendo", dispatcher, UpdateDispatcher::getInFlight);
+        gauge("metamapa.dispatcher.chats.activos", "Chats con updates pendientes", dispatcher, UpdateDispatcher::getActiveChats);
+        contador("metamapa.dispatcher.rechazados", "Updates rechazados por cola llena", dispatcher, UpdateDispatcher::getRejected);
+        contador("metamapa.updates.duplicados", "Updates repetidos descartados", dedup, UpdateDeduplicator::getDuplicados);
+        contador("metamapa.callbacks.coalescidos", "Toques de navegación reemplazados por uno posterior",
+                bot, MetaMapaBot::getCallbacksCoalescidos);
+
+        // Telegram
+        gauge("metamapa.telegram.cola", "Mensajes encolados o en vuelo", sender, TelegramSender::getQueueDepth);
+        gauge("metamapa.telegram.en.vuelo", "Llamadas a la Bot API en vuelo", sender, TelegramSender::getInFlight);
+        contador("metamapa.telegram.enviados", "Mensajes enviados", sender, TelegramSender::getSent);
+        contador("metamapa.telegram.fallidos", "Mensajes que no se pudieron enviar", sender, TelegramSender::getFailed);
+        contador("metamapa.telegram.limitados", "Respuestas 429 de Telegram", sender, TelegramSender::getRateLimited);
+
+        // Backends
+        for (Backend b : Backend.values()) {
+            Tags t = Tags.of("backend", b.key());
+            BackendStats stats = backend.stats(b);
+            BackendResilience r = backend.resilience(b);
+            SingleFlight<?, ?> sf = backend.singleFlight(b);
+            Gauge.builder("metamapa.backend.en.vuelo", stats, BackendStats::getInFlight).tags(t).register(registry);
+            Gauge.builder("metamapa.backend.timeout", r, BackendResilience::getTimeoutMillis)
+                    .description("Timeout adaptativo actual").baseUnit("milliseconds").tags(t).register(registry);
+            FunctionCounter.builder("metamapa.backend.reintentos", r, BackendResilience::getReintentos).tags(t).register(registry);
+            FunctionCounter.builder("metamapa.backend.rechazados", r, BackendResilience::getRechazados)
+                    .description("Pedidos cortados por el circuit breaker").tags(t).register(registry);
+            FunctionCounter.builder("metamapa.backend.sin.presupuesto", r, BackendResilience::getSinPresupuesto)
+                    .description("Reintentos descartados por falta de presupuesto").tags(t).register(registry);
+            FunctionCounter.builder("metamapa.backend.singleflight.pedidos", sf, SingleFlight::getPedidos).tags(t).register(registry);
+            FunctionCounter.builder("metamapa.backend.singleflight.compartidos", sf, SingleFlight::getCompartidos)
+                    .description("GET que se sumaron a una llamada ya en vuelo").tags(t).register(registry);
+        }
+
+        // Caches: aciertos / (aciertos + fallos) se calcula en Prometheus
+        cache("busqueda", busqueda, BusquedaService::getCacheHits, BusquedaService::getCacheMisses);
+        cache("hecho", verHecho, VerHechoHandler::getCacheHits, VerHechoHandler::getCacheMisses);
+        cache("hechos-listado", listarHechos, ListarHechosHandler::getCacheHits, ListarHechosHandler::getCacheMisses);
+
+        // Outbox e índices locales
+        gauge("metamapa.outbox.pendientes", "Altas guardadas que todavía no llegaron al backend", outbox, Outbox::getPendientes);
+        contador("metamapa.outbox.aceptados", "Altas guardadas en el outbox", outbox, Outbox::getAceptados);
+        contador("metamapa.outbox.entregados", "Altas reenviadas con éxito", outbox, Outbox::getEntregados);
+        contador("metamapa.outbox.rechazados", "Altas que el backend rechazó al reenviarlas", outbox, Outbox::getRechazados);
+        gauge("metamapa.indice.hechos", "Hechos en el índice local de búsqueda", indice, IndiceLocal::getHechos);
+        gauge("metamapa.autocompletado.terminos", "Textos conocidos para sugerir", autocompletado, Autocompletado::getTerminos);
+        gauge("metamapa.geo.puntos", "Hechos y PDIs ubicados para /cerca", geo, IndiceGeo::getPuntos);
+    }
+
+    private <T> void gauge(String nombre, String descripcion, T obj, ToDoubleFunction<T> f) {
+        Gauge.builder(nombre, obj, f).description(descripcion).register(registry);
+    }
+
+    private <T> void contador(String nombre, String descripcion, T obj, ToDoubleFunction<T> f) {
+        FunctionCounter.builder(nombre, obj, f).description(descripcion).register(registry);
+    }
+
+    private <T> void cache(String cache, T obj, ToDoubleFunction<T> aciertos, ToDoubleFunction<T> fallos) {
+        FunctionCounter.builder("metamapa.cache.aciertos", obj, aciertos).tag("cache", cache).register(registry);
+        FunctionCounter.builder("metamapa.cache.fallos", obj, fallos).tag("cache", cache).register(registry);
+    }
+}
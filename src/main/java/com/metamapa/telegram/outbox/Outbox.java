@@ -0,0 +1,303 @@
+package com.metamapa.telegram.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.metamapa.telegram.DTO.HechoDetalleDTO;
+import com.metamapa.telegram.DTO.PdiDTO;
+import com.metamapa.telegram.bot.TelegramSender;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendNoDisponibleException;
+import com.metamapa.telegram.clients.BackendReadiness;
+import com.metamapa.telegram.clients.BackendRequest;
+import com.metamapa.telegram.clients.BackendResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind para las altas de hechos y PDIs (metamapa.outbox.enabled).
+ *
+ * Si fuentes está dormido o caído, el handler guarda el pedido en un journal en disco
+ * ({@link OutboxJournal}) y le contesta al usuario enseguida con un número provisorio.
+ * Un drainer reenvía los pendientes en orden, de a lotes, cuando el backend vuelve a
+ * responder, y le avisa a cada usuario el ID definitivo (o el error del backend).
+ *
+ * La entrega es "al menos una vez": si el proceso se cae después del POST y antes de
+ * anotar el fin, el pedido se vuelve a mandar al arrancar.
+ */
+@Component
+public class Outbox {
+
+    public enum Tipo {
+        HECHO("/hecho"),
+        PDI("/pdis");
+
+        private final String path;
+
+        Tipo(String path) {
+            this.path = path;
+        }
+    }
+
+    private record Pendiente(Registro alta, CompletableFuture<Void> guardado) { }
+
+    private final BackendClient backend;
+    private final BackendReadiness readiness;
+    private final TelegramSender sender;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration intervalo;
+    private final int lote;
+    private final long frioMillis;
+
+    private final ConcurrentSkipListMap<Long, Pendiente> pendientes = new ConcurrentSkipListMap<>();
+    private final Object lock = new Object();
+    private long ultimoSeq;
+    private OutboxJournal journal;
+    private ScheduledExecutorService drainer;
+
+    private final AtomicLong aceptados = new AtomicLong();
+    private final AtomicLong entregados = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+
+    public Outbox(BackendClient backend, TelegramSender sender,
+                  @Value("${metamapa.outbox.enabled:false}") boolean enabled,
+                  @Value("${metamapa.outbox.path:data/outbox.jsonl}") String path,
+                  @Value("${metamapa.outbox.drain-interval:20s}") Duration intervalo,
+                  @Value("${metamapa.outbox.lote:10}") int lote,
+                  @Value("${metamapa.outbox.frio-despues-de:14m}") Duration frioDespuesDe) {
+        this.backend = backend;
+        this.readiness = backend.readiness();
+        this.sender = sender;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.intervalo = intervalo;
+        this.lote = Math.max(1, lote);
+        this.frioMillis = frioDespuesDe.toMillis();
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        if (!enabled) return;
+
+        SortedMap<Long, Registro> leidos = new TreeMap<>();
+        journal = OutboxJournal.abrir(path, backend.mapper(), leidos);
+        CompletableFuture<Void> yaGuardado = CompletableFuture.completedFuture(null);
+        leidos.forEach((seq, r) -> pendientes.put(seq, new Pendiente(r, yaGuardado)));
+        ultimoSeq = leidos.isEmpty() ? 0 : leidos.lastKey();
+
+        drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "outbox-drainer");
+            t.setDaemon(true);
+            return t;
+        });
+        drainer.scheduleWithFixedDelay(this::drenar, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        System.out.println("📝 Outbox activo en " + path.toAbsolutePath() + " (" + leidos.size() + " pendientes)");
+    }
+
+    public boolean activo() {
+        return journal != null;
+    }
+
+    /**
+     * true si conviene guardar el pedido en el outbox sin probar el backend: ya hay pendientes
+     * (se respeta el orden), el backend no está LISTO o hace rato que no responde (Render lo durmió).
+     */
+    public boolean diferir(Tipo tipo) {
+        if (!activo()) return false;
+        if (!pendientes.isEmpty()) return true;
+        if (readiness.estado(Backend.FUENTES) != BackendReadiness.Estado.LISTO) return true;
+        return System.currentTimeMillis() - readiness.getUltimoContacto(Backend.FUENTES) > frioMillis;
+    }
+
+    /**
+     * Por qué quedó guardado, para el aviso al usuario: solo se habla de "despertar" si el
+     * backend está arrancando; si se cayó o hay pendientes adelante, no.
+     */
+    public String motivoDiferido() {
+        return readiness.despertando(Backend.FUENTES)
+                ? "El servidor está despertando"
+                : "El servidor no está disponible ahora";
+    }
+
+    /** true si el pedido falló sin llegar al backend, así que se puede guardar y reenviar sin duplicarlo. */
+    public static boolean noLlego(Throwable e) {
+        if (e instanceof BackendNoDisponibleException) return true;
+        return e instanceof ResourceAccessException
+                && (e.getCause() instanceof ConnectException || e.getCause() instanceof HttpConnectTimeoutException);
+    }
+
+    /**
+     * Guarda el pedido en el journal (espera el fsync) y devuelve su número provisorio.
+     *
+     * @throws IllegalStateException si el outbox está apagado o no se pudo escribir
+     */
+    public long encolar(Tipo tipo, long chatId, Object cuerpo) {
+        if (!activo()) throw new IllegalStateException("El outbox no está activo");
+
+        long seq;
+        Pendiente p;
+        // Bajo el lock: el orden en la cola del journal es el de los números
+        synchronized (lock) {
+            seq = ++ultimoSeq;
+            Registro alta = Registro.alta(seq, tipo, chatId, backend.mapper().valueToTree(cuerpo));
+            p = new Pendiente(alta, journal.append(List.of(alta)));
+            pendientes.put(seq, p);
+        }
+        try {
+            p.guardado().get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            pendientes.remove(seq);
+            throw new IllegalStateException("No se pudo guardar el pedido en el outbox", e);
+        }
+        aceptados.incrementAndGet();
+        try {
+            drainer.execute(this::drenar);
+        } catch (Exception e) {
+            // apagando: queda en el journal para el próximo arranque
+        }
+        return seq;
+    }
+
+    // Corre solo en el hilo "outbox-drainer"
+    private void drenar() {
+        try {
+            while (drenarLote()) {
+                // sigue mientras el backend acepte y queden pendientes
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Outbox: error reenviando pendientes: " + e);
+        }
+    }
+
+    // Manda hasta "lote" pendientes en orden; devuelve true si conviene seguir con el próximo lote
+    private boolean drenarLote() throws Exception {
+        List<Pendiente> terminados = new ArrayList<>();
+        List<Registro> fines = new ArrayList<>();
+        boolean cortar = false;
+
+        for (Pendiente p : pendientes.values()) {
+            if (fines.size() >= lote) break;
+            // Uno que todavía se está escribiendo (o falló) frena a los que vienen atrás
+            if (!p.guardado().isDone() || p.guardado().isCompletedExceptionally()) {
+                cortar = true;
+                break;
+            }
+            Registro alta = p.alta();
+            BackendResponse resp;
+            try {
+                resp = backend.send(BackendRequest.post(Backend.FUENTES, alta.tipo().path, alta.cuerpo()));
+            } catch (RuntimeException e) {
+                cortar = true;
+                break;
+            }
+            if (resp.status() == 429 || resp.status() >= 500) {
+                cortar = true;
+                break;
+            }
+            fines.add(resp.is2xx()
+                    ? alta.fin(idCreado(alta.tipo(), resp), null)
+                    : alta.fin(null, "el servidor respondió " + resp.status()));
+            terminados.add(p);
+        }
+        if (fines.isEmpty()) return false;
+
+        // Primero el fin en disco, después el aviso: si se corta acá, se reenvía (no se pierde)
+        journal.append(fines).get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < fines.size(); i++) {
+            pendientes.remove(fines.get(i).seq());
+            avisar(terminados.get(i).alta(), fines.get(i));
+        }
+        synchronized (lock) {
+            if (pendientes.isEmpty()) journal.vaciar();
+        }
+        return !cortar && !pendientes.isEmpty();
+    }
+
+    private String idCreado(Tipo tipo, BackendResponse resp) {
+        try {
+            String id = switch (tipo) {
+                case HECHO -> {
+                    HechoDetalleDTO h = backend.decode(resp, HechoDetalleDTO.class);
+                    yield h != null ? h.id() : null;
+                }
+                case PDI -> {
+                    PdiDTO p = backend.decode(resp, PdiDTO.class);
+                    yield p != null ? p.id() : null;
+                }
+            };
+            return id != null ? id : "?";
+        } catch (RuntimeException e) {
+            return "?";
+        }
+    }
+
+    private void avisar(Registro alta, Registro fin) {
+        JsonNode c = alta.cuerpo();
+        String que = alta.tipo() == Tipo.HECHO
+                ? "el hecho \"" + c.path("titulo").asText() + "\""
+                : "el PDI \"" + c.path("descripcion").asText() + "\" del hecho " + c.path("hecho_id").asText();
+        String texto;
+        if (fin.error() == null) {
+            entregados.incrementAndGet();
+            texto = "✅ Ya se guardó " + que + " (pendiente #" + alta.seq() + ").\nID: " + fin.id();
+        } else {
+            rechazados.incrementAndGet();
+            texto = "❌ No se pudo guardar " + que + " (pendiente #" + alta.seq() + "): " + fin.error() + ".";
+        }
+        sender.enviar(alta.chatId(), new SendMessage(String.valueOf(alta.chatId()), texto));
+    }
+
+    /** Pedidos guardados que todavía no llegaron al backend. */
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    public long getAceptados() {
+        return aceptados.get();
+    }
+
+    public long getEntregados() {
+        return entregados.get();
+    }
+
+    /** Pedidos que el backend rechazó con un 4xx al reenviarlos. */
+    public long getRechazados() {
+        return rechazados.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!activo()) return;
+        drainer.shutdown();
+        try {
+            drainer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("❌ Outbox: error cerrando el journal: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.metamapa.telegram.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archivo append-only (una línea JSON por {@link Registro}) donde el outbox guarda los pedidos.
+ *
+ * Las escrituras las hace un único hilo: junta todo lo que se encoló mientras escribía el
+ * lote anterior, lo escribe y hace un solo fsync para el lote entero (group commit). El future
+ * de cada escritura se completa recién después del fsync.
+ */
+final class OutboxJournal implements AutoCloseable {
+
+    private static final int MAX_LOTE = 256;
+
+    private final Path path;
+    private final ObjectWriter writer;
+    private final FileChannel channel;
+    private final BlockingQueue<Escritura> cola = new LinkedBlockingQueue<>();
+    private final Thread hilo;
+    private volatile boolean cerrado;
+
+    private record Escritura(byte[] bytes, CompletableFuture<Void> hecho) { }
+
+    private OutboxJournal(Path path, ObjectWriter writer) throws IOException {
+        this.path = path;
+        this.writer = writer;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.hilo = new Thread(this::escribir, "outbox-journal");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Abre el journal: devuelve en orden las altas que no tienen fin y reescribe el archivo
+     * solo con ellas. Una última línea cortada (se cayó el proceso a mitad de una escritura)
+     * se descarta.
+     */
+    static OutboxJournal abrir(Path path, ObjectMapper mapper, SortedMap<Long, Registro> pendientes)
+            throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        SortedMap<Long, Registro> leidos = leer(path, mapper.readerFor(Registro.class));
+        compactar(path, mapper.writerFor(Registro.class), leidos.values());
+        pendientes.putAll(leidos);
+        return new OutboxJournal(path, mapper.writerFor(Registro.class));
+    }
+
+    static SortedMap<Long, Registro> leer(Path path, ObjectReader reader) throws IOException {
+        SortedMap<Long, Registro> altas = new TreeMap<>();
+        if (!Files.exists(path)) return altas;
+        try (BufferedReader r = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = r.readLine()) != null) {
+                if (linea.isBlank()) continue;
+                Registro reg;
+                try {
+                    reg = reader.readValue(linea);
+                } catch (JsonProcessingException e) {
+                    System.err.println("⚠️ Outbox: línea inválida en " + path + ", se descarta: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (Registro.ALTA.equals(reg.op())) altas.put(reg.seq(), reg);
+                else if (Registro.FIN.equals(reg.op())) altas.remove(reg.seq());
+            }
+        }
+        return altas;
+    }
+
+    // Escribe un archivo nuevo y lo reemplaza de una vez (el viejo queda intacto si algo falla)
+    private static void compactar(Path path, ObjectWriter writer, Collection<Registro> vigentes) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Registro r : vigentes) ch.write(ByteBuffer.wrap(linea(writer, r)));
+            ch.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Encola registros para escribirlos juntos; el future se completa cuando están en disco. */
+    CompletableFuture<Void> append(List<Registro> registros) {
+        CompletableFuture<Void> hecho = new CompletableFuture<>();
+        if (cerrado) {
+            hecho.completeExceptionally(new IOException("El journal del outbox está cerrado"));
+            return hecho;
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256 * registros.size());
+            for (Registro r : registros) out.write(linea(writer, r));
+            cola.add(new Escritura(out.toByteArray(), hecho));
+        } catch (IOException e) {
+            hecho.completeExceptionally(e);
+        }
+        return hecho;
+    }
+
+    /** Si el journal ya no tiene nada pendiente, lo deja vacío para que no crezca sin límite. */
+    CompletableFuture<Void> vaciar() {
+        CompletableFuture<Void> hecho = new CompletableFuture<>();
+        cola.add(new Escritura(null, hecho));
+        return hecho;
+    }
+
+    private static byte[] linea(ObjectWriter writer, Registro r) throws JsonProcessingException {
+        byte[] json = writer.writeValueAsBytes(r);
+        byte[] conSalto = new byte[json.length + 1];
+        System.arraycopy(json, 0, conSalto, 0, json.length);
+        conSalto[json.length] = '\n';
+        return conSalto;
+    }
+
+    private void escribir() {
+        List<Escritura> lote = new ArrayList<>();
+        while (true) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            cola.drainTo(lote, MAX_LOTE - 1);
+            try {
+                for (Escritura e : lote) {
+                    if (e.bytes() == null) {
+                        channel.truncate(0);
+                    } else {
+                        ByteBuffer buf = ByteBuffer.wrap(e.bytes());
+                        while (buf.hasRemaining()) channel.write(buf);
+                    }
+                }
+                channel.force(false);
+                for (Escritura e : lote) e.hecho().complete(null);
+            } catch (IOException ex) {
+                System.err.println("❌ Outbox: no se pudo escribir " + path + ": " + ex.getMessage());
+                for (Escritura e : lote) e.hecho().completeExceptionally(ex);
+            }
+            lote.clear();
+        }
+        // Cerrando: lo que quedó en la cola no se escribió
+        List<Escritura> resto = new ArrayList<>();
+        cola.drainTo(resto);
+        for (Escritura e : resto) e.hecho().completeExceptionally(new IOException("El journal del outbox se cerró"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        cerrado = true;
+        // Se espera a que termine lo encolado antes de cortar el hilo
+        try {
+            vaciarCola();
+        } finally {
+            hilo.interrupt();
+            channel.close();
+        }
+    }
+
+    private void vaciarCola() {
+        CompletableFuture<Void> ultimo = new CompletableFuture<>();
+        cola.add(new Escritura(new byte[0], ultimo));
+        try {
+            ultimo.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // Si no llegó a escribir, las altas sin fin se reenvían al volver a arrancar
+        }
+    }
+}
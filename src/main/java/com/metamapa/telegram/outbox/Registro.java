@@ -0,0 +1,24 @@
+package com.metamapa.telegram.outbox;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Una línea del journal. "alta" guarda un pedido aceptado; "fin" lo da por terminado
+ * (con el id creado o con el error que devolvió el backend).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record Registro(String op, long seq, Outbox.Tipo tipo, Long chatId, JsonNode cuerpo,
+                String id, String error, long ts) {
+
+    static final String ALTA = "alta";
+    static final String FIN = "fin";
+
+    static Registro alta(long seq, Outbox.Tipo tipo, long chatId, JsonNode cuerpo) {
+        return new Registro(ALTA, seq, tipo, chatId, cuerpo, null, null, System.currentTimeMillis());
+    }
+
+    Registro fin(String id, String error) {
+        return new Registro(FIN, seq, null, null, null, id, error, System.currentTimeMillis());
+    }
+}
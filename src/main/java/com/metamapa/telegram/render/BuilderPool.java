@@ -0,0 +1,31 @@
+package com.metamapa.telegram.render;
+
+import java.util.ArrayDeque;
+
+/**
+ * StringBuilders reusables por hilo para no crear (y hacer crecer) uno nuevo por mensaje.
+ * Los builders que crecieron demasiado no vuelven al pool.
+ */
+final class BuilderPool {
+
+    private static final int MAX_POR_HILO = 4;
+    private static final int MAX_CAPACIDAD = 64 * 1024;
+
+    private static final ThreadLocal<ArrayDeque<StringBuilder>> POOL =
+            ThreadLocal.withInitial(() -> new ArrayDeque<>(MAX_POR_HILO));
+
+    private BuilderPool() { }
+
+    static StringBuilder tomar() {
+        StringBuilder sb = POOL.get().pollFirst();
+        return sb != null ? sb : new StringBuilder(1024);
+    }
+
+    static void devolver(StringBuilder sb) {
+        if (sb.capacity() > MAX_CAPACIDAD) return;
+        ArrayDeque<StringBuilder> pool = POOL.get();
+        if (pool.size() >= MAX_POR_HILO) return;
+        sb.setLength(0);
+        pool.addFirst(sb);
+    }
+}
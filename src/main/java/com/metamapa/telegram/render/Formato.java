@@ -0,0 +1,107 @@
+package com.metamapa.telegram.render;
+
+/**
+ * Modo de parseo de Telegram para el que se arma el texto. Cada formato sabe escapar
+ * texto del usuario (en una sola pasada, directo sobre el builder) y abrir/cerrar entidades.
+ */
+public enum Formato {
+
+    TEXTO(null),
+    HTML("HTML"),
+    MARKDOWN_V2("MarkdownV2");
+
+    private final String parseMode;
+
+    Formato(String parseMode) {
+        this.parseMode = parseMode;
+    }
+
+    /** Valor para setParseMode (null = texto plano). */
+    public String parseMode() {
+        return parseMode;
+    }
+
+    public void escapar(CharSequence s, StringBuilder out) {
+        if (s == null) return;
+        switch (this) {
+            case HTML -> {
+                // Se copian de a tramos los caracteres que no hace falta escapar
+                int desde = 0;
+                for (int i = 0, n = s.length(); i < n; i++) {
+                    String esc = switch (s.charAt(i)) {
+                        case '&' -> "&amp;";
+                        case '<' -> "&lt;";
+                        case '>' -> "&gt;";
+                        case '"' -> "&quot;";
+                        default -> null;
+                    };
+                    if (esc == null) continue;
+                    out.append(s, desde, i).append(esc);
+                    desde = i + 1;
+                }
+                out.append(s, desde, s.length());
+            }
+            case MARKDOWN_V2 -> {
+                int desde = 0;
+                for (int i = 0, n = s.length(); i < n; i++) {
+                    char c = s.charAt(i);
+                    if (!especialMarkdown(c)) continue;
+                    out.append(s, desde, i).append('\\').append(c);
+                    desde = i + 1;
+                }
+                out.append(s, desde, s.length());
+            }
+            default -> out.append(s);
+        }
+    }
+
+    // Dentro de `código` y de la URL de un link MarkdownV2 solo se escapan ` \ y )
+    void escaparCodigo(CharSequence s, StringBuilder out, char extra) {
+        if (this != MARKDOWN_V2) {
+            escapar(s, out);
+            return;
+        }
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '\\' || c == extra) out.append('\\');
+            out.append(c);
+        }
+    }
+
+    String abrir(Entidad e) {
+        return switch (this) {
+            case HTML -> switch (e) {
+                case NEGRITA -> "<b>";
+                case CURSIVA -> "<i>";
+                case CODIGO -> "<code>";
+            };
+            case MARKDOWN_V2 -> switch (e) {
+                case NEGRITA -> "*";
+                case CURSIVA -> "_";
+                case CODIGO -> "`";
+            };
+            default -> "";
+        };
+    }
+
+    String cerrar(Entidad e) {
+        return switch (this) {
+            case HTML -> switch (e) {
+                case NEGRITA -> "</b>";
+                case CURSIVA -> "</i>";
+                case CODIGO -> "</code>";
+            };
+            case MARKDOWN_V2 -> abrir(e);
+            default -> "";
+        };
+    }
+
+    private static boolean especialMarkdown(char c) {
+        return switch (c) {
+            case '_', '*', '[', ']', '(', ')', '~', '`', '>', '#', '+', '-', '=', '|', '{', '}', '.', '!', '\\' -> true;
+            default -> false;
+        };
+    }
+
+    enum Entidad { NEGRITA, CURSIVA, CODIGO }
+}
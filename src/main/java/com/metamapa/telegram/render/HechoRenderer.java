@@ -0,0 +1,110 @@
+package com.metamapa.telegram.render;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.HechoDetalleDTO;
+import com.metamapa.telegram.DTO.Momento;
+import com.metamapa.telegram.DTO.PdiDTO;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Cómo se muestran hechos y PDIs en los mensajes del bot. Cada hecho o PDI es un bloque
+ * del {@link MessageComposer}, así nunca queda partido entre dos mensajes.
+ */
+public final class HechoRenderer {
+
+    private static final DateTimeFormatter MOMENTO_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private HechoRenderer() { }
+
+    /** Encabezado de /hecho (HTML). idPedido se muestra si el backend no devolvió el id. */
+    public static List<String> encabezado(HechoDetalleDTO h, String idPedido) {
+        try (MessageComposer c = MessageComposer.de(Formato.HTML)) {
+            c.negrita(h.titulo() != null ? h.titulo() : "(sin título)").linea();
+            campo(c, "ID: ", h.id() != null ? h.id() : idPedido);
+            campo(c, "Colección: ", h.nombreColeccion());
+            campo(c, "Categoría: ", h.categoria());
+            campo(c, "Ubicación: ", h.ubicacion());
+            campo(c, "Fecha: ", h.fecha());
+            campo(c, "Origen: ", h.origen());
+            return List.copyOf(c.partes());
+        }
+    }
+
+    /** Lista de PDIs de /hecho (HTML), partida en mensajes con encabezado de continuación. */
+    public static List<String> pdis(List<PdiDTO> pdis) {
+        try (MessageComposer c = MessageComposer.de(Formato.HTML)) {
+            c.continuacion("(continuación PDIs...)\n\n");
+            c.linea().negrita("PDIs (" + pdis.size() + "):").linea().fin();
+
+            int n = 1;
+            for (PdiDTO p : pdis) {
+                c.texto(n++ + ". ").texto(p.descripcion() != null ? p.descripcion() : "(sin descripción)").linea();
+                campo(c, "   ID: ", p.id() != null ? p.id() : "-");
+                campo(c, "   Lugar: ", p.lugar());
+                if (p.momento() != null) campo(c, "   Momento: ", momento(p.momento()));
+                if (p.textoImagen() != null && !p.textoImagen().isBlank()) campo(c, "   📝 ", p.textoImagen());
+                if (p.etiquetas() != null && !p.etiquetas().isEmpty()) {
+                    campo(c, "   🏷️ Etiquetas: ", String.join(", ", p.etiquetas()));
+                }
+                // Telegram arma el link y la vista previa a partir de la URL suelta
+                if (looksLikeUrl(p.urlImagen())) c.texto(p.urlImagen().trim()).linea();
+                c.linea().fin();
+            }
+            return List.copyOf(c.partes());
+        }
+    }
+
+    // Si el backend mandó algo que no es fecha y hora, se muestra como vino
+    private static String momento(Momento m) {
+        return m.fecha() != null ? MOMENTO_FMT.format(m.fecha()) : m.texto();
+    }
+
+    /** Un hecho del listado de /hechos. */
+    public static void itemListado(MessageComposer c, HechoDTO hecho) {
+        campo(c, "• Título: ", hecho.titulo());
+        campo(c, "• Etiqueta: ", hecho.etiquetas());
+        campo(c, "• Categoría: ", hecho.categoria());
+        campo(c, "• Ubicación: ", hecho.ubicacion());
+        campo(c, "• Fecha: ", hecho.fecha());
+        campo(c, "• Origen: ", hecho.origen());
+        c.linea().fin();
+    }
+
+    /** Un resultado de /buscar. */
+    public static void itemBusqueda(MessageComposer c, HechoDTO dto) {
+        c.texto("• ").texto(dto.titulo()).linea();
+        if (dto.etiquetas() != null && !dto.etiquetas().isEmpty()) {
+            campo(c, "  Tags: ", dto.etiquetas());
+        }
+        c.linea().fin();
+    }
+
+    /** Mensaje que se manda al elegir un hecho en el modo inline (HTML, un solo mensaje). */
+    public static String articulo(HechoDTO dto) {
+        try (MessageComposer c = MessageComposer.de(Formato.HTML)) {
+            c.negrita(dto.titulo() != null ? dto.titulo() : "(sin título)").linea();
+            if (dto.descripcion() != null && !dto.descripcion().isBlank()) c.texto(dto.descripcion()).linea();
+            c.linea();
+            campo(c, "Categoría: ", dto.categoria());
+            campo(c, "Ubicación: ", dto.ubicacion());
+            campo(c, "Fecha: ", dto.fecha());
+            campo(c, "Origen: ", dto.origen());
+            if (dto.etiquetas() != null && !dto.etiquetas().isEmpty()) {
+                campo(c, "Etiquetas: ", String.join(", ", dto.etiquetas()));
+            }
+            return c.unMensaje();
+        }
+    }
+
+    private static void campo(MessageComposer c, String etiqueta, Object valor) {
+        if (valor == null) return;
+        c.texto(etiqueta).texto(valor).linea();
+    }
+
+    private static boolean looksLikeUrl(String s) {
+        String l = s == null ? "" : s.trim().toLowerCase();
+        return l.startsWith("http://") || l.startsWith("https://");
+    }
+}
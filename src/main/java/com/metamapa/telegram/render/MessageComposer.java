@@ -0,0 +1,222 @@
+package com.metamapa.telegram.render;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arma el texto de una respuesta escapando lo que viene del usuario/backend y lo parte en
+ * mensajes que Telegram acepta (4096 caracteres por defecto).
+ *
+ * El texto se escribe en bloques (un hecho, un PDI, ...) que se cierran con {@link #fin()}:
+ * los cortes entre mensajes caen siempre entre bloques. Si un bloque solo no entra, se corta
+ * entre dos llamadas, nunca dentro de una entidad como &lt;b&gt;...&lt;/b&gt; (salvo que un único
+ * texto sea más largo que un mensaje).
+ *
+ * Usa builders de un pool por hilo, así que hay que cerrarlo (try-with-resources).
+ * No es thread-safe.
+ */
+public final class MessageComposer implements AutoCloseable {
+
+    public static final int TELEGRAM_MAX = 4096;
+
+    private final Formato formato;
+    private final int max;
+    private final StringBuilder mensaje = BuilderPool.tomar();
+    private final StringBuilder bloque = BuilderPool.tomar();
+    private final List<String> partes = new ArrayList<>();
+
+    // Posiciones dentro del bloque donde se puede cortar sin romper una entidad
+    private int[] cortes = new int[16];
+    private int cantCortes;
+
+    private String continuacion;
+    private int base; // largo del encabezado de continuación al principio de "mensaje"
+    private boolean cerrado;
+
+    private MessageComposer(Formato formato, int max) {
+        this.formato = formato;
+        this.max = max;
+    }
+
+    public static MessageComposer de(Formato formato) {
+        return new MessageComposer(formato, TELEGRAM_MAX);
+    }
+
+    public static MessageComposer de(Formato formato, int max) {
+        return new MessageComposer(formato, max);
+    }
+
+    public Formato formato() {
+        return formato;
+    }
+
+    // ---- escritura ----
+
+    /** Texto escapado según el formato. */
+    public MessageComposer texto(CharSequence s) {
+        formato.escapar(s, bloque);
+        return corte();
+    }
+
+    public MessageComposer texto(Object o) {
+        return texto(String.valueOf(o));
+    }
+
+    public MessageComposer negrita(CharSequence s) {
+        return entidad(Formato.Entidad.NEGRITA, s);
+    }
+
+    public MessageComposer cursiva(CharSequence s) {
+        return entidad(Formato.Entidad.CURSIVA, s);
+    }
+
+    public MessageComposer codigo(CharSequence s) {
+        bloque.append(formato.abrir(Formato.Entidad.CODIGO));
+        formato.escaparCodigo(s, bloque, '`');
+        bloque.append(formato.cerrar(Formato.Entidad.CODIGO));
+        return corte();
+    }
+
+    public MessageComposer link(CharSequence texto, String url) {
+        switch (formato) {
+            case HTML -> {
+                bloque.append("<a href=\"");
+                formato.escapar(url, bloque);
+                bloque.append("\">");
+                formato.escapar(texto, bloque);
+                bloque.append("</a>");
+            }
+            case MARKDOWN_V2 -> {
+                bloque.append('[');
+                formato.escapar(texto, bloque);
+                bloque.append("](");
+                formato.escaparCodigo(url, bloque, ')');
+                bloque.append(')');
+            }
+            default -> bloque.append(texto).append(" (").append(url).append(')');
+        }
+        return corte();
+    }
+
+    /** Markup ya armado (no se escapa): solo para texto fijo del bot. */
+    public MessageComposer markup(CharSequence s) {
+        bloque.append(s);
+        return corte();
+    }
+
+    public MessageComposer linea() {
+        bloque.append('\n');
+        return corte();
+    }
+
+    /** Texto (plano, se escapa) que encabeza cada mensaje a partir del segundo. */
+    public MessageComposer continuacion(CharSequence textoPlano) {
+        StringBuilder sb = new StringBuilder();
+        formato.escapar(textoPlano, sb);
+        this.continuacion = sb.toString();
+        return this;
+    }
+
+    private MessageComposer entidad(Formato.Entidad e, CharSequence s) {
+        bloque.append(formato.abrir(e));
+        formato.escapar(s, bloque);
+        bloque.append(formato.cerrar(e));
+        return corte();
+    }
+
+    private MessageComposer corte() {
+        if (cantCortes == cortes.length) cortes = Arrays.copyOf(cortes, cantCortes * 2);
+        cortes[cantCortes++] = bloque.length();
+        return this;
+    }
+
+    // ---- bloques y mensajes ----
+
+    /** true si el bloque en curso entra en el mensaje que se está armando. */
+    public boolean cabe() {
+        return mensaje.length() + bloque.length() <= max;
+    }
+
+    /** Cierra el bloque en curso: si no entra en el mensaje actual, empieza uno nuevo. */
+    public MessageComposer fin() {
+        if (bloque.length() == 0) return this;
+        if (!cabe()) cerrarMensaje();
+        if (cabe()) {
+            mensaje.append(bloque);
+        } else {
+            partirBloque();
+        }
+        bloque.setLength(0);
+        cantCortes = 0;
+        return this;
+    }
+
+    /** Mensajes ya completos (sin contar el que se está armando). */
+    public int emitidos() {
+        return partes.size();
+    }
+
+    /** Cierra todo y devuelve los mensajes. */
+    public List<String> partes() {
+        fin();
+        cerrarMensaje();
+        return partes;
+    }
+
+    /** Para respuestas que tienen que ser un único mensaje (ej: editar con teclado): lo que no entra se corta. */
+    public String unMensaje() {
+        List<String> p = partes();
+        if (p.isEmpty()) return "";
+        String primero = p.get(0);
+        return p.size() > 1 && primero.length() < max ? primero + "…" : primero;
+    }
+
+    private void cerrarMensaje() {
+        if (mensaje.length() > base) {
+            partes.add(mensaje.toString());
+            mensaje.setLength(0);
+            if (continuacion != null) mensaje.append(continuacion);
+            base = mensaje.length();
+        }
+    }
+
+    private void partirBloque() {
+        int desde = 0;
+        int idxCorte = 0;
+        while (bloque.length() - desde > max - mensaje.length()) {
+            int limite = desde + Math.max(1, max - mensaje.length());
+            int corte = -1;
+            while (idxCorte < cantCortes && cortes[idxCorte] <= limite) {
+                if (cortes[idxCorte] > desde) corte = cortes[idxCorte];
+                idxCorte++;
+            }
+            if (corte < 0) corte = corteForzado(desde, limite);
+            mensaje.append(bloque, desde, corte);
+            cerrarMensaje();
+            desde = corte;
+        }
+        mensaje.append(bloque, desde, bloque.length());
+    }
+
+    // Un único texto más largo que un mensaje: se corta sin partir un escape (&amp; o \.) ni un surrogate
+    private int corteForzado(int desde, int limite) {
+        int c = limite;
+        if (formato == Formato.HTML) {
+            int amp = bloque.lastIndexOf("&", c - 1);
+            if (amp >= desde && amp > c - 6 && bloque.indexOf(";", amp) >= c) c = amp;
+        } else if (formato == Formato.MARKDOWN_V2 && c - 1 > desde && bloque.charAt(c - 1) == '\\') {
+            c--;
+        }
+        if (c - 1 > desde && Character.isHighSurrogate(bloque.charAt(c - 1))) c--;
+        return c > desde ? c : limite;
+    }
+
+    @Override
+    public void close() {
+        if (cerrado) return;
+        cerrado = true;
+        BuilderPool.devolver(mensaje);
+        BuilderPool.devolver(bloque);
+    }
+}
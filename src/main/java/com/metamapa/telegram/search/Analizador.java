@@ -0,0 +1,95 @@
+package com.metamapa.telegram.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Convierte texto en términos del índice: minúsculas, sin tildes, sin palabras vacías
+ * y con un stemmer liviano para castellano (plurales y género), así "Incendios" y
+ * "incendio" o "inundación" e "inundaciones" caen en el mismo término.
+ * Se recorre el texto una sola vez, sin regex.
+ */
+public final class Analizador {
+
+    private static final Set<String> VACIAS = Set.of(
+            "a", "al", "ante", "con", "de", "del", "desde", "e", "el", "en", "entre", "es", "hacia",
+            "la", "las", "lo", "los", "o", "para", "por", "que", "se", "sin", "sobre", "su", "sus",
+            "u", "un", "una", "unas", "unos", "y");
+
+    private Analizador() { }
+
+    /** Términos del texto, en orden y con repetidos. */
+    public static List<String> terminos(CharSequence texto) {
+        List<String> out = new ArrayList<>();
+        if (texto == null) return out;
+        StringBuilder palabra = new StringBuilder(16);
+        for (int i = 0, n = texto.length(); i <= n; i++) {
+            char c = i < n ? plegar(texto.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                palabra.append(c);
+            } else if (palabra.length() > 0) {
+                String p = palabra.toString();
+                if (!VACIAS.contains(p)) out.add(raiz(p));
+                palabra.setLength(0);
+            }
+        }
+        return out;
+    }
+
+    /** true si la palabra (ya plegada) es una palabra vacía: artículos, preposiciones, etc. */
+    static boolean vacia(String palabra) {
+        return VACIAS.contains(palabra);
+    }
+
+    /** Minúscula y sin tildes ni diéresis; la ñ queda como n. */
+    public static String plegar(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) sb.append(plegar(s.charAt(i)));
+        return sb.toString().trim();
+    }
+
+    static char plegar(char c) {
+        if (c < 128) return Character.toLowerCase(c);
+        return switch (c) {
+            case 'á', 'à', 'ä', 'â', 'Á', 'À', 'Ä', 'Â' -> 'a';
+            case 'é', 'è', 'ë', 'ê', 'É', 'È', 'Ë', 'Ê' -> 'e';
+            case 'í', 'ì', 'ï', 'î', 'Í', 'Ì', 'Ï', 'Î' -> 'i';
+            case 'ó', 'ò', 'ö', 'ô', 'Ó', 'Ò', 'Ö', 'Ô' -> 'o';
+            case 'ú', 'ù', 'ü', 'û', 'Ú', 'Ù', 'Ü', 'Û' -> 'u';
+            case 'ñ', 'Ñ' -> 'n';
+            case 'ç', 'Ç' -> 'c';
+            default -> Character.toLowerCase(c);
+        };
+    }
+
+    /**
+     * Stemmer liviano (al estilo del de Savoy para castellano): saca el plural y la vocal
+     * final de género. No intenta sacar sufijos derivativos, que en textos cortos confunden más
+     * de lo que ayudan.
+     */
+    static String raiz(String p) {
+        int n = p.length();
+        if (n <= 3 || !Character.isLetter(p.charAt(n - 1))) return p;
+
+        // Plurales: "luces" -> "luz", "inundaciones" -> "inundacion", "arboles" -> "arbol", "casas" -> "casa"
+        if (p.endsWith("ces") && n > 4) {
+            p = p.substring(0, n - 3) + "z";
+        } else if (p.endsWith("es") && n > 4 && !esVocal(p.charAt(n - 3))) {
+            p = p.substring(0, n - 2);
+        } else if (p.endsWith("s") && n > 3 && esVocal(p.charAt(n - 2))) {
+            p = p.substring(0, n - 1);
+        }
+
+        // Género: "incendio"/"incendia" -> "incendi", "forestal" queda igual
+        n = p.length();
+        if (n > 4 && (p.charAt(n - 1) == 'o' || p.charAt(n - 1) == 'a' || p.charAt(n - 1) == 'e')) {
+            p = p.substring(0, n - 1);
+        }
+        return p;
+    }
+
+    private static boolean esVocal(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
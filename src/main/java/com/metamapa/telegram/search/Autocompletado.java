@@ -0,0 +1,117 @@
+package com.metamapa.telegram.search;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sugerencias para /buscar armadas con lo que ya se vio pasar: palabras de los títulos,
+ * categorías y etiquetas de los hechos que devuelven las búsquedas y los listados.
+ * Cada vez que un texto vuelve a aparecer pesa más, así que se sugiere primero lo más común.
+ *
+ * Hay dos tries: uno con todo (para completar la keyword) y otro solo con etiquetas (para
+ * completar el tag). Los dos tienen un tope de entradas (metamapa.autocompletado.max-terminos).
+ */
+@Component
+public class Autocompletado {
+
+    private static final int MIN_LARGO = 3;
+
+    private final boolean enabled;
+    private final Trie terminos;
+    private final Trie etiquetas;
+
+    public Autocompletado(@Value("${metamapa.autocompletado.enabled:true}") boolean enabled,
+                          @Value("${metamapa.autocompletado.sugerencias:6}") int sugerencias,
+                          @Value("${metamapa.autocompletado.max-terminos:20000}") int maxTerminos) {
+        this.enabled = enabled;
+        // Se guarda alguna de más: después se descartan las que no entran en un botón
+        int k = Math.max(1, sugerencias) + 2;
+        this.terminos = new Trie(k, maxTerminos);
+        this.etiquetas = new Trie(k, maxTerminos);
+    }
+
+    /** Aprende los textos de los hechos. */
+    public void aprender(List<HechoDTO> hechos) {
+        if (!enabled || hechos == null || hechos.isEmpty()) return;
+        synchronized (this) {
+            for (HechoDTO h : hechos) aprenderUno(h);
+        }
+    }
+
+    public void aprender(HechoDTO h) {
+        if (!enabled || h == null) return;
+        synchronized (this) {
+            aprenderUno(h);
+        }
+    }
+
+    private void aprenderUno(HechoDTO h) {
+        palabras(h.titulo());
+        frase(terminos, h.categoria());
+        if (h.etiquetas() != null) {
+            for (String e : h.etiquetas()) {
+                frase(terminos, e);
+                frase(etiquetas, e);
+            }
+        }
+    }
+
+    // Cada palabra del título por separado, sin las vacías ni las muy cortas
+    private void palabras(String texto) {
+        if (texto == null) return;
+        int desde = -1;
+        for (int i = 0, n = texto.length(); i <= n; i++) {
+            boolean letra = i < n && Character.isLetterOrDigit(texto.charAt(i));
+            if (letra && desde < 0) {
+                desde = i;
+            } else if (!letra && desde >= 0) {
+                if (i - desde >= MIN_LARGO) {
+                    String palabra = texto.substring(desde, i).toLowerCase();
+                    String clave = Analizador.plegar(palabra);
+                    if (!Analizador.vacia(clave)) terminos.sumar(clave, palabra, 1);
+                }
+                desde = -1;
+            }
+        }
+    }
+
+    private static void frase(Trie trie, String texto) {
+        if (texto == null) return;
+        String t = texto.trim();
+        if (t.length() >= MIN_LARGO) trie.sumar(Analizador.plegar(t), t, 1);
+    }
+
+    /** Hasta max keywords que completan el prefijo (sin el prefijo mismo); con "" las más comunes. */
+    public List<String> keywords(String prefijo, int max) {
+        return completar(terminos, prefijo, max);
+    }
+
+    /** Hasta max etiquetas que completan el prefijo (sin el prefijo mismo). */
+    public List<String> etiquetas(String prefijo, int max) {
+        return completar(etiquetas, prefijo, max);
+    }
+
+    private List<String> completar(Trie trie, String prefijo, int max) {
+        if (!enabled) return List.of();
+        String clave = prefijo == null ? "" : Analizador.plegar(prefijo);
+        List<String> encontrados;
+        synchronized (this) {
+            encontrados = trie.completar(clave, max + 1);
+        }
+        List<String> out = new ArrayList<>(max);
+        for (String s : encontrados) {
+            if (out.size() < max && !Analizador.plegar(s).equals(clave)) out.add(s);
+        }
+        return out;
+    }
+
+    public int getTerminos() {
+        synchronized (this) {
+            return terminos.size();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.metamapa.telegram.search;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido inmutable sobre una foto de los hechos: término -> ids de documento
+ * ordenados (int[]), más otro índice de etiqueta -> ids para el filtro por tag.
+ * Se arma entero con {@link Constructor} y se reemplaza de una vez en cada sincronización,
+ * así las búsquedas nunca ven un índice a medio armar y no necesitan locks.
+ */
+public final class IndiceInvertido {
+
+    private static final int[] VACIO = new int[0];
+
+    private final HechoDTO[] docs;
+    private final Map<String, int[]> postings;
+    private final Map<String, int[]> porEtiqueta;
+    private final long creado;
+
+    private IndiceInvertido(HechoDTO[] docs, Map<String, int[]> postings, Map<String, int[]> porEtiqueta) {
+        this.docs = docs;
+        this.postings = postings;
+        this.porEtiqueta = porEtiqueta;
+        this.creado = System.currentTimeMillis();
+    }
+
+    public int cantidad() {
+        return docs.length;
+    }
+
+    public int terminos() {
+        return postings.size();
+    }
+
+    /** Epoch millis de cuando se terminó de armar. */
+    public long creado() {
+        return creado;
+    }
+
+    /**
+     * Hechos que tienen todos los términos de la keyword (en título, descripción, etiquetas
+     * o categoría) y, si tag no es null, esa etiqueta. Paginado como la API del buscador.
+     */
+    public PageResponse<HechoDTO> buscar(String keyword, String tag, int page, int pageSize) {
+        int[] ids = null;
+        for (String t : Analizador.terminos(keyword)) {
+            int[] p = postings.getOrDefault(t, VACIO);
+            ids = ids == null ? p : interseccion(ids, p);
+            if (ids.length == 0) break;
+        }
+        if (ids == null) ids = VACIO;
+        if (tag != null && ids.length > 0) {
+            ids = interseccion(ids, porEtiqueta.getOrDefault(Analizador.plegar(tag), VACIO));
+        }
+
+        int total = ids.length;
+        int totalPages = (total + pageSize - 1) / pageSize;
+        int desde = Math.min(total, Math.max(0, page) * pageSize);
+        int hasta = Math.min(total, desde + pageSize);
+        List<HechoDTO> content = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) content.add(docs[ids[i]]);
+        return new PageResponse<>(content, page, totalPages, total, page == 0, page + 1 >= totalPages);
+    }
+
+    // Merge de dos listas ordenadas
+    static int[] interseccion(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /** Arma un índice agregando hechos de a uno (no es thread-safe). */
+    public static final class Constructor {
+
+        private final List<HechoDTO> docs = new ArrayList<>();
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<String, Postings> porEtiqueta = new HashMap<>();
+
+        public Constructor agregar(HechoDTO h) {
+            int id = docs.size();
+            docs.add(h);
+            indexar(h.titulo(), id);
+            indexar(h.descripcion(), id);
+            indexar(h.categoria(), id);
+            if (h.etiquetas() != null) {
+                for (String e : h.etiquetas()) {
+                    if (e == null) continue;
+                    indexar(e, id);
+                    porEtiqueta.computeIfAbsent(Analizador.plegar(e), k -> new Postings()).agregar(id);
+                }
+            }
+            return this;
+        }
+
+        private void indexar(String texto, int id) {
+            for (String t : Analizador.terminos(texto)) {
+                postings.computeIfAbsent(t, k -> new Postings()).agregar(id);
+            }
+        }
+
+        public IndiceInvertido construir() {
+            Map<String, int[]> p = new HashMap<>(postings.size() * 4 / 3 + 1);
+            postings.forEach((t, l) -> p.put(t, l.comoArray()));
+            Map<String, int[]> e = new HashMap<>(porEtiqueta.size() * 4 / 3 + 1);
+            porEtiqueta.forEach((t, l) -> e.put(t, l.comoArray()));
+            return new IndiceInvertido(docs.toArray(HechoDTO[]::new), p, e);
+        }
+    }
+
+    // Lista de ids que crece sin boxing; los ids llegan en orden, así que sale ordenada
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int n;
+
+        void agregar(int id) {
+            if (n > 0 && ids[n - 1] == id) return; // el término aparece dos veces en el mismo hecho
+            if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+            ids[n++] = id;
+        }
+
+        int[] comoArray() {
+            return Arrays.copyOf(ids, n);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.metamapa.telegram.search;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.geo.IndiceGeo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copia local de los hechos para buscar sin ir al buscador (metamapa.indice.enabled).
+ *
+ * Cada metamapa.indice.intervalo baja los hechos de las colecciones configuradas (con el
+ * mismo streaming que /hechos), arma un {@link IndiceInvertido} nuevo y lo publica de una vez.
+ * Si una sincronización falla se sigue usando el índice anterior hasta que cumple
+ * metamapa.indice.max-antiguedad; a partir de ahí {@link #vigente()} da false y las
+ * búsquedas vuelven a la API remota.
+ *
+ * Solo con metamapa.indice.completo (las colecciones cubren todo lo que indexa el buscador)
+ * el índice contesta las búsquedas por su cuenta; si no, es un respaldo para cuando el buscador
+ * no responde, porque un hecho de otra colección no aparecería nunca.
+ */
+@Service
+public class IndiceLocal {
+
+    private final BackendClient backend;
+    private final IndiceGeo geo;
+    private final boolean enabled;
+    private final boolean completo;
+    private final List<String> colecciones;
+    private final Duration intervalo;
+    private final long maxAntiguedadMillis;
+    private final int pageSize;
+
+    private volatile IndiceInvertido indice;
+    private ScheduledExecutorService sync;
+
+    public IndiceLocal(BackendClient backend, IndiceGeo geo,
+                       @Value("${metamapa.indice.enabled:false}") boolean enabled,
+                       @Value("${metamapa.indice.colecciones:}") List<String> colecciones,
+                       @Value("${metamapa.indice.completo:false}") boolean completo,
+                       @Value("${metamapa.indice.intervalo:5m}") Duration intervalo,
+                       @Value("${metamapa.indice.max-antiguedad:15m}") Duration maxAntiguedad,
+                       @Value("${metamapa.indice.page-size:10}") int pageSize) {
+        this.backend = backend;
+        this.geo = geo;
+        this.colecciones = colecciones.stream().map(String::trim).filter(s -> !s.isEmpty()).toList();
+        this.enabled = enabled && !this.colecciones.isEmpty();
+        this.completo = completo;
+        this.intervalo = intervalo;
+        this.maxAntiguedadMillis = maxAntiguedad.toMillis();
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        if (!enabled) return;
+        sync = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "indice-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        sync.scheduleWithFixedDelay(this::sincronizar, 0, intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        System.out.println("🔎 Índice local activo para " + colecciones);
+    }
+
+    /** true si hay un índice y no es más viejo que metamapa.indice.max-antiguedad. */
+    public boolean vigente() {
+        IndiceInvertido i = indice;
+        return i != null && System.currentTimeMillis() - i.creado() <= maxAntiguedadMillis;
+    }
+
+    /** true si está vigente y sus colecciones son todo lo que cubre el buscador (metamapa.indice.completo). */
+    public boolean cubreTodo() {
+        return completo && vigente();
+    }
+
+    /** Segundos que le quedan al índice actual antes de dejar de ser vigente (0 si no hay). */
+    public long segundosVigentes() {
+        IndiceInvertido i = indice;
+        if (i == null) return 0;
+        return Math.max(0, (i.creado() + maxAntiguedadMillis - System.currentTimeMillis()) / 1000);
+    }
+
+    /** Busca en el índice actual; llamar solo si {@link #vigente()}. */
+    public PageResponse<HechoDTO> buscar(String keyword, String tag, int page) {
+        IndiceInvertido i = indice;
+        if (i == null) throw new IllegalStateException("El índice local todavía no se armó");
+        return i.buscar(keyword, tag, page, pageSize);
+    }
+
+    // Corre solo en el hilo "indice-sync"
+    void sincronizar() {
+        long start = System.nanoTime();
+        try {
+            IndiceInvertido.Constructor nuevo = new IndiceInvertido.Constructor();
+            // El mismo hecho puede estar en varias colecciones
+            Set<HechoDTO> vistos = new HashSet<>();
+            for (String coleccion : colecciones) {
+                String path = "/" + UriUtils.encodePathSegment(coleccion, StandardCharsets.UTF_8) + "/hechos";
+                backend.stream(Backend.COLECCIONES, path, in -> {
+                    try (JsonParser parser = backend.mapper().getFactory().createParser(in)) {
+                        if (parser.nextToken() != JsonToken.START_ARRAY) {
+                            throw new RestClientException("La respuesta de colecciones no es una lista de hechos");
+                        }
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            HechoDTO h = parser.readValueAs(HechoDTO.class);
+                            if (vistos.add(h)) {
+                                nuevo.agregar(h);
+                                geo.aprender(h);
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            IndiceInvertido i = nuevo.construir();
+            indice = i;
+            System.out.println("🔎 Índice local: " + i.cantidad() + " hechos, " + i.terminos() + " términos en "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (Exception e) {
+            // Se sigue con el índice anterior mientras esté vigente
+            System.err.println("❌ Índice local: falló la sincronización: " + e.getMessage());
+        }
+    }
+
+    /** Hechos en el índice actual (0 si todavía no se armó). */
+    public int getHechos() {
+        IndiceInvertido i = indice;
+        return i != null ? i.cantidad() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sync != null) sync.shutdownNow();
+    }
+}
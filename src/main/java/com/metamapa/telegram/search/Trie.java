@@ -0,0 +1,129 @@
+package com.metamapa.telegram.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie de prefijos con pesos. Cada nodo guarda sus k mejores completados ya ordenados, así
+ * completar cuesta recorrer el prefijo y copiar una lista corta, sin explorar el subárbol.
+ * Los pesos solo suben, por eso alcanza con actualizar los nodos del camino al sumar.
+ * No es thread-safe.
+ */
+final class Trie {
+
+    /** Un texto sugerible: clave plegada para buscar, texto original para mostrar. */
+    static final class Entrada {
+        final String clave;
+        final String texto;
+        int peso;
+
+        Entrada(String clave, String texto) {
+            this.clave = clave;
+            this.texto = texto;
+        }
+    }
+
+    private static final class Nodo {
+        // Hijos con las letras ordenadas (búsqueda binaria); casi todos los nodos tienen 1 o 2
+        char[] letras = new char[0];
+        Nodo[] hijos = new Nodo[0];
+        Entrada[] mejores = new Entrada[0];
+
+        Nodo hijo(char c) {
+            int i = Arrays.binarySearch(letras, c);
+            return i >= 0 ? hijos[i] : null;
+        }
+
+        Nodo hijoOCrear(char c) {
+            int i = Arrays.binarySearch(letras, c);
+            if (i >= 0) return hijos[i];
+            i = -i - 1;
+            char[] l = new char[letras.length + 1];
+            Nodo[] h = new Nodo[hijos.length + 1];
+            System.arraycopy(letras, 0, l, 0, i);
+            System.arraycopy(hijos, 0, h, 0, i);
+            System.arraycopy(letras, i, l, i + 1, letras.length - i);
+            System.arraycopy(hijos, i, h, i + 1, hijos.length - i);
+            Nodo nuevo = new Nodo();
+            l[i] = c;
+            h[i] = nuevo;
+            letras = l;
+            hijos = h;
+            return nuevo;
+        }
+    }
+
+    private final Nodo raiz = new Nodo();
+    private final Map<String, Entrada> entradas = new HashMap<>();
+    private final int k;
+    private final int maxEntradas;
+
+    Trie(int k, int maxEntradas) {
+        this.k = k;
+        this.maxEntradas = maxEntradas;
+    }
+
+    /** Suma peso al texto (lo agrega si no estaba y queda lugar). */
+    void sumar(String clave, String texto, int peso) {
+        Entrada e = entradas.get(clave);
+        if (e == null) {
+            if (entradas.size() >= maxEntradas) return;
+            e = new Entrada(clave, texto);
+            entradas.put(clave, e);
+        }
+        e.peso += peso;
+
+        Nodo n = raiz;
+        actualizar(n, e);
+        for (int i = 0; i < clave.length(); i++) {
+            n = n.hijoOCrear(clave.charAt(i));
+            actualizar(n, e);
+        }
+    }
+
+    // Mete (o reubica) la entrada en los mejores del nodo
+    private void actualizar(Nodo n, Entrada e) {
+        Entrada[] m = n.mejores;
+        int pos = -1;
+        for (int i = 0; i < m.length; i++) {
+            if (m[i] == e) {
+                pos = i;
+                break;
+            }
+        }
+        if (pos < 0) {
+            if (m.length < k) {
+                m = Arrays.copyOf(m, m.length + 1);
+            } else if (m[m.length - 1].peso >= e.peso) {
+                return;
+            }
+            pos = m.length - 1;
+            m[pos] = e;
+            n.mejores = m;
+        }
+        // Sube mientras pese más que el de adelante
+        while (pos > 0 && m[pos - 1].peso < e.peso) {
+            m[pos] = m[pos - 1];
+            m[pos - 1] = e;
+            pos--;
+        }
+    }
+
+    /** Hasta max textos que empiezan con el prefijo (plegado), del más pesado al más liviano. */
+    List<String> completar(String prefijo, int max) {
+        Nodo n = raiz;
+        for (int i = 0; i < prefijo.length() && n != null; i++) n = n.hijo(prefijo.charAt(i));
+        if (n == null) return List.of();
+        Entrada[] m = n.mejores;
+        List<String> out = new ArrayList<>(Math.min(max, m.length));
+        for (int i = 0; i < m.length && out.size() < max; i++) out.add(m[i].texto);
+        return out;
+    }
+
+    int size() {
+        return entradas.size();
+    }
+}
@@ -0,0 +1,140 @@
+package com.metamapa.telegram.service;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.metamapa.telegram.cache.TtlLruCache;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.search.IndiceLocal;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsquedas contra la API del buscador, con cache de páginas y prefetch de la siguiente.
+ * Así los botones "◀ Anterior" / "▶ Siguiente" casi nunca tienen que ir a Render.
+ * Si el {@link IndiceLocal} cubre todo lo que indexa el buscador se busca ahí, sin tocar la red;
+ * si solo tiene algunas colecciones, se usa cuando el buscador no responde.
+ */
+@Service
+public class BusquedaService {
+
+    private static final TypeReference<PageResponse<HechoDTO>> PAGE_TYPE = new TypeReference<>() {};
+
+    private final BackendClient backend;
+    private final IndiceLocal indice;
+    private final boolean prefetch;
+
+    private final TtlLruCache<Clave, PageResponse<HechoDTO>> cache;
+    private final Set<Clave> prefetchEnCurso = ConcurrentHashMap.newKeySet();
+    private final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "busqueda-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public BusquedaService(BackendClient backend, IndiceLocal indice,
+                           @Value("${metamapa.busqueda.cache.max-entries:500}") int maxEntries,
+                           @Value("${metamapa.busqueda.cache.ttl-seconds:120}") long ttlSeconds,
+                           @Value("${metamapa.busqueda.prefetch:true}") boolean prefetch) {
+        this.backend = backend;
+        this.indice = indice;
+        this.prefetch = prefetch;
+        this.cache = new TtlLruCache<>(maxEntries, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    /** Clave de una página de resultados; tag null = sin filtro. */
+    public record Clave(String keyword, String tag, int page) { }
+
+    /**
+     * Devuelve la página pedida (de la cache si está vigente) y dispara en segundo plano
+     * la descarga de la siguiente. Propaga las excepciones del BackendClient, salvo que
+     * el índice local pueda contestar aunque sea en parte.
+     */
+    public PageResponse<HechoDTO> buscar(String keyword, String tag, int page) {
+        if (indice.cubreTodo()) {
+            PageResponse<HechoDTO> local = indice.buscar(keyword, tag, page);
+            // Sin resultados puede ser un hecho cargado después de la última sincronización
+            if (local.totalElements() > 0) return local;
+        }
+
+        Clave clave = new Clave(keyword, tag, page);
+        PageResponse<HechoDTO> resp = cache.get(clave);
+        if (resp == null) {
+            try {
+                resp = consultar(clave);
+            } catch (RuntimeException e) {
+                if (!indice.vigente()) throw e;
+                // Mejor los hechos de las colecciones sincronizadas que nada; no se cachea
+                System.err.println("Búsqueda de '" + keyword + "' desde el índice local, el buscador falló: " + e.getMessage());
+                return indice.buscar(keyword, tag, page);
+            }
+            cache.put(clave, resp);
+        }
+        if (prefetch && resp != null && !resp.last() && resp.number() + 1 < resp.totalPages()) {
+            prefetch(new Clave(keyword, tag, page + 1));
+        }
+        return resp;
+    }
+
+    /** true si la página está en la cache y vigente o la responde el índice local (no toca el backend). */
+    public boolean enCache(String keyword, String tag, int page) {
+        if (indice.cubreTodo()) return true;
+        return cache.containsFresh(new Clave(keyword, tag, page));
+    }
+
+    /** Segundos que le quedan a la página en la cache (0 si no está). */
+    public long segundosVigentes(String keyword, String tag, int page) {
+        if (indice.cubreTodo()) return indice.segundosVigentes();
+        return cache.remainingSeconds(new Clave(keyword, tag, page));
+    }
+
+    private void prefetch(Clave clave) {
+        if (cache.containsFresh(clave) || !prefetchEnCurso.add(clave)) return;
+        prefetchExecutor.execute(() -> {
+            try {
+                cache.put(clave, consultar(clave));
+            } catch (Exception e) {
+                // Si falla no pasa nada: la página se pide cuando alguien la necesite
+                System.err.println("Prefetch de " + clave + " falló: " + e.getMessage());
+            } finally {
+                prefetchEnCurso.remove(clave);
+            }
+        });
+    }
+
+    private PageResponse<HechoDTO> consultar(Clave clave) {
+        String query = "?keyword=" + UriUtils.encodeQueryParam(clave.keyword(), StandardCharsets.UTF_8)
+                + "&page=" + clave.page();
+        if (clave.tag() != null) {
+            query += "&tag=" + UriUtils.encodeQueryParam(clave.tag(), StandardCharsets.UTF_8);
+        }
+        return backend.get(Backend.BUSCADOR, query, PAGE_TYPE);
+    }
+
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    public long getCacheEvictions() {
+        return cache.getEvictions();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+}
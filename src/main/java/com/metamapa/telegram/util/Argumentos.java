@@ -0,0 +1,263 @@
+package com.metamapa.telegram.util;
+
+import java.util.Arrays;
+
+/**
+ * Vista parseada de un comando: "/cmd@bot arg1 "arg dos" clave:"valor" | campo | campo".
+ *
+ * {@link #parsear} recorre el texto una sola vez, sin regex, y solo anota posiciones en
+ * arreglos de int que se reusan entre llamadas: los String se arman recién cuando se pide
+ * un valor. Sobre lo que sigue al comando se reconocen a la vez:
+ * <ul>
+ *   <li>posicionales: palabras separadas por blancos; "entre comillas" cuenta como una sola</li>
+ *   <li>campos separados por '|' (recortados; un '|' entre comillas no corta)</li>
+ *   <li>clave:valor o clave: "valor" (la clave es solo letras o '_' y no importa la mayúscula;
+ *       "covid: casos" o "https://..." siguen siendo palabras)</li>
+ * </ul>
+ * Sin '/' al principio no hay comando y todo el texto son argumentos (sirve para callback_data).
+ *
+ * Una instancia no es thread-safe. En el bot se usa {@link #del}, una vista por hilo de
+ * trabajo: el router y el handler leen el mismo texto del update y se recorre una sola vez.
+ */
+public final class Argumentos {
+
+    private static final ThreadLocal<Argumentos> DEL_HILO = ThreadLocal.withInitial(Argumentos::new);
+
+    private CharSequence texto = "";
+    private int cmdIni = -1;
+    private int cmdFin = -1;
+    private int argsIni;
+    private int argsFin;
+    private int primeraClave = -1;
+
+    // Pares [ini, fin) por posicional, por campo y por clave/valor
+    private int[] tokens = new int[16];
+    private int nTokens;
+    private int[] campos = new int[16];
+    private int nCampos;
+    private int[] claves = new int[16];
+    private int nClaves;
+
+    public static Argumentos de(CharSequence texto) {
+        return new Argumentos().parsear(texto);
+    }
+
+    /**
+     * La vista del hilo actual parseada con este texto. Si es el mismo String que se parseó
+     * último en el hilo no se vuelve a recorrer. Vale hasta la próxima llamada desde el mismo
+     * hilo: no hay que guardarla ni pasarla a otro.
+     */
+    public static Argumentos del(String texto) {
+        Argumentos a = DEL_HILO.get();
+        return texto != null && a.texto == texto ? a : a.parsear(texto);
+    }
+
+    /** Vuelve a llenar esta vista con otro texto (no asigna memoria salvo que no alcancen los arreglos). */
+    public Argumentos parsear(CharSequence texto) {
+        this.texto = texto != null ? texto : "";
+        CharSequence t = this.texto;
+        cmdIni = cmdFin = primeraClave = -1;
+        nTokens = nCampos = nClaves = 0;
+
+        int len = t.length();
+        int i = 0;
+        while (i < len && blanco(t.charAt(i))) i++;
+        if (i < len && t.charAt(i) == '/') {
+            cmdIni = i;
+            while (i < len && !blanco(t.charAt(i)) && t.charAt(i) != '@') i++;
+            cmdFin = i;
+            while (i < len && !blanco(t.charAt(i))) i++; // @bot
+            while (i < len && blanco(t.charAt(i))) i++;
+        }
+        int fin = len;
+        while (fin > i && blanco(t.charAt(fin - 1))) fin--;
+        argsIni = i;
+        argsFin = fin;
+        if (i >= fin) return this;
+
+        int campoIni = i;
+        while (i < fin) {
+            char c = t.charAt(i);
+            if (blanco(c)) {
+                i++;
+                continue;
+            }
+            if (c == '|') {
+                campos = agregar(campos, nCampos++, campoIni, i);
+                campoIni = ++i;
+                continue;
+            }
+            int ini = i;
+            if (c == '"') {
+                int cierre = comilla(t, i + 1, fin);
+                if (cierre >= 0) {
+                    i = cierre + 1;
+                    tokens = agregar(tokens, nTokens++, ini, i);
+                    continue;
+                }
+            }
+            // Una palabra; si son letras seguidas de ':' puede ser una clave
+            boolean letras = true;
+            while (i < fin && !blanco(c = t.charAt(i)) && c != '|' && c != ':') {
+                if (!(Character.isLetter(c) || c == '_')) letras = false;
+                i++;
+            }
+            if (letras && i > ini && i < fin && c == ':') {
+                int sigue = valor(t, ini, i, fin);
+                if (sigue >= 0) {
+                    i = sigue;
+                    continue;
+                }
+            }
+            while (i < fin && !blanco(c = t.charAt(i)) && c != '|') i++;
+            tokens = agregar(tokens, nTokens++, ini, i);
+        }
+        campos = agregar(campos, nCampos++, campoIni, fin);
+        return this;
+    }
+
+    // Anota clave:valor (valor entre comillas o pegado, hasta un blanco, ',' o '|') y devuelve
+    // dónde seguir, o -1 si no es una clave
+    private int valor(CharSequence t, int claveIni, int dosPuntos, int fin) {
+        int i = dosPuntos + 1;
+        while (i < fin && blanco(t.charAt(i))) i++;
+        int vIni = i;
+        int vFin;
+        int cierre = i < fin && t.charAt(i) == '"' ? comilla(t, i + 1, fin) : -1;
+        if (cierre >= 0) {
+            vIni = i + 1;
+            vFin = cierre;
+            i = cierre + 1;
+        } else {
+            if (i > dosPuntos + 1 || (i < fin && t.charAt(i) == '/')) return -1;
+            char c;
+            while (i < fin && !blanco(c = t.charAt(i)) && c != ',' && c != '|') i++;
+            vFin = i;
+        }
+        if (primeraClave < 0) primeraClave = claveIni;
+        claves = agregar(claves, nClaves, claveIni, dosPuntos);
+        claves = agregar(claves, nClaves + 1, vIni, vFin);
+        nClaves += 2;
+        return i;
+    }
+
+    /** El comando en minúscula y sin @bot ("/Buscar@MetaMapa_bot" → "/buscar"), o null. */
+    public String comando() {
+        if (cmdIni < 0) return null;
+        String s = texto.subSequence(cmdIni, cmdFin).toString();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') return s.toLowerCase();
+        }
+        return s;
+    }
+
+    /** Todo lo que sigue al comando, recortado; null si no hay nada. */
+    public String resto() {
+        return argsIni < argsFin ? texto.subSequence(argsIni, argsFin).toString() : null;
+    }
+
+    public int posicionales() {
+        return nTokens;
+    }
+
+    /** Posicional i sin las comillas, o null si no hay tantos. */
+    public String posicional(int i) {
+        if (i < 0 || i >= nTokens) return null;
+        int ini = tokens[2 * i];
+        int fin = tokens[2 * i + 1];
+        if (entreComillas(ini, fin)) {
+            ini++;
+            fin--;
+        }
+        return texto.subSequence(ini, fin).toString();
+    }
+
+    /**
+     * Lo que sigue al posicional i hasta el final, tal como vino y recortado
+     * ("/solicitar_borrado 12 Motivo: texto libre" → "Motivo: texto libre"); null si no queda nada.
+     */
+    public String restoDespues(int i) {
+        if (i < 0 || i >= nTokens) return null;
+        int ini = tokens[2 * i + 1];
+        while (ini < argsFin && blanco(texto.charAt(ini))) ini++;
+        return ini < argsFin ? texto.subSequence(ini, argsFin).toString() : null;
+    }
+
+    /** El primer posicional que vino entre comillas (sin ellas), o null. */
+    public String entreComillas() {
+        for (int i = 0; i < nTokens; i++) {
+            if (entreComillas(tokens[2 * i], tokens[2 * i + 1])) return posicional(i);
+        }
+        return null;
+    }
+
+    public int campos() {
+        return nCampos;
+    }
+
+    /** Campo i entre '|', recortado; null si no existe o está vacío. */
+    public String campo(int i) {
+        if (i < 0 || i >= nCampos) return null;
+        int ini = campos[2 * i];
+        int fin = campos[2 * i + 1];
+        while (ini < fin && blanco(texto.charAt(ini))) ini++;
+        while (fin > ini && blanco(texto.charAt(fin - 1))) fin--;
+        return ini < fin ? texto.subSequence(ini, fin).toString() : null;
+    }
+
+    /** Valor de la primera "clave:" (sin importar mayúsculas), o null si no está o quedó vacío. */
+    public String valor(String clave) {
+        for (int k = 0; k < nClaves; k += 2) {
+            int ini = claves[2 * k];
+            int largo = claves[2 * k + 1] - ini;
+            if (largo == clave.length() && regionIgual(ini, clave)) {
+                int vIni = claves[2 * k + 2];
+                int vFin = claves[2 * k + 3];
+                return vIni < vFin ? texto.subSequence(vIni, vFin).toString() : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * El texto libre antes de la primera clave, sin la coma que la separa
+     * ("incendio forestal, tag: CABA" → "incendio forestal"); null si no queda nada.
+     */
+    public String libre() {
+        int fin = primeraClave >= 0 ? primeraClave : argsFin;
+        while (fin > argsIni && (blanco(texto.charAt(fin - 1)) || texto.charAt(fin - 1) == ',')) fin--;
+        return argsIni < fin ? texto.subSequence(argsIni, fin).toString() : null;
+    }
+
+    private boolean entreComillas(int ini, int fin) {
+        return fin - ini >= 2 && texto.charAt(ini) == '"' && texto.charAt(fin - 1) == '"';
+    }
+
+    private boolean regionIgual(int ini, String clave) {
+        for (int i = 0; i < clave.length(); i++) {
+            char a = texto.charAt(ini + i);
+            char b = clave.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+        }
+        return true;
+    }
+
+    private static int comilla(CharSequence t, int desde, int fin) {
+        for (int i = desde; i < fin; i++) {
+            if (t.charAt(i) == '"') return i;
+        }
+        return -1;
+    }
+
+    private static int[] agregar(int[] pares, int n, int ini, int fin) {
+        if (2 * n + 1 >= pares.length) pares = Arrays.copyOf(pares, pares.length * 2);
+        pares[2 * n] = ini;
+        pares[2 * n + 1] = fin;
+        return pares;
+    }
+
+    private static boolean blanco(char c) {
+        return Character.isWhitespace(c);
+    }
+}
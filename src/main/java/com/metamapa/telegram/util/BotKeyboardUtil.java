@@ -3,6 +3,7 @@ package com.metamapa.telegram.util;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,14 +12,24 @@ public class BotKeyboardUtil {
     public static InlineKeyboardMarkup pagination(String keyword, String tag, int currentPage, int totalPages) {
         
         String tagValue = (tag == null) ? "_" : tag;
-        
+        return pagination("BUSCAR|" + keyword + "|" + tagValue + "|", currentPage, totalPages);
+    }
+
+    // El callback_data de cada botón es el prefijo seguido del número de página
+    public static InlineKeyboardMarkup pagination(String callbackPrefix, int currentPage, int totalPages) {
+        return pagination(callbackPrefix, currentPage, totalPages, true);
+    }
+
+    // Sin "anterior": para seguir desde un listado que ya se mostró (ej: el resto de /hechos)
+    public static InlineKeyboardMarkup pagination(String callbackPrefix, int currentPage, int totalPages, boolean anterior) {
+
         List<InlineKeyboardButton> row = new ArrayList<>();
 
         // Botón Anterior
-        if (currentPage > 0) {
+        if (anterior && currentPage > 0) {
             InlineKeyboardButton prev = new InlineKeyboardButton();
             prev.setText("◀ Anterior");
-            prev.setCallbackData("BUSCAR|" + keyword + "|" + tagValue + "|" + (currentPage - 1));
+            prev.setCallbackData(callbackPrefix + (currentPage - 1));
             row.add(prev);
         }
 
@@ -26,7 +37,7 @@ public class BotKeyboardUtil {
         if (currentPage < (totalPages - 1)) {
             InlineKeyboardButton next = new InlineKeyboardButton();
             next.setText("▶ Siguiente");
-            next.setCallbackData("BUSCAR|" + keyword + "|" + tagValue + "|" + (currentPage + 1));
+            next.setCallbackData(callbackPrefix + (currentPage + 1));
             row.add(next);
         }
 
@@ -41,4 +52,45 @@ public class BotKeyboardUtil {
     
         return markup;
     }
-}
\ No newline at end of file
+
+    // Sugerencias de /buscar: cada botón busca la keyword sugerida (con el mismo tag) desde la página 0
+    public static InlineKeyboardMarkup sugerencias(List<String> keywords, String tag, int max) {
+        List<InlineKeyboardButton> botones = new ArrayList<>();
+        for (String kw : keywords) {
+            if (botones.size() >= max) break;
+            agregarSugerencia(botones, "🔎 " + kw, kw, tag);
+        }
+        return enFilasDeADos(botones);
+    }
+
+    // Cada botón repite la búsqueda con la etiqueta sugerida
+    public static InlineKeyboardMarkup sugerenciasDeTag(String keyword, List<String> tags, int max) {
+        List<InlineKeyboardButton> botones = new ArrayList<>();
+        for (String t : tags) {
+            if (botones.size() >= max) break;
+            agregarSugerencia(botones, "🏷️ " + t, keyword, t);
+        }
+        return enFilasDeADos(botones);
+    }
+
+    // Las que tienen "|" o no entran en los 64 bytes del callback_data se descartan
+    private static void agregarSugerencia(List<InlineKeyboardButton> botones, String texto, String keyword, String tag) {
+        if (keyword.indexOf('|') >= 0 || (tag != null && tag.indexOf('|') >= 0)) return;
+        String data = "BUSCAR|" + keyword + "|" + (tag == null ? "_" : tag) + "|0";
+        if (data.getBytes(StandardCharsets.UTF_8).length > 64) return;
+        InlineKeyboardButton b = new InlineKeyboardButton();
+        b.setText(texto);
+        b.setCallbackData(data);
+        botones.add(b);
+    }
+
+    private static InlineKeyboardMarkup enFilasDeADos(List<InlineKeyboardButton> botones) {
+        List<List<InlineKeyboardButton>> filas = new ArrayList<>();
+        for (int i = 0; i < botones.size(); i += 2) {
+            filas.add(new ArrayList<>(botones.subList(i, Math.min(i + 2, botones.size()))));
+        }
+        InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
+        markup.setKeyboard(filas);
+        return markup;
+    }
+}
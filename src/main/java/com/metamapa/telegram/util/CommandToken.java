@@ -0,0 +1,46 @@
+package com.metamapa.telegram.util;
+
+/**
+ * Helpers para sacar la "clave de ruteo" de un texto sin partir el mensaje entero.
+ */
+public final class CommandToken {
+
+    private CommandToken() { }
+
+    /**
+     * Devuelve el primer token de un comando, en minúscula y sin el sufijo @bot
+     * ("/Buscar@MetaMapa_bot incendio" → "/buscar"), o null si el texto no es un comando.
+     */
+    public static String of(CharSequence text) {
+        if (text == null) return null;
+        int len = text.length();
+        int start = 0;
+        while (start < len && Character.isWhitespace(text.charAt(start))) start++;
+        if (start >= len || text.charAt(start) != '/') return null;
+
+        int end = start + 1;
+        while (end < len) {
+            char c = text.charAt(end);
+            if (c == '@' || Character.isWhitespace(c)) break;
+            end++;
+        }
+
+        boolean lower = true;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') { lower = false; break; }
+        }
+        String token = text.subSequence(start, end).toString();
+        return lower ? token : token.toLowerCase();
+    }
+
+    /**
+     * Prefijo de un callback_data hasta el primer '|' inclusive ("BUSCAR|x|_|1" → "BUSCAR|"),
+     * o null si no tiene separador.
+     */
+    public static String callbackPrefix(String data) {
+        if (data == null) return null;
+        int sep = data.indexOf('|');
+        return sep < 0 ? null : data.substring(0, sep + 1);
+    }
+}
@@ -0,0 +1,62 @@
+package com.metamapa.telegram.DTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DtoJsonTest {
+
+    // Igual que el ObjectMapper de Spring Boot: módulos de java.time + Blackbird
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .findAndAddModules()
+            .addModule(new BlackbirdModule())
+            .build();
+
+    @Test
+    void leeLosPdisConMomentoComoArrayYCamposSnakeCase() throws Exception {
+        String json = """
+                [{"pdi_id": 7, "descripcion": "Foto", "momento": [2024, 3, 5, 14, 30],
+                  "url_imagen": "https://x/y.png", "otro": true}]
+                """;
+        List<PdiDTO> pdis = mapper.readerForListOf(PdiDTO.class).readValue(json);
+
+        PdiDTO p = pdis.get(0);
+        assertEquals("7", p.id());
+        assertEquals(LocalDateTime.of(2024, 3, 5, 14, 30), p.momento().fecha());
+        assertEquals("https://x/y.png", p.urlImagen());
+    }
+
+    @Test
+    void unMomentoQueNoEsFechaYHoraLocalQuedaComoTexto() throws Exception {
+        String json = """
+                [{"pdi_id": 1, "momento": "2024-03-05T14:30:00"},
+                 {"pdi_id": 2, "momento": "2024-03-05"},
+                 {"pdi_id": 3, "momento": "2024-03-05T14:30:00-03:00"},
+                 {"pdi_id": 4, "momento": [2024, 3]},
+                 {"pdi_id": 5, "momento": null}]
+                """;
+        List<PdiDTO> pdis = mapper.readerForListOf(PdiDTO.class).readValue(json);
+
+        assertEquals(Momento.de(LocalDateTime.of(2024, 3, 5, 14, 30)), pdis.get(0).momento());
+        assertEquals(new Momento(null, "2024-03-05"), pdis.get(1).momento());
+        assertEquals(new Momento(null, "2024-03-05T14:30:00-03:00"), pdis.get(2).momento());
+        assertNull(pdis.get(3).momento().fecha());
+        assertNull(pdis.get(4).momento());
+    }
+
+    @Test
+    void losCuerposNoMandanOpcionalesVacios() throws Exception {
+        String pdi = mapper.writeValueAsString(new NuevoPdiDTO("1", "desc", null, null, null, null, List.of()));
+        assertEquals("{\"hecho_id\":\"1\",\"descripcion\":\"desc\"}", pdi);
+
+        // El String.format de antes rompía el JSON con barras o saltos de línea
+        String solicitud = mapper.writeValueAsString(new NuevaSolicitudDTO("dice \"hola\"\\n", "CREADA", "9"));
+        assertEquals("dice \"hola\"\\n", mapper.readValue(solicitud, SolicitudDTO.class).descripcion());
+    }
+}
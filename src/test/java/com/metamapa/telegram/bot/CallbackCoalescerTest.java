@@ -0,0 +1,42 @@
+package com.metamapa.telegram.bot;
+
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallbackCoalescerTest {
+
+    @Test
+    void seQuedaConElUltimoToqueDeNavegacionDeCadaMensaje() {
+        Update a1 = toque(1, 10, "BUSCAR|x|_|1");
+        Update otro = toque(1, 11, "BUSCAR|y|_|1");
+        Update a2 = toque(1, 10, "BUSCAR|x|_|2");
+        Update confirmar = toque(1, 10, "BORRAR|5");
+        Update a3 = toque(1, 10, "BUSCAR|x|_|3");
+
+        List<Update> r = CallbackCoalescer.coalescer(List.of(a1, otro, a2, confirmar, a3),
+                data -> data.startsWith("BUSCAR|"));
+
+        assertEquals(List.of(otro, confirmar, a3), r);
+    }
+
+    private static Update toque(long chatId, int messageId, String data) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        Message m = new Message();
+        m.setChat(chat);
+        m.setMessageId(messageId);
+        CallbackQuery cq = new CallbackQuery();
+        cq.setMessage(m);
+        cq.setData(data);
+        Update u = new Update();
+        u.setCallbackQuery(cq);
+        return u;
+    }
+}
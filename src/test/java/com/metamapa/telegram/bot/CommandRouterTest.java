@@ -0,0 +1,47 @@
+package com.metamapa.telegram.bot;
+
+import com.metamapa.telegram.handler.BotCommandHandler;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandRouterTest {
+
+    private final BotCommandHandler hecho = new Stub(Set.of("/hecho"), Set.of());
+    private final BotCommandHandler hechos = new Stub(Set.of("/hechos"), Set.of());
+    private final BotCommandHandler buscar = new Stub(Set.of("/buscar"), Set.of("BUSCAR|"));
+    private final CommandRouter router = new CommandRouter(List.of(hecho, hechos, buscar));
+
+    @Test
+    void resuelvePorTokenExacto() {
+        assertSame(hecho, router.route("/hecho 12"));
+        assertSame(hechos, router.route("/hechos miColeccion"));
+        assertSame(hecho, router.route("  /HECHO@MetaMapa_bot 12"));
+        assertNull(router.route("/hechosxyz"));
+    }
+
+    @Test
+    void resuelveCallbacksPorPrefijo() {
+        assertSame(buscar, router.route("BUSCAR|incendio|_|2"));
+        assertNull(router.route("OTRO|x"));
+        assertNull(router.route("texto libre"));
+    }
+
+    @Test
+    void rechazaComandosDuplicados() {
+        assertThrows(IllegalStateException.class,
+                () -> new CommandRouter(List.of(hecho, new Stub(Set.of("/hecho"), Set.of()))));
+    }
+
+    private record Stub(Set<String> commands, Set<String> callbackPrefixes) implements BotCommandHandler {
+        @Override
+        public BotApiMethod<?> handle(Update update) {
+            return null;
+        }
+    }
+}
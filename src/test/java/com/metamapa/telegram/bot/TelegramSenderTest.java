@@ -0,0 +1,136 @@
+package com.metamapa.telegram.bot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.AnswerInlineQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelegramSenderTest {
+
+    private final TelegramSender sender = new TelegramSender(1000, 1000, 1000, 1000, 3, new SimpleMeterRegistry());
+
+    @AfterEach
+    void cerrar() {
+        sender.shutdown();
+    }
+
+    @Test
+    void reintentaEl429SinPerderElOrden() throws Exception {
+        FakeBot bot = new FakeBot();
+        sender.bind(bot);
+
+        List<CompletableFuture<Message>> futures = List.of(
+                sender.enviar(5L, new SendMessage("5", "uno")),
+                sender.enviar(5L, new SendMessage("5", "dos")),
+                sender.enviar(5L, new SendMessage("5", "tres")));
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        // "uno" se intentó dos veces (el primero devolvió 429) y el resto esperó detrás
+        assertEquals(List.of("uno", "uno", "dos", "tres"), bot.intentos);
+        assertEquals(1, sender.getRateLimited());
+        assertEquals(3, sender.getSent());
+        assertEquals(0, sender.getQueueDepth());
+    }
+
+    @Test
+    void conElLimiteGlobalAgotadoSeAtiendeATodosLosChats() throws Exception {
+        // 20 mensajes por segundo para todos; cada chat podría mandar mucho más
+        TelegramSender limitado = new TelegramSender(20, 1000, 1000, 1000, 3, new SimpleMeterRegistry());
+        try {
+            FakeBot bot = new FakeBot();
+            bot.limitado.set(true);
+            limitado.bind(bot);
+
+            // Cinco chats con mucho para mandar gastan la ráfaga inicial...
+            for (long chat = 1; chat <= 5; chat++) {
+                for (int i = 0; i < 100; i++) limitado.enviar(chat, new SendMessage(String.valueOf(chat), "largo"));
+            }
+            Thread.sleep(300);
+            // ...y los que llegan después igual tienen su turno, sin esperar los 500 mensajes
+            List<CompletableFuture<Message>> cortos = new ArrayList<>();
+            for (long chat = 20; chat < 30; chat++) {
+                cortos.add(limitado.enviar(chat, new SendMessage(String.valueOf(chat), "corto")));
+            }
+            CompletableFuture.allOf(cortos.toArray(new CompletableFuture[0])).get(3, TimeUnit.SECONDS);
+            assertTrue(limitado.getQueueDepth() > 300);
+        } finally {
+            limitado.shutdown();
+        }
+    }
+
+    @Test
+    void loQueNoEsDeUnChatNoEsperaElBucketDelChat() throws Exception {
+        // Un mensaje por minuto y por chat: el segundo mensaje a 7 queda esperando
+        TelegramSender lento = new TelegramSender(1000, 1 / 60d, 1000, 1, 3, new SimpleMeterRegistry());
+        try {
+            FakeBot bot = new FakeBot();
+            bot.limitado.set(true);
+            lento.bind(bot);
+
+            lento.enviar(7L, new SendMessage("7", "uno")).get(5, TimeUnit.SECONDS);
+            CompletableFuture<Message> dos = lento.enviar(7L, new SendMessage("7", "dos"));
+            AnswerInlineQuery a = new AnswerInlineQuery();
+            a.setInlineQueryId("q1");
+            a.setResults(List.of());
+            lento.enviarSinChat(a).get(5, TimeUnit.SECONDS);
+
+            assertFalse(dos.isDone());
+            assertEquals(List.of("uno", "answerInlineQuery"), bot.intentos);
+        } finally {
+            lento.shutdown();
+        }
+    }
+
+    private static final class FakeBot extends DefaultAbsSender {
+        private final List<String> intentos = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean limitado = new AtomicBoolean();
+
+        private FakeBot() {
+            super(new DefaultBotOptions(), "token");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <T extends Serializable, Method extends BotApiMethod<T>> CompletableFuture<T> sendApiMethodAsync(Method method) {
+            if (!(method instanceof SendMessage m)) {
+                intentos.add(method.getMethod());
+                return CompletableFuture.completedFuture((T) Boolean.TRUE);
+            }
+            intentos.add(m.getText());
+            if (limitado.compareAndSet(false, true)) {
+                return CompletableFuture.failedFuture(tooManyRequests());
+            }
+            return CompletableFuture.completedFuture((T) new Message());
+        }
+
+        private static TelegramApiRequestException tooManyRequests() {
+            try {
+                ApiResponse<?> resp = new ObjectMapper().readValue(
+                        "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests\","
+                                + "\"parameters\":{\"retry_after\":1}}", ApiResponse.class);
+                return new TelegramApiRequestException("Error sending message", resp);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
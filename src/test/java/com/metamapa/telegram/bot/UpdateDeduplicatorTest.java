@@ -0,0 +1,40 @@
+package com.metamapa.telegram.bot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateDeduplicatorTest {
+
+    @Test
+    void descartaLosRepetidosDentroDeLaVentana() {
+        UpdateDeduplicator dedup = new UpdateDeduplicator(128);
+
+        assertTrue(dedup.primeraVez(1000));
+        assertTrue(dedup.primeraVez(1002));
+        assertTrue(dedup.primeraVez(1001));   // llegó desordenado, pero no se había visto
+        assertFalse(dedup.primeraVez(1001));
+        assertFalse(dedup.primeraVez(1000));
+
+        // Al avanzar la ventana, los bits que se reusan arrancan limpios
+        assertTrue(dedup.primeraVez(1000 + 128 + 5));
+        assertTrue(dedup.primeraVez(1000 + 128 + 1));
+        assertFalse(dedup.primeraVez(1000 + 128 + 1));
+        assertEquals(3, dedup.getDuplicados());
+    }
+
+    @Test
+    void unSaltoHaciaAtrasMasAllaDeLaVentanaEsUnaSecuenciaNueva() {
+        UpdateDeduplicator dedup = new UpdateDeduplicator(128);
+
+        assertTrue(dedup.primeraVez(900_000));
+        assertTrue(dedup.primeraVez(900_001));
+
+        // Telegram reinició los update_id (o se configuró otro webhook) mucho más abajo
+        assertTrue(dedup.primeraVez(5_000));
+        assertTrue(dedup.primeraVez(5_001));
+        assertFalse(dedup.primeraVez(5_000));
+        assertTrue(dedup.primeraVez(5_002));
+        assertEquals(1, dedup.getDuplicados());
+    }
+}
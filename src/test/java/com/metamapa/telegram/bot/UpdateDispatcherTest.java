@@ -0,0 +1,84 @@
+package com.metamapa.telegram.bot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateDispatcherTest {
+
+    private UpdateDispatcher dispatcher;
+
+    @AfterEach
+    void cerrar() {
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    @Test
+    void mantieneElOrdenDentroDeUnChat() throws Exception {
+        dispatcher = new UpdateDispatcher(8, 1000, 1000);
+        List<Integer> vistos = new CopyOnWriteArrayList<>();
+        CountDownLatch fin = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int n = i;
+            assertTrue(dispatcher.submit(42L, () -> {
+                vistos.add(n);
+                fin.countDown();
+            }));
+        }
+
+        assertTrue(fin.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, vistos.get(i));
+        }
+    }
+
+    @Test
+    void unChatLentoNoBloqueaAOtros() throws Exception {
+        dispatcher = new UpdateDispatcher(4, 10, 100);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch otroChat = new CountDownLatch(1);
+
+        dispatcher.submit(1L, () -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        dispatcher.submit(2L, otroChat::countDown);
+
+        assertTrue(otroChat.await(2, TimeUnit.SECONDS));
+        liberar.countDown();
+    }
+
+    @Test
+    void rechazaCuandoSeLlenaLaColaDelChat() {
+        dispatcher = new UpdateDispatcher(1, 2, 100);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Runnable bloqueante = () -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        assertTrue(dispatcher.submit(7L, bloqueante));
+        // La primera tarea puede estar todavía en la cola o ya corriendo
+        int aceptadas = 1;
+        for (int i = 0; i < 5; i++) {
+            if (dispatcher.submit(7L, () -> { })) aceptadas++;
+        }
+
+        assertTrue(aceptadas <= 3);
+        assertTrue(dispatcher.getRejected() >= 3);
+        liberar.countDown();
+    }
+}
@@ -0,0 +1,66 @@
+package com.metamapa.telegram.bot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class WebhookControllerTest {
+
+    private static final String UPDATE = "{\"update_id\":42,\"message\":{\"message_id\":1,\"date\":0,"
+            + "\"chat\":{\"id\":7,\"type\":\"private\"},\"text\":\"/hecho 12\"}}";
+
+    private final MetaMapaBot bot = mock(MetaMapaBot.class);
+
+    private MockMvc mvc(String secreto) {
+        return MockMvcBuilders.standaloneSetup(new WebhookController(bot, secreto))
+                .addPlaceholderValue("metamapa.webhook.path", "/telegram/webhook")
+                .build();
+    }
+
+    @Test
+    void sinSecretoOConOtroDevuelve401() throws Exception {
+        MockMvc mvc = mvc("s3cret0");
+
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(UPDATE))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(UPDATE)
+                        .header(WebhookController.SECRET_HEADER, "otro"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(UPDATE)
+                        .header(WebhookController.SECRET_HEADER, "s3cret0x"))
+                .andExpect(status().isUnauthorized());
+
+        verify(bot, never()).onUpdateReceived(any());
+    }
+
+    @Test
+    void conElSecretoSinConfigurarRechazaTodo() throws Exception {
+        MockMvc mvc = mvc("");
+
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(UPDATE))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(UPDATE)
+                        .header(WebhookController.SECRET_HEADER, ""))
+                .andExpect(status().isUnauthorized());
+
+        verify(bot, never()).onUpdateReceived(any());
+    }
+
+    @Test
+    void conElSecretoCorrectoLlegaAlBot() throws Exception {
+        mvc("s3cret0").perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(UPDATE)
+                        .header(WebhookController.SECRET_HEADER, "s3cret0"))
+                .andExpect(status().isOk());
+
+        verify(bot).onUpdateReceived(argThat((Update u) ->
+                u.getUpdateId() == 42 && "/hecho 12".equals(u.getMessage().getText())));
+    }
+}
@@ -0,0 +1,38 @@
+package com.metamapa.telegram.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtlLruCacheTest {
+
+    @Test
+    void desalojaLaEntradaMenosUsada() {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(2, 1, TimeUnit.MINUTES);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(1, cache.get("a"));   // "b" pasa a ser la menos usada
+        cache.put("c", 3);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void lasEntradasVencen() throws Exception {
+        TtlLruCache<String, Integer> cache = new TtlLruCache<>(10, 50, TimeUnit.MILLISECONDS);
+        cache.put("a", 1);
+        assertTrue(cache.containsFresh("a"));
+        Thread.sleep(80);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+}
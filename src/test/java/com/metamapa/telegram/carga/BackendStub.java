@@ -0,0 +1,166 @@
+package com.metamapa.telegram.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buscador, fuentes, colecciones y solicitudes falsos para la prueba de carga, cada uno bajo
+ * su prefijo ({@link #url}). Todos responden con la misma {@link Perfil}: una demora fija más
+ * un jitter al azar, y una fracción de pedidos que termina en 503.
+ */
+class BackendStub implements AutoCloseable {
+
+    /** Demora de cada respuesta (latencia + hasta jitter ms) y fracción de 503. */
+    record Perfil(long latenciaMs, long jitterMs, double tasaError) { }
+
+    private static final String ETAG = "\"v1\"";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Perfil perfil;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "backend-stub");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, LongAdder> pedidos = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errores = new ConcurrentHashMap<>();
+
+    BackendStub(Perfil perfil) throws IOException {
+        this.perfil = perfil;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/buscador", conPerfil("buscador", this::buscador));
+        server.createContext("/fuentes", conPerfil("fuentes", this::fuentes));
+        server.createContext("/colecciones", conPerfil("colecciones", this::colecciones));
+        server.createContext("/solicitudes", conPerfil("solicitudes", this::solicitudes));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /** URL base de un backend ("buscador", "fuentes", "colecciones" o "solicitudes"). */
+    String url(String backend) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + backend;
+    }
+
+    Map<String, String> resumen() {
+        Map<String, String> m = new TreeMap<>();
+        pedidos.forEach((k, v) -> m.put(k, v.sum() + " pedidos, "
+                + errores.getOrDefault(k, new LongAdder()).sum() + " con 503"));
+        return m;
+    }
+
+    private HttpHandler conPerfil(String nombre, HttpHandler real) {
+        return ex -> {
+            pedidos.computeIfAbsent(nombre, k -> new LongAdder()).increment();
+            ex.getRequestBody().readAllBytes();
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            long demora = perfil.latenciaMs() + (perfil.jitterMs() > 0 ? rnd.nextLong(perfil.jitterMs() + 1) : 0);
+            try {
+                Thread.sleep(demora);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (rnd.nextDouble() < perfil.tasaError()) {
+                errores.computeIfAbsent(nombre, k -> new LongAdder()).increment();
+                ex.sendResponseHeaders(503, -1);
+                ex.close();
+                return;
+            }
+            real.handle(ex);
+        };
+    }
+
+    // GET ?keyword=...&page=N → una página de 10 de un total de 5
+    private void buscador(HttpExchange ex) throws IOException {
+        String query = ex.getRequestURI().getQuery();
+        int page = 0;
+        for (String p : (query == null ? "" : query).split("&")) {
+            if (p.startsWith("page=")) page = Integer.parseInt(p.substring(5));
+        }
+        ObjectNode r = mapper.createObjectNode();
+        ArrayNode content = r.putArray("content");
+        for (int i = 0; i < 10; i++) content.add(hecho(page * 10 + i));
+        r.put("number", page).put("totalPages", 5).put("totalElements", 50)
+                .put("first", page == 0).put("last", page >= 4);
+        responder(ex, 200, r);
+    }
+
+    // GET /hecho/{id} y /hecho/{id}/pdis
+    private void fuentes(HttpExchange ex) throws IOException {
+        String path = ex.getRequestURI().getPath();
+        if (path.endsWith("/pdis")) {
+            ArrayNode pdis = mapper.createArrayNode();
+            for (int i = 0; i < 3; i++) {
+                pdis.addObject().put("id", String.valueOf(i)).put("descripcion", "Foto " + i)
+                        .put("lugar", "Av. Siempre Viva " + (100 + i)).put("momento", "2024-03-05T14:0" + i + ":00")
+                        .put("url_imagen", "https://img.example.com/" + i + ".png")
+                        .put("texto_imagen", "texto reconocido").putArray("etiquetas").add("incendio");
+            }
+            responder(ex, 200, pdis);
+            return;
+        }
+        String id = path.substring(path.lastIndexOf('/') + 1);
+        ObjectNode h = hecho(Integer.parseInt(id));
+        h.put("id", id).put("nombreColeccion", "Incendios 2024");
+        responder(ex, 200, h);
+    }
+
+    // GET /{id}/hechos con ETag: si el bot manda If-None-Match se contesta 304
+    private void colecciones(HttpExchange ex) throws IOException {
+        if (ETAG.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+            ex.sendResponseHeaders(304, -1);
+            ex.close();
+            return;
+        }
+        ArrayNode hechos = mapper.createArrayNode();
+        for (int i = 0; i < 25; i++) hechos.add(hecho(i));
+        ex.getResponseHeaders().add("ETag", ETAG);
+        responder(ex, 200, hechos);
+    }
+
+    // POST /solicitudes
+    private void solicitudes(HttpExchange ex) throws IOException {
+        ObjectNode s = mapper.createObjectNode();
+        s.put("id", String.valueOf(ThreadLocalRandom.current().nextInt(1, 1_000_000)))
+                .put("hecho_id", "42").put("descripcion", "...").put("estado", "PENDIENTE");
+        responder(ex, 201, s);
+    }
+
+    private ObjectNode hecho(int i) {
+        ObjectNode h = mapper.createObjectNode();
+        h.put("titulo", "Incendio forestal " + i).put("descripcion", "Foco activo en la zona " + i)
+                .put("categoria", "Incendio").put("ubicacion", "Córdoba").put("fecha", "2024-03-05")
+                .put("origen", "carga").putArray("etiquetas").add("incendio").add("cordoba");
+        return h;
+    }
+
+    private void responder(HttpExchange ex, int status, Object cuerpo) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(cuerpo);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, json.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(json);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
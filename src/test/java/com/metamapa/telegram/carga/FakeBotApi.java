@@ -0,0 +1,207 @@
+package com.metamapa.telegram.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bot API falso para la prueba de carga: el bot apunta acá con metamapa.telegram.base-url.
+ *
+ * getUpdates hace long polling sobre una cola que llena el driver ({@link #mensaje} y
+ * {@link #callback}); sendMessage y editMessageText contestan un Message válido y se le
+ * avisan al chat que corresponde ({@link #respuestas}). Cualquier otro método devuelve
+ * "true" y solo se cuenta.
+ */
+class FakeBotApi implements AutoCloseable {
+
+    /** Una llamada del bot a un chat: cuándo llegó (System.nanoTime) y a qué mensaje. */
+    record Llamada(String metodo, long chatId, int messageId, long nanos) { }
+
+    // Métodos que no son respuestas a un update (la librería pide getUpdates en minúsculas)
+    private static final List<String> INTERNOS = List.of("getupdates", "deletewebhook", "getme");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "fake-bot-api");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final BlockingQueue<ObjectNode> pendientes = new LinkedBlockingQueue<>();
+    private final Map<Long, BlockingQueue<Llamada>> porChat = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> porMetodo = new ConcurrentHashMap<>();
+    private final AtomicLong updateIds = new AtomicLong();
+    private final AtomicInteger messageIds = new AtomicInteger(1000);
+    private final AtomicInteger callbackIds = new AtomicInteger();
+
+    FakeBotApi() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::atender);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /** URL base para metamapa.telegram.base-url (el bot le agrega token y método). */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    /** Encola un mensaje de texto de un chat privado; devuelve el momento en que quedó disponible. */
+    long mensaje(long chatId, String texto) {
+        ObjectNode m = mensajeBase(chatId, messageIds.incrementAndGet());
+        m.put("text", texto);
+        if (texto.startsWith("/")) {
+            int fin = texto.indexOf(' ');
+            ObjectNode entidad = m.putArray("entities").addObject();
+            entidad.put("type", "bot_command").put("offset", 0).put("length", fin < 0 ? texto.length() : fin);
+        }
+        ObjectNode u = mapper.createObjectNode();
+        u.set("message", m);
+        return encolar(u);
+    }
+
+    /** Encola el toque de un botón inline sobre un mensaje que mandó el bot. */
+    long callback(long chatId, int messageId, String data) {
+        ObjectNode cb = mapper.createObjectNode();
+        cb.put("id", String.valueOf(callbackIds.incrementAndGet()));
+        cb.set("from", usuario(chatId));
+        cb.set("message", mensajeBase(chatId, messageId));
+        cb.put("chat_instance", String.valueOf(chatId));
+        cb.put("data", data);
+        ObjectNode u = mapper.createObjectNode();
+        u.set("callback_query", cb);
+        return encolar(u);
+    }
+
+    private long encolar(ObjectNode u) {
+        u.put("update_id", updateIds.incrementAndGet());
+        long ahora = System.nanoTime();
+        pendientes.add(u);
+        return ahora;
+    }
+
+    /** Cola con lo que el bot le mandó a ese chat (sendMessage / editMessageText / etc.). */
+    BlockingQueue<Llamada> respuestas(long chatId) {
+        return porChat.computeIfAbsent(chatId, k -> new LinkedBlockingQueue<>());
+    }
+
+    /** Llamadas a la Bot API que responden a algún update (sin getUpdates ni las de arranque). */
+    long llamadas() {
+        long total = 0;
+        for (Map.Entry<String, LongAdder> e : porMetodo.entrySet()) {
+            if (!INTERNOS.contains(e.getKey().toLowerCase(Locale.ROOT))) total += e.getValue().sum();
+        }
+        return total;
+    }
+
+    Map<String, Long> llamadasPorMetodo() {
+        Map<String, Long> m = new TreeMap<>();
+        porMetodo.forEach((k, v) -> m.put(k, v.sum()));
+        return m;
+    }
+
+    private void atender(HttpExchange ex) throws IOException {
+        String path = ex.getRequestURI().getPath();
+        String metodo = path.substring(path.lastIndexOf('/') + 1);
+        porMetodo.computeIfAbsent(metodo, k -> new LongAdder()).increment();
+        JsonNode pedido;
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            pedido = body.length > 0 ? mapper.readTree(body) : mapper.createObjectNode();
+        }
+
+        JsonNode result = switch (metodo.toLowerCase(Locale.ROOT)) {
+            case "getupdates" -> updates(pedido);
+            case "sendmessage" -> enviado("sendMessage", pedido);
+            case "editmessagetext" -> enviado("editMessageText", pedido);
+            case "getme" -> usuario(1).put("is_bot", true).put("username", "carga_bot");
+            default -> mapper.getNodeFactory().booleanNode(true);
+        };
+        ObjectNode resp = mapper.createObjectNode();
+        resp.put("ok", true);
+        resp.set("result", result);
+        byte[] json = mapper.writeValueAsBytes(resp);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, json.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(json);
+        }
+    }
+
+    // Long polling: espera el primer update (hasta 1 s, así el bot se apaga rápido) y manda los que haya
+    private ArrayNode updates(JsonNode pedido) {
+        ArrayNode result = mapper.createArrayNode();
+        int limite = pedido.path("limit").asInt(100);
+        long espera = Math.min(pedido.path("timeout").asLong(0), 1) * 1000;
+        try {
+            ObjectNode primero = pendientes.poll(espera, TimeUnit.MILLISECONDS);
+            if (primero == null) return result;
+            result.add(primero);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return result;
+        }
+        List<ObjectNode> resto = new ArrayList<>();
+        pendientes.drainTo(resto, limite - 1);
+        result.addAll(resto);
+        return result;
+    }
+
+    private ObjectNode enviado(String metodo, JsonNode pedido) {
+        long ahora = System.nanoTime();
+        long chatId = pedido.path("chat_id").asLong();
+        int messageId = "editMessageText".equals(metodo)
+                ? pedido.path("message_id").asInt()
+                : messageIds.incrementAndGet();
+        respuestas(chatId).add(new Llamada(metodo, chatId, messageId, ahora));
+        ObjectNode m = mensajeBase(chatId, messageId);
+        m.set("from", usuario(1).put("is_bot", true));
+        m.put("text", pedido.path("text").asText(""));
+        return m;
+    }
+
+    private ObjectNode mensajeBase(long chatId, int messageId) {
+        ObjectNode m = mapper.createObjectNode();
+        m.put("message_id", messageId);
+        m.put("date", System.currentTimeMillis() / 1000);
+        ObjectNode chat = m.putObject("chat");
+        chat.put("id", chatId).put("type", "private");
+        m.set("from", usuario(chatId));
+        return m;
+    }
+
+    private ObjectNode usuario(long id) {
+        ObjectNode u = mapper.createObjectNode();
+        u.put("id", id).put("is_bot", false).put("first_name", "Usuario " + id);
+        return u;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
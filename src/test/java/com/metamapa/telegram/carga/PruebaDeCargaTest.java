@@ -0,0 +1,153 @@
+package com.metamapa.telegram.carga;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Prueba de carga punta a punta: levanta el bot completo contra {@link FakeBotApi} y
+ * {@link BackendStub}, y hace conversar a N chats sintéticos. Cada chat manda un update,
+ * espera la primera respuesta y recién ahí manda el siguiente (/buscar, ▶ sobre ese
+ * resultado, /hecho, /hechos y /solicitar_borrado, en ronda).
+ *
+ * No corre con el resto de los tests; se activa con -Dcarga=true:
+ *
+ *   mvn test -Dtest=PruebaDeCargaTest -Dcarga=true -Dcarga.chats=100 -Dcarga.latencia-ms=200
+ *
+ * Informa updates por segundo, p50/p99 de la latencia (desde que el update está disponible
+ * en getUpdates hasta la primera llamada del bot a ese chat) y llamadas a Telegram por update.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+class PruebaDeCargaTest {
+
+    private static final int CHATS = Integer.getInteger("carga.chats", 50);
+    private static final int UPDATES_POR_CHAT = Integer.getInteger("carga.updates-por-chat", 20);
+    private static final long LATENCIA_MS = Long.getLong("carga.latencia-ms", 50);
+    private static final long JITTER_MS = Long.getLong("carga.jitter-ms", 50);
+    private static final double TASA_ERROR = Double.parseDouble(System.getProperty("carga.tasa-error", "0"));
+    // Sin los límites reales de Telegram se mide el bot y no el token bucket (-Dcarga.telegram-por-segundo=30 para verlos)
+    private static final String TELEGRAM_POR_SEGUNDO = System.getProperty("carga.telegram-por-segundo", "10000");
+    // Silencio que se espera después de la primera respuesta para juntar las demás partes
+    private static final long PAUSA_MS = Long.getLong("carga.pausa-ms", 20);
+    private static final long TIMEOUT_MS = 30_000;
+
+    private static final String DESCRIPCION = "El hecho está duplicado y tiene datos personales. ".repeat(12);
+
+    private static FakeBotApi telegram;
+    private static BackendStub backends;
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry r) throws IOException {
+        telegram = new FakeBotApi();
+        backends = new BackendStub(new BackendStub.Perfil(LATENCIA_MS, JITTER_MS, TASA_ERROR));
+
+        r.add("metamapa.bot.mode", () -> "polling");
+        r.add("metamapa.telegram.base-url", telegram::baseUrl);
+        r.add("metamapa.telegram.token", () -> "123456:carga");
+        r.add("metamapa.telegram.username", () -> "carga_bot");
+        r.add("metamapa.telegram.global-per-second", () -> TELEGRAM_POR_SEGUNDO);
+        r.add("metamapa.telegram.chat-per-second", () -> TELEGRAM_POR_SEGUNDO);
+        r.add("metamapa.warmup.enabled", () -> "false");
+        r.add("metamapa.api.url", () -> backends.url("buscador"));
+        r.add("metamapa.backends.buscador.url", () -> backends.url("buscador"));
+        r.add("metamapa.backends.fuentes.url", () -> backends.url("fuentes"));
+        r.add("metamapa.backends.colecciones.url", () -> backends.url("colecciones"));
+        r.add("metamapa.backends.solicitudes.url", () -> backends.url("solicitudes"));
+    }
+
+    private record Resultado(List<Long> latencias, int sinRespuesta) { }
+
+    @Test
+    void chatsSinteticos() throws Exception {
+        // Una ronda suelta para que el polling esté andando y el JIT haya pasado por los handlers
+        Resultado calentamiento = conversar(1, 5);
+        assertEquals(0, calentamiento.sinRespuesta(), "el bot no respondió al calentamiento");
+
+        long llamadasAntes = telegram.llamadas();
+        ExecutorService pool = Executors.newFixedThreadPool(CHATS);
+        List<Future<Resultado>> futuros = new ArrayList<>();
+        long inicio = System.nanoTime();
+        for (int c = 0; c < CHATS; c++) {
+            long chatId = 10_000 + c;
+            futuros.add(pool.submit(() -> conversar(chatId, UPDATES_POR_CHAT)));
+        }
+        List<Long> latencias = new ArrayList<>();
+        int sinRespuesta = 0;
+        for (Future<Resultado> f : futuros) {
+            Resultado r = f.get();
+            latencias.addAll(r.latencias());
+            sinRespuesta += r.sinRespuesta();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        pool.shutdown();
+
+        int updates = CHATS * UPDATES_POR_CHAT;
+        long llamadas = telegram.llamadas() - llamadasAntes;
+        Collections.sort(latencias);
+        System.out.printf("%n=== Prueba de carga: %d chats × %d updates, backends %d+%d ms, %.0f%% de 503 ===%n",
+                CHATS, UPDATES_POR_CHAT, LATENCIA_MS, JITTER_MS, TASA_ERROR * 100);
+        System.out.printf("Updates: %d en %.2f s → %.1f updates/s (sin respuesta: %d)%n",
+                updates, segundos, updates / segundos, sinRespuesta);
+        System.out.printf("Latencia punta a punta: p50 %d ms, p99 %d ms, máx %d ms%n",
+                percentil(latencias, 0.50), percentil(latencias, 0.99), percentil(latencias, 1.0));
+        System.out.printf("Llamadas a Telegram por update: %.2f %s%n",
+                (double) llamadas / updates, telegram.llamadasPorMetodo());
+        System.out.println("Backends: " + backends.resumen());
+
+        assertEquals(0, sinRespuesta, "hubo updates sin respuesta");
+    }
+
+    private Resultado conversar(long chatId, int cuantos) throws InterruptedException {
+        BlockingQueue<FakeBotApi.Llamada> respuestas = telegram.respuestas(chatId);
+        List<Long> latencias = new ArrayList<>(cuantos);
+        int sinRespuesta = 0;
+        int ultimoMensaje = -1;
+
+        for (int i = 0; i < cuantos; i++) {
+            long enviado = switch (i % 5) {
+                case 0 -> telegram.mensaje(chatId, "/buscar incendio");
+                // ▶ sobre el resultado de la búsqueda anterior
+                case 1 -> ultimoMensaje > 0
+                        ? telegram.callback(chatId, ultimoMensaje, "BUSCAR|incendio|_|1")
+                        : telegram.mensaje(chatId, "/buscar incendio");
+                case 2 -> telegram.mensaje(chatId, "/hecho " + (i % 50 + 1));
+                // Pocas colecciones, así se ve el efecto de la cache y los 304
+                case 3 -> telegram.mensaje(chatId, "/hechos col-" + chatId % 5);
+                default -> telegram.mensaje(chatId, "/solicitar_borrado 42 " + DESCRIPCION);
+            };
+
+            FakeBotApi.Llamada primera = respuestas.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (primera == null) {
+                sinRespuesta++;
+                continue;
+            }
+            latencias.add(TimeUnit.NANOSECONDS.toMillis(primera.nanos() - enviado));
+            // Las demás partes de la misma respuesta no cuentan para el próximo update
+            for (FakeBotApi.Llamada l = primera; l != null; l = respuestas.poll(PAUSA_MS, TimeUnit.MILLISECONDS)) {
+                if ("sendMessage".equals(l.metodo()) && i % 5 == 0) ultimoMensaje = l.messageId();
+            }
+        }
+        return new Resultado(latencias, sinRespuesta);
+    }
+
+    private static long percentil(List<Long> ordenadas, double p) {
+        if (ordenadas.isEmpty()) return 0;
+        int i = (int) Math.ceil(p * ordenadas.size()) - 1;
+        return ordenadas.get(Math.max(0, Math.min(i, ordenadas.size() - 1)));
+    }
+}
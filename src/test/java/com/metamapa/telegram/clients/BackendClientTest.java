@@ -0,0 +1,225 @@
+package com.metamapa.telegram.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackendClientTest {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private BackendClient client;
+    private final AtomicInteger inestables = new AtomicInteger();
+    private final AtomicInteger lentos = new AtomicInteger();
+
+    @BeforeEach
+    void levantar() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hecho/1", ex -> {
+            byte[] json = "{\"id\":1,\"titulo\":\"Incendio\"}".getBytes(StandardCharsets.UTF_8);
+            boolean gzip = String.valueOf(ex.getRequestHeaders().getFirst("Accept-Encoding")).contains("gzip");
+            if (gzip) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+                    gz.write(json);
+                }
+                json = bos.toByteArray();
+                ex.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            ex.sendResponseHeaders(200, json.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(json);
+            }
+        });
+        server.createContext("/inestable", ex -> {
+            // Falla la primera vez con 503 y después responde bien
+            int status = inestables.getAndIncrement() == 0 ? 503 : 204;
+            ex.sendResponseHeaders(status, -1);
+            ex.close();
+        });
+        server.createContext("/lento", ex -> {
+            lentos.incrementAndGet();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] json = "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(200, json.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(json);
+            }
+        });
+        server.createContext("/versionado", ex -> {
+            if ("\"v1\"".equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                ex.sendResponseHeaders(304, -1);
+                ex.close();
+                return;
+            }
+            byte[] json = "[1,2,3]".getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("ETag", "\"v1\"");
+            ex.sendResponseHeaders(200, json.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(json);
+            }
+        });
+        server.createContext("/hecho/404", ex -> {
+            ex.sendResponseHeaders(404, -1);
+            ex.close();
+        });
+        server.start();
+
+        String url = "http://127.0.0.1:" + server.getAddress().getPort();
+        MockEnvironment env = new MockEnvironment();
+        for (Backend b : Backend.values()) {
+            env.setProperty("metamapa.backends." + b.key() + ".url", url);
+        }
+        executor = Executors.newFixedThreadPool(2);
+        client = new BackendClient(env, new ObjectMapper(), new BackendReadiness(), executor, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void bajar() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void descomprimeGzipYDecodifica() {
+        Map<String, Object> hecho = client.get(Backend.FUENTES, "/hecho/1", Map.class);
+
+        assertEquals("Incendio", hecho.get("titulo"));
+        assertEquals(1, client.stats(Backend.FUENTES).getRequests());
+        assertEquals(0, client.stats(Backend.FUENTES).getInFlight());
+    }
+
+    @Test
+    void leeElCuerpoComoStream() {
+        String json = client.stream(Backend.FUENTES, "/hecho/1",
+                in -> new String(in.readAllBytes(), StandardCharsets.UTF_8));
+
+        assertTrue(json.contains("Incendio"));
+        assertThrows(HttpClientErrorException.NotFound.class,
+                () -> client.stream(Backend.FUENTES, "/hecho/404", in -> in.readAllBytes()));
+    }
+
+    @Test
+    void revalidaConIfNoneMatchYReusaLaCopiaCon304() {
+        RespuestaValidada<String> primera = client.streamCondicional(Backend.COLECCIONES, "/versionado", null,
+                (in, revalidable) -> {
+                    assertTrue(revalidable);
+                    return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                });
+        assertEquals("[1,2,3]", primera.valor());
+        assertEquals("\"v1\"", primera.etag());
+
+        RespuestaValidada<String> segunda = client.streamCondicional(Backend.COLECCIONES, "/versionado", primera,
+                (in, revalidable) -> fail("con 304 no hay cuerpo que leer"));
+        assertSame(primera, segunda);
+    }
+
+    @Test
+    void unaPruebaDelCircuitoInterrumpidaNoLoDejaTrabado() throws Exception {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("metamapa.resilience.failure-threshold", "1")
+                .withProperty("metamapa.resilience.open-for", "50ms");
+        env.setConversionService(new ApplicationConversionService());
+        String url = "http://127.0.0.1:" + server.getAddress().getPort();
+        for (Backend b : Backend.values()) {
+            env.setProperty("metamapa.backends." + b.key() + ".url", url);
+        }
+        BackendClient c = new BackendClient(env, new ObjectMapper(), new BackendReadiness(), executor, new SimpleMeterRegistry());
+
+        // El 503 abre el circuito
+        assertThrows(RestClientException.class, () -> c.stream(Backend.COLECCIONES, "/inestable", in -> null));
+        Thread.sleep(80);
+
+        // La prueba del semiabierto se interrumpe antes de tener respuesta
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(ResourceAccessException.class, () -> c.stream(Backend.COLECCIONES, "/lento", in -> null));
+        } finally {
+            Thread.interrupted();
+        }
+
+        // La siguiente puede salir como prueba y cierra el circuito
+        assertEquals("[1,2,3]", c.stream(Backend.COLECCIONES, "/versionado",
+                in -> new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+        assertEquals("CERRADO", c.resilience(Backend.COLECCIONES).getEstadoCircuito());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void losGetIgualesEnVueloCompartenUnaLlamada() {
+        List<CompletableFuture<Map>> futuros = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futuros.add(client.getAsync(Backend.FUENTES, "/lento", Map.class));
+        }
+        Map<String, Object> primero = BackendClient.join(futuros.get(0));
+        for (CompletableFuture<Map> f : futuros) {
+            assertSame(primero, BackendClient.join(f));
+        }
+
+        assertEquals(1, lentos.get());
+        assertEquals(4, client.singleFlight(Backend.FUENTES).getCompartidos());
+        assertEquals(0, client.singleFlight(Backend.FUENTES).getEnVuelo());
+
+        // Terminada la llamada, el siguiente pedido va de nuevo al backend
+        client.get(Backend.FUENTES, "/lento", Map.class);
+        assertEquals(2, lentos.get());
+    }
+
+    @Test
+    void traduceLos4xxComoRestTemplate() {
+        assertThrows(HttpClientErrorException.NotFound.class,
+                () -> client.get(Backend.FUENTES, "/hecho/404", Map.class));
+    }
+
+    @Test
+    void reintentaLosGetPeroNoLosPost() {
+        assertEquals(204, client.send(BackendRequest.get(Backend.FUENTES, "/inestable")).status());
+        assertEquals(2, inestables.get());
+        assertEquals(1, client.resilience(Backend.FUENTES).getReintentos());
+
+        inestables.set(0);
+        assertEquals(503, client.send(BackendRequest.post(Backend.FUENTES, "/inestable", "{}")).status());
+        assertEquals(1, inestables.get());
+    }
+
+    @Test
+    void fallaEnseguidaMientrasElBackendDespierta() {
+        client.readiness().marcar(Backend.FUENTES, BackendReadiness.Estado.DESPERTANDO);
+
+        assertThrows(BackendDespertandoException.class,
+                () -> client.get(Backend.FUENTES, "/hecho/1", Map.class));
+        assertEquals(0, client.stats(Backend.FUENTES).getRequests());
+
+        // El probe no pasa por el chequeo y, al responder, deja el backend listo
+        client.probeAsync(Backend.FUENTES).join();
+        assertEquals(BackendReadiness.Estado.LISTO, client.readiness().estado(Backend.FUENTES));
+    }
+}
@@ -0,0 +1,42 @@
+package com.metamapa.telegram.clients;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackendReadinessTest {
+
+    private final BackendReadiness readiness = new BackendReadiness();
+    private final List<Backend> despertados = new ArrayList<>();
+
+    BackendReadinessTest() {
+        readiness.setOnDormido(despertados::add);
+    }
+
+    @Test
+    void unTimeoutDeUnBackendQueRespondioHacePocoNoLoDespierta() {
+        readiness.respondio(Backend.FUENTES);
+
+        readiness.noRespondio(Backend.FUENTES, false);
+        assertEquals(BackendReadiness.Estado.LISTO, readiness.estado(Backend.FUENTES));
+        assertTrue(despertados.isEmpty());
+
+        // Si ni siquiera conecta, sí
+        readiness.noRespondio(Backend.FUENTES, true);
+        assertTrue(readiness.despertando(Backend.FUENTES));
+        assertEquals(List.of(Backend.FUENTES), despertados);
+    }
+
+    @Test
+    void unTimeoutSinContactoPrevioEsUnArranqueEnFrio() {
+        readiness.noRespondio(Backend.COLECCIONES, false);
+        assertTrue(readiness.despertando(Backend.COLECCIONES));
+
+        // Ya despertando: no se vuelve a avisar
+        readiness.noRespondio(Backend.COLECCIONES, true);
+        assertEquals(List.of(Backend.COLECCIONES), despertados);
+    }
+}
@@ -0,0 +1,76 @@
+package com.metamapa.telegram.clients;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackendResilienceTest {
+
+    @Test
+    void elCircuitoSeAbreYDejaPasarUnaSolaPrueba() {
+        CircuitBreaker cb = new CircuitBreaker(2, TimeUnit.SECONDS.toNanos(10));
+        long t = 0;
+
+        cb.falla(t);
+        assertTrue(cb.permitir(t));
+        cb.falla(t);
+        assertEquals(CircuitBreaker.Estado.ABIERTO, cb.estado());
+        assertFalse(cb.permitir(t + TimeUnit.SECONDS.toNanos(5)));
+
+        // Pasado el tiempo abierto sale un único pedido de prueba
+        long despues = t + TimeUnit.SECONDS.toNanos(11);
+        assertTrue(cb.permitir(despues));
+        assertFalse(cb.permitir(despues));
+
+        cb.exito();
+        assertEquals(CircuitBreaker.Estado.CERRADO, cb.estado());
+        assertTrue(cb.permitir(despues));
+    }
+
+    @Test
+    void unaPruebaQueNoSalioLiberaElLugar() {
+        CircuitBreaker cb = new CircuitBreaker(1, TimeUnit.SECONDS.toNanos(10));
+        cb.falla(0);
+        long despues = TimeUnit.SECONDS.toNanos(11);
+        assertTrue(cb.permitir(despues));
+
+        // La prueba se interrumpió antes de tener respuesta
+        cb.liberar();
+        assertEquals(CircuitBreaker.Estado.SEMIABIERTO, cb.estado());
+        assertTrue(cb.permitir(despues));
+        assertFalse(cb.permitir(despues));
+    }
+
+    @Test
+    void elTimeoutSaleDeLaLatenciaObservada() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("metamapa.resilience.min-samples", "16")
+                .withProperty("metamapa.resilience.min-timeout", "100ms");
+        env.setConversionService(new ApplicationConversionService()); // "100ms" → Duration, como en la app
+        BackendResilience r = new BackendResilience(BackendResilience.Ajustes.desde(env), Duration.ofSeconds(10));
+        assertEquals(10_000, r.getTimeoutMillis());
+
+        for (int i = 0; i < 16; i++) {
+            r.registrar(TimeUnit.MILLISECONDS.toNanos(200), false);
+        }
+        // p99 = 200ms × factor 3
+        assertEquals(600, r.getTimeoutMillis());
+    }
+
+    @Test
+    void losReintentosGastanPresupuesto() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("metamapa.resilience.retry-budget-max", "1")
+                .withProperty("metamapa.resilience.max-attempts", "5");
+        BackendResilience r = new BackendResilience(BackendResilience.Ajustes.desde(env), Duration.ofSeconds(10));
+
+        assertTrue(r.puedeReintentar(1));
+        assertFalse(r.puedeReintentar(1));
+        assertEquals(1, r.getSinPresupuesto());
+    }
+}
@@ -0,0 +1,117 @@
+package com.metamapa.telegram.geo;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.HechoDetalleDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceGeoTest {
+
+    @Test
+    void losVecinosDeLaGrillaSonLosDeFuerzaBruta() {
+        Random rnd = new Random(42);
+        GrillaGeo<Integer> grilla = new GrillaGeo<>(0.05);
+        List<double[]> puntos = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double lat = -35 + rnd.nextDouble(), lon = -59 + rnd.nextDouble();
+            puntos.add(new double[]{lat, lon, i});
+            grilla.agregar(i, lat, lon);
+        }
+
+        for (int q = 0; q < 20; q++) {
+            Coordenada c = new Coordenada(-35 + rnd.nextDouble() * 1.4 - 0.2, -59 + rnd.nextDouble() * 1.4 - 0.2);
+            List<Integer> esperados = puntos.stream()
+                    .sorted(Comparator.comparingDouble(p -> c.distanciaKm(p[0], p[1])))
+                    .limit(10)
+                    .map(p -> (int) p[2])
+                    .toList();
+            List<Integer> obtenidos = grilla.cercanos(c.lat(), c.lon(), 10).stream()
+                    .map(GrillaGeo.Vecino::valor)
+                    .toList();
+            assertEquals(esperados, obtenidos);
+        }
+    }
+
+    @Test
+    void ubicaPorNombrePorParteOPorCoordenadas() {
+        Gazetteer g = new Gazetteer(Map.of(
+                "palermo", new Coordenada(-34.578, -58.427),
+                "tigre", new Coordenada(-34.426, -58.58)));
+
+        assertEquals(new Coordenada(-34.578, -58.427), g.ubicar("PALERMO"));
+        assertEquals(new Coordenada(-34.578, -58.427), g.ubicar("Palermo, CABA"));
+        assertEquals(new Coordenada(-34.426, -58.58), g.ubicar("Delta - Tigre"));
+        assertEquals(new Coordenada(-31.4, -64.18), g.ubicar("-31.4, -64.18"));
+        assertNull(g.ubicar("Rosario"));
+    }
+
+    @Test
+    void elMismoHechoDeUnListadoYDeHechoEsUnSoloPunto() {
+        Gazetteer g = new Gazetteer(Map.of("tigre", new Coordenada(-34.426, -58.58)));
+        IndiceGeo geo = new IndiceGeo(g, true, 0.05, 100, 50);
+        LocalDate fecha = LocalDate.of(2024, 3, 5);
+
+        geo.aprender(new HechoDTO("Incendio", null, List.of(), "Ambiental", "Tigre", fecha, null));
+        geo.aprender(new HechoDetalleDTO("12", "Incendio", null, "incendios", "Ambiental", "Tigre", fecha, null, List.of()), null);
+        // Volver a verlo en un listado no le saca el ID
+        geo.aprender(new HechoDTO("Incendio", null, List.of(), "Ambiental", "Tigre", fecha, null));
+
+        assertEquals(1, geo.getPuntos());
+        IndiceGeo.Punto p = geo.cercanos(new Coordenada(-34.43, -58.58), 0, 5).content().get(0).punto();
+        assertEquals("12", p.hechoId());
+    }
+
+    @Test
+    void llenoDescartaElQueHaceMasQueNoSeVe() {
+        Gazetteer g = new Gazetteer(Map.of(
+                "palermo", new Coordenada(-34.578, -58.427),
+                "recoleta", new Coordenada(-34.587, -58.397),
+                "tigre", new Coordenada(-34.426, -58.58)));
+        IndiceGeo geo = new IndiceGeo(g, true, 0.05, 2, 50);
+
+        geo.aprender(new HechoDTO("Bache", null, List.of(), null, "Palermo", null, null));
+        geo.aprender(new HechoDTO("Corte de luz", null, List.of(), null, "Recoleta", null, null));
+        // Bache se vuelve a ver: el más viejo pasa a ser Corte de luz
+        geo.aprender(new HechoDTO("Bache", null, List.of(), null, "Palermo", null, null));
+        geo.aprender(new HechoDTO("Incendio", null, List.of(), null, "Tigre", null, null));
+
+        assertEquals(2, geo.getPuntos());
+        List<String> titulos = geo.cercanos(new Coordenada(-34.58, -58.43), 0, 5).content().stream()
+                .map(c -> c.punto().titulo()).toList();
+        assertEquals(List.of("Bache", "Incendio"), titulos);
+    }
+
+    @Test
+    void paginaLosHechosMasCercanos() {
+        Gazetteer g = new Gazetteer(Map.of(
+                "palermo", new Coordenada(-34.578, -58.427),
+                "recoleta", new Coordenada(-34.587, -58.397),
+                "tigre", new Coordenada(-34.426, -58.58)));
+        IndiceGeo geo = new IndiceGeo(g, true, 0.05, 100, 50);
+        geo.aprender(List.of(
+                new HechoDTO("Incendio", null, List.of(), "Ambiental", "Tigre", null, null),
+                new HechoDTO("Corte de luz", null, List.of(), "Servicios", "Recoleta", null, null),
+                new HechoDTO("Bache", null, List.of(), "Vía pública", "Palermo", null, null),
+                new HechoDTO("Sin lugar", null, List.of(), null, "Marte", null, null)));
+        // Repetido: no se agrega dos veces
+        geo.aprender(new HechoDTO("Bache", null, List.of(), "Vía pública", "Palermo", null, null));
+
+        assertEquals(3, geo.getPuntos());
+        PageResponse<IndiceGeo.Cercano> p0 = geo.cercanos(new Coordenada(-34.58, -58.43), 0, 2);
+        assertEquals(List.of("Bache", "Corte de luz"), p0.content().stream().map(c -> c.punto().titulo()).toList());
+        assertEquals(2, p0.totalPages());
+
+        PageResponse<IndiceGeo.Cercano> p1 = geo.cercanos(new Coordenada(-34.58, -58.43), 1, 2);
+        assertEquals(List.of("Incendio"), p1.content().stream().map(c -> c.punto().titulo()).toList());
+        assertTrue(p1.last());
+    }
+}
@@ -0,0 +1,37 @@
+package com.metamapa.telegram.handler;
+
+import com.metamapa.telegram.geo.IndiceGeo;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CercaHandlerTest {
+
+    private final CercaHandler handler = new CercaHandler(mock(IndiceGeo.class), 5);
+
+    @Test
+    void soloPideLaUbicacionConElBotonEnUnChatPrivado() {
+        SendMessage privado = (SendMessage) handler.handle(cerca(7L, "private"));
+        assertInstanceOf(ReplyKeyboardMarkup.class, privado.getReplyMarkup());
+
+        // En un grupo Telegram rechaza el botón: solo texto
+        SendMessage grupo = (SendMessage) handler.handle(cerca(-100L, "supergroup"));
+        assertNull(grupo.getReplyMarkup());
+        assertTrue(grupo.getText().contains("/cerca <lugar>"));
+    }
+
+    private static Update cerca(long chatId, String tipo) {
+        Message m = new Message();
+        m.setChat(new Chat(chatId, tipo));
+        m.setText("/cerca");
+        Update u = new Update();
+        u.setMessage(m);
+        return u;
+    }
+}
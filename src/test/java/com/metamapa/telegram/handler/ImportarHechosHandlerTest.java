@@ -0,0 +1,75 @@
+package com.metamapa.telegram.handler;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.metamapa.telegram.DTO.NuevoHechoDTO;
+import com.metamapa.telegram.bot.TelegramSender;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Document;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ImportarHechosHandlerTest {
+
+    private final BackendClient backend = mock(BackendClient.class);
+    private final TelegramSender sender = mock(TelegramSender.class);
+
+    @Test
+    void unPedidoLentoNoFrenaAlResto() throws Exception {
+        Message estado = new Message();
+        estado.setMessageId(99);
+        doReturn(CompletableFuture.completedFuture(estado)).when(sender).enviar(anyLong(), any());
+        when(sender.descargarArchivo("f1")).thenReturn(new ByteArrayInputStream(
+                "bosques,A\nbosques,B\nbosques,C\nbosques,D\nbosques,E\nbosques,F\n".getBytes(StandardCharsets.UTF_8)));
+        when(backend.reader(NuevoHechoDTO.class)).thenReturn(JsonMapper.builder().build().readerFor(NuevoHechoDTO.class));
+
+        // El primero no contesta hasta que salieron todos los demás
+        CompletableFuture<BackendResponse> primero = new CompletableFuture<>();
+        AtomicInteger enviados = new AtomicInteger();
+        when(backend.sendAsync(any())).thenAnswer(inv -> {
+            int n = enviados.incrementAndGet();
+            if (n == 1) return primero;
+            if (n == 6) primero.complete(new BackendResponse(201, null, null));
+            return CompletableFuture.completedFuture(new BackendResponse(201, null, null));
+        });
+
+        ImportarHechosHandler handler = new ImportarHechosHandler(backend, sender, 1000, 2,
+                DataSize.ofMegabytes(5), Duration.ofSeconds(3));
+        List<BotApiMethod<?>> respuesta = handler.handleBatch(importar());
+
+        assertEquals(6, enviados.get());
+        String resumen = ((EditMessageText) respuesta.get(0)).getText();
+        assertTrue(resumen.contains("Hechos creados: 6"), resumen);
+    }
+
+    private static Update importar() {
+        Document doc = new Document();
+        doc.setFileId("f1");
+        doc.setFileName("hechos.csv");
+        doc.setFileSize(100L);
+        Message m = new Message();
+        m.setChat(new Chat(7L, "private"));
+        m.setCaption("/importar_hechos");
+        m.setDocument(doc);
+        Update u = new Update();
+        u.setMessage(m);
+        return u;
+    }
+}
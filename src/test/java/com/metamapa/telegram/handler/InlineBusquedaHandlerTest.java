@@ -0,0 +1,102 @@
+package com.metamapa.telegram.handler;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import com.metamapa.telegram.bot.TelegramSender;
+import com.metamapa.telegram.bot.UpdateDispatcher;
+import com.metamapa.telegram.service.BusquedaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.telegram.telegrambots.meta.api.methods.AnswerInlineQuery;
+import org.telegram.telegrambots.meta.api.objects.User;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.InlineQuery;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InlineBusquedaHandlerTest {
+
+    private final BusquedaService busqueda = mock(BusquedaService.class);
+    private final TelegramSender sender = mock(TelegramSender.class);
+    private final UpdateDispatcher dispatcher = new UpdateDispatcher(2, 10, 100);
+    private final InlineBusquedaHandler handler =
+            new InlineBusquedaHandler(busqueda, dispatcher, sender, Duration.ofMillis(100), 3);
+
+    @AfterEach
+    void bajar() {
+        handler.shutdown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void soloBuscaLaUltimaConsultaDeCadaRafaga() {
+        HechoDTO h = new HechoDTO("Incendio <Delta>", null, List.of("CABA"), "Ambiental", "Tigre", null, null);
+        when(busqueda.buscar("incendio", "CABA", 0)).thenReturn(new PageResponse<>(List.of(h), 0, 3, 30, true, false));
+        when(busqueda.segundosVigentes("incendio", "CABA", 0)).thenReturn(90L);
+
+        handler.recibir(consulta("1", "ince"));
+        handler.recibir(consulta("2", "incen"));
+        handler.recibir(consulta("3", "incendio #CABA"));
+
+        ArgumentCaptor<AnswerInlineQuery> captor = ArgumentCaptor.forClass(AnswerInlineQuery.class);
+        verify(sender, timeout(2000)).enviarSinChat(captor.capture());
+        verify(busqueda, times(1)).buscar(anyString(), any(), anyInt());
+
+        AnswerInlineQuery a = captor.getValue();
+        assertEquals("3", a.getInlineQueryId());
+        assertEquals(90, a.getCacheTime());
+        assertEquals("1", a.getNextOffset());
+        assertEquals(1, a.getResults().size());
+    }
+
+    @Test
+    void noEsperaDetrasDelChatPrivado() throws Exception {
+        when(busqueda.enCache("agua", null, 0)).thenReturn(true);
+        when(busqueda.buscar("agua", null, 0)).thenReturn(new PageResponse<>(List.of(), 0, 3, 0, true, true));
+
+        // El chat privado del mismo usuario está ocupado con algo lento
+        CountDownLatch liberar = new CountDownLatch(1);
+        dispatcher.submit(7L, () -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            handler.recibir(consulta("1", "agua"));
+            verify(sender, timeout(2000)).enviarSinChat(any(AnswerInlineQuery.class));
+            verify(sender, never()).enviar(anyLong(), any());
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    void separaElTagDeLaKeyword() {
+        var c = InlineBusquedaHandler.Consulta.parsear("  incendio  #CABA forestal ", 2);
+        assertEquals("incendio forestal", c.keyword());
+        assertEquals("CABA", c.tag());
+        assertEquals(2, c.page());
+
+        c = InlineBusquedaHandler.Consulta.parsear("\"zona norte\" tag: \"Delta del Paraná\"", 0);
+        assertEquals("zona norte", c.keyword());
+        assertEquals("Delta del Paraná", c.tag());
+    }
+
+    private static InlineQuery consulta(String id, String texto) {
+        User u = new User(7L, "Ana", false);
+        InlineQuery q = new InlineQuery();
+        q.setId(id);
+        q.setFrom(u);
+        q.setQuery(texto);
+        q.setOffset("");
+        return q;
+    }
+}
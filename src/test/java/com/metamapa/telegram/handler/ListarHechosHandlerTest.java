@@ -0,0 +1,113 @@
+package com.metamapa.telegram.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.RespuestaValidada;
+import com.metamapa.telegram.geo.IndiceGeo;
+import com.metamapa.telegram.render.MessageComposer;
+import com.metamapa.telegram.search.Autocompletado;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ListarHechosHandlerTest {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    private final BackendClient backend = mock(BackendClient.class);
+
+    @Test
+    void unaPaginaQueNoEntraSeCortaEntreHechosConEncabezadoYPie() {
+        coleccion(10, 600);
+        SendMessage msg = (SendMessage) handler("paginado", 10).handleBatch(comando("/hechos col")).get(0);
+
+        String texto = msg.getText();
+        assertTrue(texto.length() <= MessageComposer.TELEGRAM_MAX, "largo " + texto.length());
+        assertTrue(texto.startsWith("Hechos para 'col' (página 1):\n\n"), texto);
+        assertTrue(texto.endsWith("…\n\nPágina 1 de 1 (10 hechos)."), texto);
+    }
+
+    @Test
+    void unCallbackSinColeccionNoHaceNada() {
+        ListarHechosHandler handler = handler("paginado", 10);
+
+        assertEquals(List.of(), handler.handleBatch(callback("HECHOS|")));
+        assertEquals(List.of(), handler.handleBatch(callback("HECHOS||0")));
+        verifyNoInteractions(backend);
+    }
+
+    @Test
+    void elBotonDelRestoSigueDesdeElPrimerHechoQueNoSeMostro() {
+        coleccion(40, 300);
+        List<BotApiMethod<?>> mensajes = handler("completo", 5).handleBatch(comando("/hechos col"));
+
+        SendMessage resto = (SendMessage) mensajes.get(mensajes.size() - 1);
+        int restantes = Integer.parseInt(resto.getText().replaceAll("\\D+", " ").trim().split(" ")[0]);
+        int mostrados = 40 - restantes;
+        assertTrue(mostrados > 5, "mostrados " + mostrados);
+
+        List<InlineKeyboardButton> fila = resto.getReplyMarkup() instanceof InlineKeyboardMarkup kb
+                ? kb.getKeyboard().get(0) : List.of();
+        assertEquals(1, fila.size());
+        assertEquals("HECHOS|col|" + mostrados / 5, fila.get(0).getCallbackData());
+    }
+
+    private ListarHechosHandler handler(String modo, int pageSize) {
+        return new ListarHechosHandler(backend, mock(Autocompletado.class), mock(IndiceGeo.class),
+                modo, pageSize, 1, 0, Duration.ofMinutes(1), 100);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void coleccion(int hechos, int largoTitulo) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < hechos; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"titulo\":\"").append(i).append(" ").append("x".repeat(largoTitulo)).append("\"}");
+        }
+        byte[] cuerpo = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        when(backend.mapper()).thenReturn(MAPPER);
+        when(backend.streamCondicional(eq(Backend.COLECCIONES), eq("/col/hechos"), any(), any()))
+                .thenAnswer(inv -> new RespuestaValidada<>(null, null,
+                        ((BackendClient.LectorValidado<Object>) inv.getArgument(3))
+                                .leer(new ByteArrayInputStream(cuerpo), false)));
+    }
+
+    private static Update comando(String texto) {
+        Message m = new Message();
+        m.setChat(new Chat(7L, "private"));
+        m.setText(texto);
+        Update u = new Update();
+        u.setMessage(m);
+        return u;
+    }
+
+    private static Update callback(String data) {
+        Message m = new Message();
+        m.setChat(new Chat(7L, "private"));
+        m.setMessageId(1);
+        CallbackQuery q = new CallbackQuery();
+        q.setData(data);
+        q.setMessage(m);
+        Update u = new Update();
+        u.setCallbackQuery(q);
+        return u;
+    }
+}
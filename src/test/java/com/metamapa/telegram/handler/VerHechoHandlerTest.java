@@ -0,0 +1,71 @@
+package com.metamapa.telegram.handler;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.metamapa.telegram.DTO.HechoDetalleDTO;
+import com.metamapa.telegram.DTO.PdiDTO;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.geo.IndiceGeo;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class VerHechoHandlerTest {
+
+    private static final HechoDetalleDTO HECHO =
+            new HechoDetalleDTO("12", "Incendio", null, "incendios", "Ambiental", "Tigre", null, null, List.of());
+    private static final PdiDTO PDI = new PdiDTO("p1", "Foco inicial", "Delta", null, null, null, List.of());
+
+    private final BackendClient backend = mock(BackendClient.class);
+    private final VerHechoHandler handler = new VerHechoHandler(backend, mock(IndiceGeo.class), 10, 60);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void siFallanLosPdisNoSeCacheaYDespuesSi() {
+        when(backend.getAsync(Backend.FUENTES, "/hecho/12", HechoDetalleDTO.class))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(HECHO));
+        when(backend.getAsync(eq(Backend.FUENTES), eq("/hecho/12/pdis"), any(TypeReference.class)))
+                .thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("timeout")))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(List.of(PDI)));
+
+        // Sin PDIs: se avisa y no queda en la cache
+        assertTrue(textos(handler.handleBatch(hecho("/hecho 12"))).contains("tardando"));
+        // Así el siguiente vuelve a pedirlos, y ahora salen
+        assertTrue(textos(handler.handleBatch(hecho("/hecho 12"))).contains("Foco inicial"));
+        verify(backend, times(2)).getAsync(Backend.FUENTES, "/hecho/12", HechoDetalleDTO.class);
+        assertEquals(0, handler.getCacheHits());
+
+        // El detalle completo sí se cachea: el tercero no toca el backend
+        assertTrue(textos(handler.handleBatch(hecho("/hecho 12"))).contains("Foco inicial"));
+        verify(backend, times(2)).getAsync(Backend.FUENTES, "/hecho/12", HechoDetalleDTO.class);
+        verify(backend, times(2)).getAsync(eq(Backend.FUENTES), eq("/hecho/12/pdis"), any(TypeReference.class));
+        assertEquals(1, handler.getCacheHits());
+    }
+
+    private static String textos(List<BotApiMethod<?>> mensajes) {
+        StringBuilder sb = new StringBuilder();
+        for (BotApiMethod<?> m : mensajes) sb.append(((SendMessage) m).getText()).append('\n');
+        return sb.toString();
+    }
+
+    private static Update hecho(String texto) {
+        Message m = new Message();
+        m.setChat(new Chat(7L, "private"));
+        m.setText(texto);
+        Update u = new Update();
+        u.setMessage(m);
+        return u;
+    }
+}
@@ -0,0 +1,87 @@
+package com.metamapa.telegram.importacion;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.metamapa.telegram.DTO.NuevoHechoDTO;
+import com.metamapa.telegram.importacion.LectorHechos.Fila;
+import com.metamapa.telegram.importacion.LectorHechos.FormatoArchivo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LectorHechosTest {
+
+    private final ObjectReader json = JsonMapper.builder().build().readerFor(NuevoHechoDTO.class);
+
+    @Test
+    void csvConEncabezadoEnOtroOrdenYCamposEntreComillas() throws Exception {
+        String csv = """
+                Título;Colección;Fecha
+                "Incendio; zona ""norte\""\";bosques;2024-03-05
+
+                "Inundación
+                en el sur";bosques;
+                """;
+        List<Fila> filas = leer(csv, FormatoArchivo.CSV);
+
+        assertEquals(2, filas.size());
+        NuevoHechoDTO h = filas.get(0).hecho();
+        assertEquals("Incendio; zona \"norte\"", h.titulo());
+        assertEquals("bosques", h.nombreColeccion());
+        assertEquals("2024-03-05", h.fecha());
+        assertEquals(2, filas.get(0).numero());
+
+        assertEquals("Inundación\nen el sur", filas.get(1).hecho().titulo());
+        assertNull(filas.get(1).hecho().fecha());
+        assertEquals(4, filas.get(1).numero());
+    }
+
+    @Test
+    void csvSinEncabezadoUsaElOrdenDeAgregarHecho() throws Exception {
+        List<Fila> filas = leer("bosques,Incendio,Ambiental\nbosques,,\nbosques,Otro,,,05/03/2024\n",
+                FormatoArchivo.CSV);
+
+        assertEquals("Ambiental", filas.get(0).hecho().categoria());
+        assertEquals("falta el título", filas.get(1).error());
+        assertNull(filas.get(1).hecho());
+        assertTrue(filas.get(2).error().startsWith("la fecha"));
+    }
+
+    @Test
+    void jsonlMarcaLasLineasInvalidasYSigue() throws Exception {
+        String jsonl = """
+                {"nombre_coleccion": "bosques", "titulo": "Incendio", "extra": 1}
+                {"coleccion": "bosques", "titulo":
+                {"coleccion": "rios", "titulo": "Crecida", "fecha": "2024-03-05T10:00"}
+                """;
+        List<Fila> filas = leer(jsonl, FormatoArchivo.JSONL);
+
+        assertEquals(3, filas.size());
+        assertEquals("Incendio", filas.get(0).hecho().titulo());
+        assertTrue(filas.get(1).error().startsWith("JSON inválido"));
+        assertEquals(2, filas.get(1).numero());
+        assertEquals("rios", filas.get(2).hecho().nombreColeccion());
+    }
+
+    @Test
+    void detectaElFormatoPorNombreOMime() {
+        assertEquals(FormatoArchivo.CSV, LectorHechos.detectar("hechos.CSV", null));
+        assertEquals(FormatoArchivo.JSONL, LectorHechos.detectar("x", "application/x-ndjson"));
+        assertNull(LectorHechos.detectar("hechos.xlsx", "application/vnd.ms-excel"));
+    }
+
+    private List<Fila> leer(String contenido, FormatoArchivo formato) throws Exception {
+        List<Fila> filas = new ArrayList<>();
+        try (LectorHechos l = LectorHechos.de(
+                new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), formato, json)) {
+            Fila f;
+            while ((f = l.siguiente()) != null) filas.add(f);
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,71 @@
+package com.metamapa.telegram.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxJournalTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new BlackbirdModule()).build();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void alReabrirQuedanSoloLasAltasSinFin() throws Exception {
+        Path path = dir.resolve("outbox.jsonl");
+        Registro a1 = alta(1, "Incendio");
+        Registro a2 = alta(2, "Inundación");
+        Registro a3 = alta(3, "Sequía");
+
+        try (OutboxJournal j = OutboxJournal.abrir(path, mapper, new TreeMap<>())) {
+            j.append(List.of(a1, a2)).get(5, TimeUnit.SECONDS);
+            j.append(List.of(a3)).get(5, TimeUnit.SECONDS);
+            j.append(List.of(a2.fin("42", null))).get(5, TimeUnit.SECONDS);
+        }
+        // Se cayó a mitad de una línea
+        Files.writeString(path, "{\"op\":\"fin\",\"se", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        SortedMap<Long, Registro> pendientes = new TreeMap<>();
+        try (OutboxJournal j = OutboxJournal.abrir(path, mapper, pendientes)) {
+            assertEquals(List.of(1L, 3L), List.copyOf(pendientes.keySet()));
+            assertEquals("Sequía", pendientes.get(3L).cuerpo().path("titulo").asText());
+            assertEquals(Outbox.Tipo.HECHO, pendientes.get(1L).tipo());
+            assertEquals(77L, pendientes.get(1L).chatId());
+        }
+        // Al abrir se compactó: ya no están el fin ni la línea cortada
+        assertEquals(2, Files.readAllLines(path).size());
+    }
+
+    @Test
+    void vaciarDejaElArchivoEnCero() throws Exception {
+        Path path = dir.resolve("outbox.jsonl");
+        try (OutboxJournal j = OutboxJournal.abrir(path, mapper, new TreeMap<>())) {
+            Registro a = alta(1, "Incendio");
+            j.append(List.of(a)).get(5, TimeUnit.SECONDS);
+            j.append(List.of(a.fin("7", null))).get(5, TimeUnit.SECONDS);
+            j.vaciar().get(5, TimeUnit.SECONDS);
+            j.append(List.of(alta(2, "Otro"))).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, Files.readAllLines(path).size());
+    }
+
+    private Registro alta(long seq, String titulo) {
+        return Registro.alta(seq, Outbox.Tipo.HECHO, 77L,
+                mapper.valueToTree(Map.of("nombre_coleccion", "bosques", "titulo", titulo)));
+    }
+}
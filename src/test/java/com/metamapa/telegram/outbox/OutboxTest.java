@@ -0,0 +1,32 @@
+package com.metamapa.telegram.outbox;
+
+import com.metamapa.telegram.bot.TelegramSender;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendReadiness;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxTest {
+
+    @Test
+    void soloDiceDespertandoSiElBackendEstaArrancando() {
+        BackendReadiness readiness = mock(BackendReadiness.class);
+        BackendClient backend = mock(BackendClient.class);
+        when(backend.readiness()).thenReturn(readiness);
+        Outbox outbox = new Outbox(backend, mock(TelegramSender.class), false, "outbox.jsonl",
+                Duration.ofSeconds(20), 10, Duration.ofMinutes(14));
+
+        when(readiness.despertando(Backend.FUENTES)).thenReturn(true);
+        assertEquals("El servidor está despertando", outbox.motivoDiferido());
+
+        // Caído, o con pendientes adelante: nada de "despertando"
+        when(readiness.despertando(Backend.FUENTES)).thenReturn(false);
+        assertEquals("El servidor no está disponible ahora", outbox.motivoDiferido());
+    }
+}
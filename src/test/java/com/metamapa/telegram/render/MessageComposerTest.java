@@ -0,0 +1,56 @@
+package com.metamapa.telegram.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageComposerTest {
+
+    @Test
+    void escapaSegunElFormato() {
+        try (MessageComposer c = MessageComposer.de(Formato.HTML)) {
+            assertEquals("<b>a &lt;b&gt; &amp; c</b>", c.negrita("a <b> & c").unMensaje());
+        }
+        try (MessageComposer c = MessageComposer.de(Formato.MARKDOWN_V2)) {
+            assertEquals("Resultados para *incendio\\_2024 \\(CABA\\)*\\.",
+                    c.texto("Resultados para ").negrita("incendio_2024 (CABA)").texto(".").unMensaje());
+        }
+    }
+
+    @Test
+    void cortaEntreBloquesYRepiteLaContinuacion() {
+        try (MessageComposer c = MessageComposer.de(Formato.TEXTO, 12)) {
+            c.continuacion("(+) ");
+            c.texto("aaaa\n").fin();
+            c.texto("bbbb\n").fin();
+            c.texto("cccc\n").fin();
+
+            assertEquals(List.of("aaaa\nbbbb\n", "(+) cccc\n"), c.partes());
+        }
+    }
+
+    @Test
+    void unBloqueLargoSeCortaSinRomperEntidades() {
+        try (MessageComposer c = MessageComposer.de(Formato.HTML, 12)) {
+            c.negrita("uno").negrita("dos").negrita("tres").fin();
+
+            // Cada <b>..</b> entra entero en algún mensaje
+            assertEquals(List.of("<b>uno</b>", "<b>dos</b>", "<b>tres</b>"), c.partes());
+        }
+    }
+
+    @Test
+    void unTextoGiganteNoParteUnEscape() {
+        try (MessageComposer c = MessageComposer.de(Formato.HTML, 6)) {
+            c.texto("abcd&efgh").fin();
+
+            for (String parte : c.partes()) {
+                assertTrue(parte.length() <= 6);
+                assertFalse(parte.endsWith("&") || parte.endsWith("&a") || parte.endsWith("&am"), parte);
+            }
+            assertEquals("abcd&amp;efgh", String.join("", c.partes()));
+        }
+    }
+}
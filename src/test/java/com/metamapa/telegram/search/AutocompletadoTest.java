@@ -0,0 +1,56 @@
+package com.metamapa.telegram.search;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompletadoTest {
+
+    private static HechoDTO hecho(String titulo, String categoria, String... etiquetas) {
+        return new HechoDTO(titulo, null, List.of(etiquetas), categoria, null, null, null);
+    }
+
+    @Test
+    void sugiereLoMasVistoPrimeroYSinTildes() {
+        Autocompletado a = new Autocompletado(true, 3, 100);
+        a.aprender(List.of(
+                hecho("Incendio en la reserva", "Ambiental", "CABA"),
+                hecho("Incendio forestal", "Ambiental", "Córdoba"),
+                hecho("Inundación en Luján", "Clima", "Buenos Aires")));
+
+        assertEquals(List.of("incendio", "inundación"), a.keywords("in", 3));
+        assertEquals(List.of("inundación"), a.keywords("INUNDA", 3));
+        assertEquals(List.of("Córdoba"), a.etiquetas("cor", 3));
+        // La consulta misma no se sugiere; "en" y "la" no se aprenden
+        assertEquals(List.of(), a.keywords("incendio", 3));
+        assertEquals(List.of(), a.keywords("la", 3));
+    }
+
+    @Test
+    void vacioDevuelveLasMasComunes() {
+        Autocompletado a = new Autocompletado(true, 2, 100);
+        for (int i = 0; i < 3; i++) a.aprender(hecho("Sequía", "Clima"));
+        a.aprender(hecho("Granizo", "Clima"));
+
+        assertEquals(List.of("Clima", "sequía"), a.keywords("", 2));
+    }
+
+    @Test
+    void respetaElTopeDeTerminos() {
+        Autocompletado a = new Autocompletado(true, 5, 2);
+        a.aprender(hecho("alfa beta gama delta", null));
+
+        assertEquals(2, a.getTerminos());
+    }
+
+    @Test
+    void apagadoNoSugiereNada() {
+        Autocompletado a = new Autocompletado(false, 5, 100);
+        a.aprender(hecho("Incendio", "Ambiental"));
+
+        assertTrue(a.keywords("inc", 5).isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+package com.metamapa.telegram.search;
+
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceInvertidoTest {
+
+    private static HechoDTO hecho(String titulo, String descripcion, String categoria, String... etiquetas) {
+        return new HechoDTO(titulo, descripcion, List.of(etiquetas), categoria, null, null, null);
+    }
+
+    private static final HechoDTO INCENDIO = hecho("Incendio forestal", "Fuego en la reserva", "Ambiental", "CABA");
+    private static final HechoDTO INUNDACION = hecho("Inundación en Luján", "Calles anegadas", "Clima", "Buenos Aires");
+    private static final HechoDTO INCENDIOS = hecho("Incendios en el Delta", "Quema de pastizales", "Ambiental", "Tigre");
+
+    private static IndiceInvertido indice() {
+        return new IndiceInvertido.Constructor().agregar(INCENDIO).agregar(INUNDACION).agregar(INCENDIOS).construir();
+    }
+
+    @Test
+    void plegaAcentosYPlurales() {
+        assertEquals(List.of(INUNDACION), indice().buscar("inundaciones", null, 0, 10).content());
+        assertEquals(List.of(INUNDACION), indice().buscar("LUJAN", null, 0, 10).content());
+        assertEquals(List.of(INCENDIO, INCENDIOS), indice().buscar("incendio", null, 0, 10).content());
+        assertEquals(List.of(INUNDACION), indice().buscar("calle", null, 0, 10).content());
+    }
+
+    @Test
+    void todosLosTerminosTienenQueEstar() {
+        assertEquals(List.of(INCENDIOS), indice().buscar("incendio delta", null, 0, 10).content());
+        assertTrue(indice().buscar("incendio luján", null, 0, 10).content().isEmpty());
+        // "en" y "el" son palabras vacías: no filtran nada
+        assertEquals(List.of(INCENDIOS), indice().buscar("en el delta", null, 0, 10).content());
+    }
+
+    @Test
+    void filtraPorEtiquetaSinDistinguirMayusculas() {
+        assertEquals(List.of(INCENDIOS), indice().buscar("incendio", "tigre", 0, 10).content());
+        assertEquals(List.of(INUNDACION), indice().buscar("inundacion", "Buenos Aires", 0, 10).content());
+        assertTrue(indice().buscar("incendio", "Córdoba", 0, 10).content().isEmpty());
+    }
+
+    @Test
+    void paginaComoElBuscador() {
+        IndiceInvertido.Constructor c = new IndiceInvertido.Constructor();
+        for (int i = 0; i < 25; i++) c.agregar(hecho("Incendio " + i, null, "Ambiental"));
+        IndiceInvertido indice = c.construir();
+
+        PageResponse<HechoDTO> primera = indice.buscar("incendio", null, 0, 10);
+        assertEquals(25, primera.totalElements());
+        assertEquals(3, primera.totalPages());
+        assertTrue(primera.first());
+        assertFalse(primera.last());
+
+        PageResponse<HechoDTO> ultima = indice.buscar("incendio", null, 2, 10);
+        assertEquals(5, ultima.content().size());
+        assertEquals("Incendio 20", ultima.content().get(0).titulo());
+        assertTrue(ultima.last());
+    }
+
+    @Test
+    void interseccionDeListasOrdenadas() {
+        assertArrayEquals(new int[]{3, 7}, IndiceInvertido.interseccion(new int[]{1, 3, 5, 7}, new int[]{2, 3, 7, 9}));
+        assertArrayEquals(new int[0], IndiceInvertido.interseccion(new int[]{1}, new int[0]));
+    }
+}
@@ -0,0 +1,87 @@
+package com.metamapa.telegram.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.metamapa.telegram.DTO.HechoDTO;
+import com.metamapa.telegram.DTO.PageResponse;
+import com.metamapa.telegram.clients.Backend;
+import com.metamapa.telegram.clients.BackendClient;
+import com.metamapa.telegram.clients.BackendNoDisponibleException;
+import com.metamapa.telegram.search.IndiceLocal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BusquedaServiceTest {
+
+    private static final PageResponse<HechoDTO> REMOTA = pagina(2);
+    private static final PageResponse<HechoDTO> LOCAL = pagina(1);
+
+    private final BackendClient backend = mock(BackendClient.class);
+    private final IndiceLocal indice = mock(IndiceLocal.class);
+    private final BusquedaService busqueda = new BusquedaService(backend, indice, 10, 60, false);
+
+    @AfterEach
+    void cerrar() {
+        busqueda.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void conUnIndiceParcialSeBuscaEnElBuscador() {
+        when(indice.vigente()).thenReturn(true);
+        when(indice.cubreTodo()).thenReturn(false);
+        when(backend.get(eq(Backend.BUSCADOR), anyString(), any(TypeReference.class))).thenReturn(REMOTA);
+
+        assertSame(REMOTA, busqueda.buscar("incendio", null, 0));
+        assertFalse(busqueda.enCache("otra", null, 0));
+        verify(indice, never()).buscar(any(), any(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void siElBuscadorFallaContestaElIndiceParcialSinCachear() {
+        when(indice.vigente()).thenReturn(true);
+        when(indice.buscar("incendio", null, 0)).thenReturn(LOCAL);
+        when(backend.get(eq(Backend.BUSCADOR), anyString(), any(TypeReference.class)))
+                .thenThrow(new BackendNoDisponibleException(Backend.BUSCADOR))
+                .thenReturn(REMOTA);
+
+        assertSame(LOCAL, busqueda.buscar("incendio", null, 0));
+        assertSame(REMOTA, busqueda.buscar("incendio", null, 0));
+
+        // Sin índice vigente el error llega al handler
+        when(indice.vigente()).thenReturn(false);
+        when(backend.get(eq(Backend.BUSCADOR), anyString(), any(TypeReference.class)))
+                .thenThrow(new BackendNoDisponibleException(Backend.BUSCADOR));
+        assertThrows(BackendNoDisponibleException.class, () -> busqueda.buscar("otra", null, 0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unIndiceCompletoContestaSoloYSinResultadosConfirmaConElBuscador() {
+        when(indice.vigente()).thenReturn(true);
+        when(indice.cubreTodo()).thenReturn(true);
+        when(indice.buscar("incendio", null, 0)).thenReturn(LOCAL);
+        when(indice.buscar("nuevo", null, 0)).thenReturn(pagina(0));
+        when(backend.get(eq(Backend.BUSCADOR), anyString(), any(TypeReference.class))).thenReturn(REMOTA);
+
+        assertSame(LOCAL, busqueda.buscar("incendio", null, 0));
+        verify(backend, never()).get(any(), anyString(), any(TypeReference.class));
+
+        assertSame(REMOTA, busqueda.buscar("nuevo", null, 0));
+    }
+
+    private static PageResponse<HechoDTO> pagina(int hechos) {
+        List<HechoDTO> content = Collections.nCopies(hechos,
+                new HechoDTO("Incendio", null, List.of("incendios"), "Ambiental", "Tigre", null, null));
+        return new PageResponse<>(content, 0, hechos > 0 ? 1 : 0, hechos, true, true);
+    }
+}
@@ -0,0 +1,112 @@
+package com.metamapa.telegram.util;
+
+import com.metamapa.telegram.handler.BuscarKeywordHandler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArgumentosTest {
+
+    @Test
+    void comandoYPosicionales() {
+        Argumentos a = Argumentos.de("  /Cambiar_Estado@MetaMapa_bot  12   aceptada ");
+        assertEquals("/cambiar_estado", a.comando());
+        assertEquals(2, a.posicionales());
+        assertEquals("12", a.posicional(0));
+        assertEquals("aceptada", a.posicional(1));
+        assertNull(a.posicional(2));
+        assertEquals("12   aceptada", a.resto());
+
+        Argumentos vacio = Argumentos.de("/hecho");
+        assertEquals("/hecho", vacio.comando());
+        assertNull(vacio.resto());
+        assertNull(vacio.posicional(0));
+        assertEquals(0, vacio.campos());
+    }
+
+    @Test
+    void comillasYClaves() {
+        Argumentos a = Argumentos.de("/buscar \"incendio forestal\" TAG: \"Buenos Aires\"");
+        assertEquals("incendio forestal", a.entreComillas());
+        assertEquals("Buenos Aires", a.valor("tag"));
+
+        // El texto libre corta en la primera clave y pierde la coma
+        Argumentos b = Argumentos.de("/buscar incendio en la zona sur, tag:CABA");
+        assertNull(b.entreComillas());
+        assertEquals("incendio en la zona sur", b.libre());
+        assertEquals("CABA", b.valor("tag"));
+
+        // Sin comillas ni pegado no es una clave; tampoco una URL
+        Argumentos c = Argumentos.de("/buscar covid: casos https://x.org/a");
+        assertNull(c.valor("covid"));
+        assertEquals("covid: casos https://x.org/a", c.libre());
+        assertEquals("https://x.org/a", c.posicional(2));
+    }
+
+    @Test
+    void camposEntrePipes() {
+        Argumentos a = Argumentos.de("/agregar_pdi 42 | Foto \"A | B\" |  | 2024-03-05T14:00 | https://img/1.png");
+        assertEquals(5, a.campos());
+        assertEquals("42", a.campo(0));
+        assertEquals("Foto \"A | B\"", a.campo(1));
+        assertNull(a.campo(2));
+        assertEquals("2024-03-05T14:00", a.campo(3));
+        assertEquals("https://img/1.png", a.campo(4));
+        assertNull(a.campo(5));
+
+        // Sin '/' todo son argumentos: callback_data
+        Argumentos cb = Argumentos.de("BUSCAR|incendio forestal|_|2");
+        assertNull(cb.comando());
+        assertEquals("incendio forestal", cb.campo(1));
+        assertEquals("2", cb.campo(3));
+    }
+
+    @Test
+    void restoDespuesDeUnPosicional() {
+        Argumentos a = Argumentos.de("/solicitar_borrado 12  Motivo: está duplicado");
+        assertEquals("12", a.posicional(0));
+        assertEquals("Motivo: está duplicado", a.restoDespues(0));
+        assertNull(Argumentos.de("/solicitar_borrado 12").restoDespues(0));
+    }
+
+    @Test
+    void seReusaSinArrastrarLoAnterior() {
+        Argumentos a = new Argumentos();
+        StringBuilder largo = new StringBuilder("/x");
+        for (int i = 0; i < 40; i++) largo.append(" p").append(i).append(" |");
+        a.parsear(largo);
+        assertEquals(40, a.posicionales());
+        assertEquals(41, a.campos());
+        assertEquals("p39", a.posicional(39));
+
+        a.parsear("/buscar agua");
+        assertEquals(1, a.posicionales());
+        assertEquals(1, a.campos());
+        assertNull(a.valor("tag"));
+        assertEquals("agua", a.libre());
+    }
+
+    @Test
+    void laVistaDelHiloNoVuelveAParsearElMismoTexto() {
+        String texto = "/hecho 12";
+        Argumentos a = Argumentos.del(texto);
+        assertSame(a, Argumentos.del(texto));
+        assertEquals("12", Argumentos.del(texto).posicional(0));
+
+        // Otro texto (aunque sea igual) se parsea de nuevo en la misma vista
+        Argumentos b = Argumentos.del("/hechos col-1");
+        assertSame(a, b);
+        assertEquals("/hechos", b.comando());
+        assertEquals("col-1", Argumentos.del(new String("/hechos col-1")).resto());
+        assertNull(Argumentos.del(null).comando());
+    }
+
+    @Test
+    void buscarKeywordYTag() {
+        assertEquals("incendio", BuscarKeywordHandler.extraerKeyword("/buscar incendio, tag: \"CABA\""));
+        assertEquals("CABA", BuscarKeywordHandler.extraerTag("/buscar incendio, tag: \"CABA\""));
+        assertEquals("incendio forestal", BuscarKeywordHandler.extraerKeyword("/buscar \"incendio forestal\""));
+        assertNull(BuscarKeywordHandler.extraerKeyword("/buscar"));
+        assertNull(BuscarKeywordHandler.extraerTag("/buscar incendio"));
+    }
+}